@@ -0,0 +1,52 @@
+package com.creative.studio.component.dependency;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the digest algorithms over class sized inputs
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DigestBenchmark {
+
+    @Param({ "crc32c", "xxhash64", "md5", "sha-256" })
+    private String          algorithm;
+
+    @Param({ "512", "8192", "65536" })
+    private int             size;
+
+    private DigestAlgorithm digestAlgorithm;
+    private byte[]          bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        digestAlgorithm = DigestAlgorithm.fromString(algorithm);
+        bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+    }
+
+    @Benchmark
+    public byte[] digest() {
+        return DigestEngine.get().digest(digestAlgorithm, bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,116 @@
+package com.creative.studio.component.dependency;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.creative.studio.component.dependency.SyntheticJars.ClassSize;
+
+/**
+ * Benchmarks of the scan hot paths over generated jar sets. Run them with
+ * <code>mvn -Pbenchmarks package</code> and
+ * <code>java -jar dependency-mediator-benchmarks/target/benchmarks.jar</code>.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int                  jarCount;
+
+    @Param({ "SMALL", "LARGE" })
+    private ClassSize            classSize;
+
+    @Param({ "digest", "crc", "lazy" })
+    private String               fingerprint;
+
+    private File                 dir;
+    private List<File>           jars;
+    private List<List<String>>   entryNames;
+    private List<ComponentEntry> entries;
+    private ScanSettings         settings;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = File.createTempFile("dependency-mediator", "-benchmark");
+        dir.delete();
+        jars = SyntheticJars.generate(dir, jarCount, classSize);
+        settings = ScanSettings.DEFAULT.withFingerprintMode(FingerprintMode
+                .fromString(fingerprint));
+
+        entryNames = new ArrayList<List<String>>();
+        ComponentBatch batch = new ComponentBatch();
+        for (File jar : jars) {
+            int from = batch.size();
+            DependencyMediator.processJarFile(jar, true, batch, settings);
+            List<String> names = new ArrayList<String>();
+            for (ComponentEntry cEntry : batch.getEntries().subList(from, batch.size())) {
+                names.add(cEntry.getEntryName());
+            }
+            entryNames.add(names);
+        }
+        entries = new ArrayList<ComponentEntry>(batch.getEntries());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SyntheticJars.delete(dir);
+    }
+
+    @Benchmark
+    public ComponentContainer processJarFile() throws IOException {
+        ComponentContainer container = new ComponentContainer();
+        for (File jar : jars) {
+            DependencyMediator.processJarFile(jar, true, container, settings);
+        }
+        if (settings.getFingerprintMode().isDeferred()) {
+            DependencyMediator.resolveDuplicates(container, settings);
+        }
+        return container;
+    }
+
+    @Benchmark
+    public void getDigest(Blackhole blackhole) {
+        for (int i = 0; i < jars.size(); i++) {
+            blackhole.consume(DependencyMediator.getDigests(jars.get(i).getPath(),
+                    entryNames.get(i), settings));
+        }
+    }
+
+    @Benchmark
+    public ComponentContainer containerPut() {
+        ComponentContainer container = new ComponentContainer();
+        for (ComponentEntry cEntry : entries) {
+            container.put(cEntry.getName(), cEntry);
+        }
+        return container;
+    }
+
+    @Benchmark
+    public List<File> processDirectory() throws IOException {
+        return DependencyMediator.processDirectory(dir, settings);
+    }
+}
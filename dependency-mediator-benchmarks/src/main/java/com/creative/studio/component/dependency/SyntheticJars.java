@@ -0,0 +1,147 @@
+package com.creative.studio.component.dependency;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates sets of jars full of valid classes for the benchmarks.
+ * <p>
+ * Every jar holds {@link #SHARED_CLASSES} classes which are found in every
+ * other jar, half of them with different content, and
+ * {@link #CLASSES_PER_JAR} classes of its own. So a set of jars always has
+ * conflicts and duplicates to resolve.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public final class SyntheticJars {
+
+    public static final int CLASSES_PER_JAR = 20;
+    public static final int SHARED_CLASSES  = 5;
+
+    public enum ClassSize {
+        /**
+         * A constructor, a field and a method
+         */
+        SMALL(1, 1),
+        /**
+         * Hundreds of fields and methods, several kilobytes per class
+         */
+        LARGE(100, 200);
+
+        private final int fields;
+        private final int methods;
+
+        ClassSize(int fields, int methods) {
+            this.fields = fields;
+            this.methods = methods;
+        }
+    }
+
+    /**
+     * Write the jars into the directory
+     *
+     * @return the jar files in creation order
+     */
+    public static List<File> generate(File dir, int jarCount, ClassSize classSize)
+            throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can not create " + dir);
+        }
+        List<File> jars = new ArrayList<File>(jarCount);
+        for (int j = 0; j < jarCount; j++) {
+            //Spread the jars over a few directories,like a repository does
+            File jarDir = new File(dir, "group" + (j % 10));
+            if (!jarDir.isDirectory() && !jarDir.mkdirs()) {
+                throw new IOException("Can not create " + jarDir);
+            }
+            File jar = new File(jarDir, "artifact-" + j + ".jar");
+            JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+            try {
+                for (int i = 0; i < SHARED_CLASSES; i++) {
+                    //Odd shared classes differ between odd and even jars
+                    int variant = i % 2 == 0 ? 0 : j % 2;
+                    writeClass(out, "com/synthetic/shared/C" + i, classSize, variant);
+                }
+                for (int i = 0; i < CLASSES_PER_JAR; i++) {
+                    writeClass(out, "com/synthetic/j" + j + "/C" + i, classSize, i);
+                }
+            } finally {
+                out.close();
+            }
+            jars.add(jar);
+        }
+        return jars;
+    }
+
+    private static void writeClass(JarOutputStream out, String internalName,
+                                   ClassSize classSize, int variant) throws IOException {
+        out.putNextEntry(new JarEntry(internalName + DependencyMediator.CLASS_SUFFIX));
+        out.write(generateClass(internalName, classSize, variant));
+        out.closeEntry();
+    }
+
+    /**
+     * @param variant classes of the same name and size only have the same
+     *            content if the variant is the same
+     * @return bytecode of the class
+     */
+    public static byte[] generateClass(String internalName, ClassSize classSize, int variant) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null,
+                "java/lang/Object", new String[] { "java/io/Serializable" });
+        for (int i = 0; i < classSize.fields; i++) {
+            cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "FIELD_" + i,
+                    "Ljava/lang/String;", null, "value-" + i + "-" + variant).visitEnd();
+        }
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(1, 1);
+        mv.visitEnd();
+
+        for (int i = 0; i < classSize.methods; i++) {
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "method" + i,
+                    "(Ljava/lang/String;I)Ljava/lang/String;", null,
+                    new String[] { "java/io/IOException" });
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitLdcInsn("suffix-" + i + "-" + variant);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "concat",
+                    "(Ljava/lang/String;)Ljava/lang/String;", false);
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitMaxs(2, 3);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Delete the directory and everything in it
+     */
+    public static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        file.delete();
+    }
+
+    private SyntheticJars() {
+        // Unused
+    }
+}
@@ -0,0 +1,66 @@
+package com.creative.studio.component.dependency.compatibility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.ClassReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.creative.studio.component.dependency.SyntheticJars;
+import com.creative.studio.component.dependency.SyntheticJars.ClassSize;
+
+/**
+ * Benchmark of extracting the API signatures of the classes of a generated
+ * jar set
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompatibleDetectingVisitorBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int          jarCount;
+
+    @Param({ "SMALL", "LARGE" })
+    private ClassSize    classSize;
+
+    private List<byte[]> classes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        classes = new ArrayList<byte[]>();
+        for (int j = 0; j < jarCount; j++) {
+            for (int i = 0; i < SyntheticJars.CLASSES_PER_JAR; i++) {
+                classes.add(SyntheticJars.generateClass("com/synthetic/j" + j + "/C" + i,
+                        classSize, i));
+            }
+        }
+    }
+
+    @Benchmark
+    public CompatibleDetectingVisitor visit() {
+        CompatibleDetectingVisitor classVisitor = new CompatibleDetectingVisitor();
+        for (byte[] bytes : classes) {
+            new ClassReader(bytes)
+                    .accept(classVisitor, CompatibleDetectingVisitor.PARSING_OPTIONS);
+        }
+        return classVisitor;
+    }
+}
@@ -0,0 +1,487 @@
+package com.creative.studio.component.dependency;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Compact entry table of a zip archive, such as jar,war,ear,sar and zip. The
+ * archive is memory-mapped, and the end of central directory and central
+ * directory records are parsed into primitive arrays, so no
+ * {@link java.util.jar.JarEntry} is created per entry.
+ * <p>
+ * ZIP64 archives and archives larger than 2GB are not supported, opening them
+ * throws a {@link ZipException} and callers fall back to
+ * {@link java.util.jar.JarFile}. Like {@link java.util.jar.JarFile}, encrypted
+ * entries are rejected and inflated entries are checked against their size and
+ * CRC-32.
+ * <p>
+ * Instances are safe for concurrent readers. {@link #close()} unmaps the
+ * archive, so it is no longer locked on Windows. It waits for the reads in
+ * progress, and later reads throw a {@link ZipException}.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public final class CentralDirectory implements Closeable {
+
+    private static final Charset UTF_8        = Charset.forName("UTF-8");
+
+    private static final int     EOCD_SIG     = 0x06054b50;
+    private static final int     CEN_SIG      = 0x02014b50;
+    private static final int     LOC_SIG      = 0x04034b50;
+    private static final int     EOCD_LEN     = 22;
+    private static final int     CEN_LEN      = 46;
+    private static final int     LOC_LEN      = 30;
+
+    private static final int     STORED       = 0;
+    private static final int     DEFLATED     = 8;
+    private static final int     ENCRYPTED    = 1;
+
+    /**
+     * Unmaps a mapped buffer,null if the running JVM offers no way to
+     */
+    private static final Unmapper UNMAPPER    = newUnmapper();
+
+    private final String         name;
+    private final ByteBuffer     buffer;
+    private final int            size;
+    /**
+     * Name bytes of all entries, entry i is in [nameOffsets[i],
+     * nameOffsets[i+1])
+     */
+    private final byte[]         names;
+    private final int[]          nameOffsets;
+    private final int[]          crcs;
+    private final int[]          sizes;
+    private final int[]          compressedSizes;
+    private final int[]          localOffsets;
+    private final short[]        methods;
+    private final short[]        flags;
+    /**
+     * Open addressing table of entry index plus one, built on first lookup
+     */
+    private volatile int[]       lookupTable;
+    /**
+     * Held shared by the reads of the mapping,and exclusive to unmap it
+     */
+    private final ReadWriteLock  mappingLock  = new ReentrantReadWriteLock();
+    private boolean              closed;
+
+    private CentralDirectory(String name, ByteBuffer buffer) throws ZipException {
+        this.name = name;
+        this.buffer = buffer;
+
+        int eocd = findEndOfCentralDirectory(buffer);
+        int total = buffer.getShort(eocd + 10) & 0xffff;
+        long cenSize = buffer.getInt(eocd + 12) & 0xffffffffL;
+        long cenOffset = buffer.getInt(eocd + 16) & 0xffffffffL;
+        if (total == 0xffff || cenOffset == 0xffffffffL || cenSize == 0xffffffffL) {
+            throw new ZipException("ZIP64 archive is not supported: " + name);
+        }
+        //Bytes prepended to the archive,such as a launcher script
+        long base = eocd - cenSize - cenOffset;
+        if (base < 0) {
+            throw new ZipException("Invalid central directory offset: " + name);
+        }
+
+        this.size = total;
+        this.nameOffsets = new int[total + 1];
+        this.crcs = new int[total];
+        this.sizes = new int[total];
+        this.compressedSizes = new int[total];
+        this.localOffsets = new int[total];
+        this.methods = new short[total];
+        this.flags = new short[total];
+
+        byte[] nameBytes = new byte[(int) Math.min(cenSize, Integer.MAX_VALUE)];
+        int namesLength = 0;
+        int pos = (int) (base + cenOffset);
+        for (int i = 0; i < total; i++) {
+            if (pos + CEN_LEN > eocd || buffer.getInt(pos) != CEN_SIG) {
+                throw new ZipException("Invalid central directory header: " + name);
+            }
+            int nameLength = buffer.getShort(pos + 28) & 0xffff;
+            int extraLength = buffer.getShort(pos + 30) & 0xffff;
+            int commentLength = buffer.getShort(pos + 32) & 0xffff;
+            int recordLength = CEN_LEN + nameLength + extraLength + commentLength;
+            if ((long) pos + recordLength > eocd) {
+                throw new ZipException("Truncated central directory header: " + name);
+            }
+            flags[i] = buffer.getShort(pos + 8);
+            methods[i] = buffer.getShort(pos + 10);
+            crcs[i] = buffer.getInt(pos + 16);
+            compressedSizes[i] = buffer.getInt(pos + 20);
+            sizes[i] = buffer.getInt(pos + 24);
+            localOffsets[i] = (int) (base + (buffer.getInt(pos + 42) & 0xffffffffL));
+            if (compressedSizes[i] < 0 || sizes[i] < 0 || localOffsets[i] < 0) {
+                throw new ZipException("ZIP64 entry is not supported: " + name);
+            }
+
+            nameOffsets[i] = namesLength;
+            for (int j = 0; j < nameLength; j++) {
+                nameBytes[namesLength++] = buffer.get(pos + CEN_LEN + j);
+            }
+            pos += recordLength;
+        }
+        nameOffsets[total] = namesLength;
+        this.names = Arrays.copyOf(nameBytes, namesLength);
+    }
+
+    /**
+     * Memory-map the archive and read its central directory
+     *
+     * @throws ZipException if it is not a zip archive, or is not supported
+     */
+    public static CentralDirectory open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new ZipException("Archive larger than 2GB is not supported: " + file);
+            }
+            if (length < EOCD_LEN) {
+                throw new ZipException("Not a zip archive: " + file);
+            }
+            //The mapping stays valid after the channel is closed,until close() unmaps it
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new CentralDirectory(file.getPath(), buffer);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer buffer) throws ZipException {
+        int limit = Math.max(0, buffer.limit() - EOCD_LEN - 0xffff);
+        for (int pos = buffer.limit() - EOCD_LEN; pos >= limit; pos--) {
+            if (buffer.getInt(pos) == EOCD_SIG
+                    && pos + EOCD_LEN + (buffer.getShort(pos + 20) & 0xffff) <= buffer.limit()) {
+                return pos;
+            }
+        }
+        throw new ZipException("End of central directory not found");
+    }
+
+    /**
+     * @return path of the archive
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    public String getEntryName(int index) {
+        return new String(names, nameOffsets[index], nameLength(index), UTF_8);
+    }
+
+    /**
+     * Compare the name bytes without creating a String
+     */
+    public boolean entryNameEndsWith(int index, String suffix) {
+        int length = suffix.length();
+        int end = nameOffsets[index + 1];
+        if (nameLength(index) < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (names[end - length + i] != (byte) suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getCrc(int index) {
+        return crcs[index] & 0xffffffffL;
+    }
+
+    public long getSize(int index) {
+        return sizes[index];
+    }
+
+    public long getCompressedSize(int index) {
+        return compressedSizes[index];
+    }
+
+    /**
+     * @return index of the named entry, -1 if absent
+     */
+    public int indexOf(String entryName) {
+        byte[] target = entryName.getBytes(UTF_8);
+        int[] table = lookupTable();
+        int mask = table.length - 1;
+        for (int slot = hash(target, 0, target.length) & mask; table[slot] != 0; slot = (slot + 1)
+                & mask) {
+            int index = table[slot] - 1;
+            if (nameEquals(index, target)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private int[] lookupTable() {
+        int[] table = lookupTable;
+        if (table == null) {
+            table = new int[Integer.highestOneBit(Math.max(size, 1) * 2) * 2];
+            int mask = table.length - 1;
+            for (int i = 0; i < size; i++) {
+                int slot = hash(names, nameOffsets[i], nameLength(i)) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = i + 1;
+            }
+            lookupTable = table;
+        }
+        return table;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private boolean nameEquals(int index, byte[] target) {
+        if (nameLength(index) != target.length) {
+            return false;
+        }
+        int offset = nameOffsets[index];
+        for (int i = 0; i < target.length; i++) {
+            if (names[offset + i] != target[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int nameLength(int index) {
+        return nameOffsets[index + 1] - nameOffsets[index];
+    }
+
+    /**
+     * Read and inflate the content of the entry
+     */
+    public byte[] read(int index) throws IOException {
+        byte[] output = new byte[sizes[index]];
+        Inflater inflater = new Inflater(true);
+        try {
+            read(index, output, new byte[compressedSizes[index] + 1], inflater);
+        } finally {
+            inflater.end();
+        }
+        return output;
+    }
+
+    /**
+     * Read and inflate the content of the entry into pooled buffers
+     * 
+     * @param output at least {@link #getSize(int)} bytes
+     * @param input at least {@link #getCompressedSize(int)} plus one bytes
+     * @param inflater nowrap inflater, which is reset first
+     */
+    void read(int index, byte[] output, byte[] input, Inflater inflater) throws IOException {
+        readCompressed(index, input);
+        inflate(index, input, output, inflater);
+    }
+
+    /**
+     * Copy the stored or deflated data of the entry, followed by the dummy
+     * byte the nowrap inflater needs
+     * 
+     * @param input at least {@link #getCompressedSize(int)} plus one bytes
+     */
+    void readCompressed(int index, byte[] input) throws IOException {
+        if ((flags[index] & ENCRYPTED) != 0) {
+            throw new ZipException("Encrypted entry " + getEntryName(index) + " in " + name
+                    + " is not supported");
+        }
+        mappingLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new ZipException("Archive is closed: " + name);
+            }
+            copyCompressed(index, input);
+        } finally {
+            mappingLock.readLock().unlock();
+        }
+    }
+
+    private void copyCompressed(int index, byte[] input) throws ZipException {
+        int loc = localOffsets[index];
+        if (loc + LOC_LEN > buffer.limit() || buffer.getInt(loc) != LOC_SIG) {
+            throw new ZipException("Invalid local header of " + getEntryName(index) + " in "
+                    + name);
+        }
+        int dataOffset = loc + LOC_LEN + (buffer.getShort(loc + 26) & 0xffff)
+                + (buffer.getShort(loc + 28) & 0xffff);
+        int compressedSize = compressedSizes[index];
+        if (dataOffset + compressedSize > buffer.limit()) {
+            throw new ZipException("Truncated entry " + getEntryName(index) + " in " + name);
+        }
+        ByteBuffer data = buffer.duplicate();
+        data.position(dataOffset);
+        data.get(input, 0, compressedSize);
+        input[compressedSize] = 0;
+    }
+
+    /**
+     * Inflate the data of the entry copied by {@link #readCompressed}
+     * 
+     * @param output at least {@link #getSize(int)} bytes
+     * @param inflater nowrap inflater, which is reset first
+     */
+    void inflate(int index, byte[] input, byte[] output, Inflater inflater) throws IOException {
+        int compressedSize = compressedSizes[index];
+        int size = sizes[index];
+        switch (methods[index]) {
+            case STORED: {
+                if (compressedSize != size) {
+                    throw new ZipException("Invalid entry size of " + getEntryName(index)
+                            + " in " + name);
+                }
+                System.arraycopy(input, 0, output, 0, size);
+                break;
+            }
+            case DEFLATED: {
+                inflater.reset();
+                try {
+                    inflater.setInput(input, 0, compressedSize + 1);
+                    int count = 0;
+                    while (count < size && !inflater.finished()) {
+                        int n = inflater.inflate(output, count, size - count);
+                        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                            break;
+                        }
+                        count += n;
+                    }
+                    if (count != size) {
+                        throw new ZipException("Invalid entry size of " + getEntryName(index)
+                                + " in " + name);
+                    }
+                    break;
+                } catch (DataFormatException e) {
+                    ZipException zipException = new ZipException("Invalid deflated entry "
+                            + getEntryName(index) + " in " + name);
+                    zipException.initCause(e);
+                    throw zipException;
+                }
+            }
+            default:
+                throw new ZipException("Unsupported compression method " + methods[index] + " of "
+                        + getEntryName(index) + " in " + name);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(output, 0, size);
+        if ((int) crc.getValue() != crcs[index]) {
+            throw new ZipException("Invalid CRC-32 of entry " + getEntryName(index) + " in "
+                    + name);
+        }
+    }
+
+    public InputStream getInputStream(int index) throws IOException {
+        return new ByteArrayInputStream(read(index));
+    }
+
+    /**
+     * Unmap the archive once the reads in progress are done. Entries already
+     * copied by {@link #readCompressed} may still be inflated, while reading
+     * entries throws a {@link ZipException}.
+     */
+    public void close() {
+        mappingLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (UNMAPPER != null && buffer instanceof MappedByteBuffer) {
+                UNMAPPER.unmap(buffer);
+            }
+        } finally {
+            mappingLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Releases a mapping before the buffer is garbage collected, with
+     * <code>Unsafe.invokeCleaner</code> since Java 9, or with the cleaner of
+     * the buffer before
+     */
+    private static final class Unmapper {
+        private final Object unsafe;
+        private final Method invokeCleaner;
+        private final Method cleaner;
+        private final Method clean;
+
+        Unmapper(Object unsafe, Method invokeCleaner, Method cleaner, Method clean) {
+            this.unsafe = unsafe;
+            this.invokeCleaner = invokeCleaner;
+            this.cleaner = cleaner;
+            this.clean = clean;
+        }
+
+        void unmap(ByteBuffer buffer) {
+            try {
+                if (invokeCleaner != null) {
+                    invokeCleaner.invoke(unsafe, buffer);
+                } else {
+                    Object bufferCleaner = cleaner.invoke(buffer);
+                    if (bufferCleaner != null) {
+                        clean.invoke(bufferCleaner);
+                    }
+                }
+            } catch (Exception e) {
+                //Unmapped once garbage collected
+            }
+        }
+    }
+
+    private static Unmapper newUnmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            try {
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return new Unmapper(theUnsafe.get(null), invokeCleaner, null, null);
+            } catch (NoSuchMethodException e) {
+                //Before Java 9
+            }
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = cleaner.getReturnType().getMethod("clean");
+            return new Unmapper(null, null, cleaner, clean);
+        } catch (Exception e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.creative.studio.component.dependency;
+
+import java.util.Arrays;
+
+/**
+ * Immutable compressed set of class ids, in the manner of a roaring bitmap.
+ * Ids are split by their high 16 bits into chunks, and each chunk holds its
+ * low 16 bits either as a sorted char array, when it has at most 4096 of
+ * them, or else as a 65536 bit bitmap. Either way a chunk takes at most 8
+ * KB, and the set operations work a chunk at a time.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public final class ClassBitmap {
+
+    public static final ClassBitmap EMPTY       = new ClassBitmap(new char[0], new Object[0],
+                                                        new int[0], 0);
+
+    /**
+     * Chunks with more values than this are bitmaps
+     */
+    private static final int        ARRAY_LIMIT = 4096;
+    private static final int        WORDS       = 1024;
+
+    /**
+     * High 16 bits of the chunks,sorted
+     */
+    private final char[]            keys;
+    /**
+     * A char array or a long array of 1024 words per chunk
+     */
+    private final Object[]          chunks;
+    private final int[]             cardinalities;
+    private final int               size;
+
+    private ClassBitmap(char[] keys, Object[] chunks, int[] cardinalities, int size) {
+        this.keys = keys;
+        this.chunks = chunks;
+        this.cardinalities = cardinalities;
+        this.size = size;
+    }
+
+    /**
+     * @param ids ids which are not negative,in any order
+     */
+    public static ClassBitmap of(int[] ids) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        Builder builder = new Builder(sorted.length / ARRAY_LIMIT + 1);
+        int start = 0;
+        while (start < sorted.length) {
+            if (sorted[start] < 0) {
+                throw new IllegalArgumentException("Negative id " + sorted[start]);
+            }
+            int key = sorted[start] >>> 16;
+            int end = start;
+            char[] values = new char[Math.min(sorted.length - start, 1 << 16)];
+            int count = 0;
+            while (end < sorted.length && sorted[end] >>> 16 == key) {
+                //Duplicates are dropped
+                if (count == 0 || values[count - 1] != (char) sorted[end]) {
+                    values[count++] = (char) sorted[end];
+                }
+                end++;
+            }
+            builder.add(key, values, count);
+            start = end;
+        }
+        return builder.build();
+    }
+
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, 0, size, (char) (id >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        Object chunk = chunks[index];
+        char low = (char) id;
+        if (chunk instanceof char[]) {
+            return Arrays.binarySearch((char[]) chunk, 0, cardinalities[index], low) >= 0;
+        }
+        return (((long[]) chunk)[low >>> 6] & (1L << low)) != 0;
+    }
+
+    /**
+     * @return number of ids
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += cardinalities[i];
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the ids,ascending
+     */
+    public int[] toArray() {
+        int[] ids = new int[cardinality()];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int high = keys[i] << 16;
+            Object chunk = chunks[i];
+            if (chunk instanceof char[]) {
+                char[] values = (char[]) chunk;
+                for (int j = 0; j < cardinalities[i]; j++) {
+                    ids[n++] = high | values[j];
+                }
+            } else {
+                long[] words = (long[]) chunk;
+                for (int w = 0; w < WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        ids[n++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return the ids of both sets
+     */
+    public ClassBitmap or(ClassBitmap other) {
+        Builder builder = new Builder(size + other.size);
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                builder.add(keys[i], chunks[i], cardinalities[i]);
+                i++;
+            } else if (i == size || other.keys[j] < keys[i]) {
+                builder.add(other.keys[j], other.chunks[j], other.cardinalities[j]);
+                j++;
+            } else {
+                builder.or(keys[i], chunks[i], cardinalities[i], other.chunks[j],
+                        other.cardinalities[j]);
+                i++;
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the ids in both sets
+     */
+    public ClassBitmap and(ClassBitmap other) {
+        Builder builder = new Builder(Math.min(size, other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (other.keys[j] < keys[i]) {
+                j++;
+            } else {
+                builder.and(keys[i], chunks[i], cardinalities[i], other.chunks[j],
+                        other.cardinalities[j]);
+                i++;
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Chunks are shared between bitmaps,since they are never modified once
+     * built
+     */
+    private static final class Builder {
+        private char[]   keys;
+        private Object[] chunks;
+        private int[]    cardinalities;
+        private int      size;
+
+        Builder(int capacity) {
+            keys = new char[Math.max(capacity, 1)];
+            chunks = new Object[keys.length];
+            cardinalities = new int[keys.length];
+        }
+
+        /**
+         * Add a chunk of the values of the array,or of a bitmap
+         */
+        void add(int key, Object chunk, int cardinality) {
+            if (cardinality == 0) {
+                return;
+            }
+            if (chunk instanceof char[] && cardinality > ARRAY_LIMIT) {
+                chunk = toWords((char[]) chunk, cardinality);
+            } else if (chunk instanceof char[] && cardinality < ((char[]) chunk).length) {
+                chunk = Arrays.copyOf((char[]) chunk, cardinality);
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                chunks = Arrays.copyOf(chunks, size * 2);
+                cardinalities = Arrays.copyOf(cardinalities, size * 2);
+            }
+            keys[size] = (char) key;
+            chunks[size] = chunk;
+            cardinalities[size] = cardinality;
+            size++;
+        }
+
+        void or(int key, Object a, int aCount, Object b, int bCount) {
+            if (a instanceof char[] && b instanceof char[]) {
+                char[] x = (char[]) a;
+                char[] y = (char[]) b;
+                char[] merged = new char[aCount + bCount];
+                int i = 0;
+                int j = 0;
+                int n = 0;
+                while (i < aCount || j < bCount) {
+                    if (j == bCount || (i < aCount && x[i] < y[j])) {
+                        merged[n++] = x[i++];
+                    } else if (i == aCount || y[j] < x[i]) {
+                        merged[n++] = y[j++];
+                    } else {
+                        merged[n++] = x[i++];
+                        j++;
+                    }
+                }
+                add(key, merged, n);
+                return;
+            }
+            long[] words = a instanceof long[] ? ((long[]) a).clone() : toWords((char[]) a,
+                    aCount);
+            if (b instanceof long[]) {
+                long[] other = (long[]) b;
+                for (int w = 0; w < WORDS; w++) {
+                    words[w] |= other[w];
+                }
+            } else {
+                char[] values = (char[]) b;
+                for (int i = 0; i < bCount; i++) {
+                    words[values[i] >>> 6] |= 1L << values[i];
+                }
+            }
+            add(key, words, bitCount(words));
+        }
+
+        void and(int key, Object a, int aCount, Object b, int bCount) {
+            if (a instanceof long[] && b instanceof long[]) {
+                long[] x = (long[]) a;
+                long[] y = (long[]) b;
+                long[] words = new long[WORDS];
+                for (int w = 0; w < WORDS; w++) {
+                    words[w] = x[w] & y[w];
+                }
+                int cardinality = bitCount(words);
+                if (cardinality > ARRAY_LIMIT) {
+                    add(key, words, cardinality);
+                } else {
+                    add(key, toValues(words, cardinality), cardinality);
+                }
+                return;
+            }
+            if (a instanceof long[]) {
+                and(key, b, bCount, a, aCount);
+                return;
+            }
+            char[] x = (char[]) a;
+            char[] values = new char[aCount];
+            int n = 0;
+            if (b instanceof long[]) {
+                long[] words = (long[]) b;
+                for (int i = 0; i < aCount; i++) {
+                    if ((words[x[i] >>> 6] & (1L << x[i])) != 0) {
+                        values[n++] = x[i];
+                    }
+                }
+            } else {
+                char[] y = (char[]) b;
+                int i = 0;
+                int j = 0;
+                while (i < aCount && j < bCount) {
+                    if (x[i] < y[j]) {
+                        i++;
+                    } else if (y[j] < x[i]) {
+                        j++;
+                    } else {
+                        values[n++] = x[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            add(key, values, n);
+        }
+
+        ClassBitmap build() {
+            return size == 0 ? EMPTY : new ClassBitmap(keys, chunks, cardinalities, size);
+        }
+    }
+
+    private static long[] toWords(char[] values, int count) {
+        long[] words = new long[WORDS];
+        for (int i = 0; i < count; i++) {
+            words[values[i] >>> 6] |= 1L << values[i];
+        }
+        return words;
+    }
+
+    private static char[] toValues(long[] words, int cardinality) {
+        char[] values = new char[cardinality];
+        int n = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+
+    private static int bitCount(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,75 @@
+package com.creative.studio.component.dependency;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered buffer of scanned component entries. Scanning workers fill their own
+ * batch, and batches are merged into the {@link ComponentContainer} in the
+ * order of the sequential scan.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+class ComponentBatch {
+
+    private final List<String>         keys    = new ArrayList<String>();
+    private final List<ComponentEntry> entries = new ArrayList<ComponentEntry>();
+    /**
+     * Whether some entries could not be read,so the batch is incomplete
+     */
+    private boolean                    failed;
+
+    void add(String keyName, ComponentEntry cEntry) {
+        keys.add(keyName);
+        entries.add(cEntry);
+    }
+
+    void addAll(ComponentBatch batch) {
+        keys.addAll(batch.keys);
+        entries.addAll(batch.entries);
+        failed |= batch.failed;
+    }
+
+    /**
+     * Mark the batch incomplete,it is then never cached
+     */
+    void markFailed() {
+        failed = true;
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    List<ComponentEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return the component names the entries are put under,in the same
+     *         order
+     */
+    List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Put all buffered entries into the container and empty this batch
+     *
+     * @param metrics the metrics of the scan,which time the insertion
+     */
+    void flush(ComponentContainer container, ScanMetrics metrics) {
+        long start = System.nanoTime();
+        for (int i = 0; i < entries.size(); i++) {
+            container.put(keys.get(i), entries.get(i));
+        }
+        metrics.record(ScanMetrics.Stage.INSERT, entries.size(), 0, System.nanoTime() - start);
+        keys.clear();
+        entries.clear();
+        failed = false;
+    }
+}
@@ -1,30 +1,229 @@
 package com.creative.studio.component.dependency;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
+ * Component reactor container, which is safe to be shared by concurrent scans.
+ * <p>
+ * Each component name maps to a single {@link ComponentEntry}, and only when
+ * different entries of the same name are found, to a copy-on-write
+ * {@link ComponentEntry} array. Updates are lock-free compare-and-set on the
+ * name bucket.
+ *
  * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
  */
 public class ComponentContainer {
     /**
-     * Component reactor container
+     * Component name to a {@link ComponentEntry} or a {@link ComponentEntry}
+     * array
      */
-    public static HashMap<String, TreeSet<ComponentEntry>> compMaps = new HashMap<String, TreeSet<ComponentEntry>>();
+    private final ConcurrentMap<String, Object> compMaps;
+    /**
+     * Names mapped to an array,so conflicts are found without walking every
+     * component. A name is added before its array is published, so it may
+     * briefly be a stale name of a single entry or of no entry at all.
+     */
+    private final Set<String>                   conflictNames;
+
+    public ComponentContainer() {
+        this(1024);
+    }
+
+    /**
+     * @param initialCapacity expected number of component names
+     */
+    public ComponentContainer(int initialCapacity) {
+        this.compMaps = new ConcurrentHashMap<String, Object>(initialCapacity, 0.75f, Runtime
+                .getRuntime().availableProcessors());
+        this.conflictNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
 
-    public static void put(String keyName, ComponentEntry cEntry) {
-        if (compMaps.containsKey(keyName)) {
-            Set<ComponentEntry> cSets = compMaps.get(keyName);
-            //Digest compare
-            if (!cSets.contains(cEntry)) {
-                cSets.add(cEntry);
+    /**
+     * Put the entry unless an equal entry of the same name exists. Entries
+     * which are not digested yet are never compared but appended, they are
+     * collapsed by {@link #collapse()} once digested.
+     *
+     * @return true if the entry was added
+     */
+    public boolean put(String keyName, ComponentEntry cEntry) {
+        Object current = compMaps.putIfAbsent(keyName, cEntry);
+        while (current != null) {
+            ComponentEntry[] updated;
+            if (current instanceof ComponentEntry) {
+                //Digest compare
+                if (isSame((ComponentEntry) current, cEntry)) {
+                    return false;
+                }
+                updated = new ComponentEntry[] { (ComponentEntry) current, cEntry };
+            } else {
+                ComponentEntry[] entries = (ComponentEntry[]) current;
+                for (ComponentEntry entry : entries) {
+                    if (isSame(entry, cEntry)) {
+                        return false;
+                    }
+                }
+                updated = Arrays.copyOf(entries, entries.length + 1);
+                updated[entries.length] = cEntry;
             }
+            conflictNames.add(keyName);
+            if (compMaps.replace(keyName, current, updated)) {
+                return true;
+            }
+            current = compMaps.putIfAbsent(keyName, cEntry);
+        }
+        return true;
+    }
+
+    /**
+     * Map the component name to the given entries at once,dropping the equal
+     * ones like {@link #put(String, ComponentEntry)} does,so concurrent
+     * readers see either the previous entries or the new ones
+     *
+     * @param entries the entries in put order,none to remove the name
+     * @return the previous entries,an empty list if absent
+     */
+    public List<ComponentEntry> replace(String keyName, List<ComponentEntry> entries) {
+        List<ComponentEntry> distinct = new ArrayList<ComponentEntry>(entries.size());
+        for (ComponentEntry cEntry : entries) {
+            if (!distinct.contains(cEntry)) {
+                distinct.add(cEntry);
+            }
+        }
+        Object previous;
+        if (distinct.isEmpty()) {
+            previous = compMaps.remove(keyName);
+        } else if (distinct.size() == 1) {
+            previous = compMaps.put(keyName, distinct.get(0));
         } else {
-            TreeSet<ComponentEntry> entries = new TreeSet<ComponentEntry>();
-            entries.add(cEntry);
-            compMaps.put(keyName, entries);
+            //Added before the array is published,like put does
+            conflictNames.add(keyName);
+            return toList(compMaps.put(keyName,
+                    distinct.toArray(new ComponentEntry[distinct.size()])));
+        }
+        pruneConflictName(keyName);
+        return toList(previous);
+    }
+
+    /**
+     * Remove every entry of the component name
+     *
+     * @return the removed entries, an empty list if absent
+     */
+    public List<ComponentEntry> remove(String keyName) {
+        Object removed = compMaps.remove(keyName);
+        pruneConflictName(keyName);
+        return toList(removed);
+    }
+
+    /**
+     * Drop the name from the conflicting names,unless a concurrent put has
+     * mapped it to an array again
+     */
+    private void pruneConflictName(String keyName) {
+        conflictNames.remove(keyName);
+        if (compMaps.get(keyName) instanceof ComponentEntry[]) {
+            conflictNames.add(keyName);
+        }
+    }
+
+    private static boolean isSame(ComponentEntry entry, ComponentEntry cEntry) {
+        //Never reads the jars
+        return entry.equals(cEntry);
+    }
+
+    /**
+     * Remove equal entries of each component name, keeping the first one. It
+     * is called when entries appended undigested have been digested,
+     * and must not run concurrently with {@link #put(String, ComponentEntry)}.
+     */
+    public void collapse() {
+        Iterator<String> it = conflictNames.iterator();
+        while (it.hasNext()) {
+            String keyName = it.next();
+            Object current = compMaps.get(keyName);
+            if (!(current instanceof ComponentEntry[])) {
+                //Stale name of a removed conflict
+                it.remove();
+                continue;
+            }
+            List<ComponentEntry> distinct = new ArrayList<ComponentEntry>();
+            for (ComponentEntry cEntry : (ComponentEntry[]) current) {
+                if (!distinct.contains(cEntry)) {
+                    distinct.add(cEntry);
+                }
+            }
+            if (distinct.size() == 1) {
+                compMaps.put(keyName, distinct.get(0));
+                it.remove();
+            } else {
+                compMaps.put(keyName, distinct.toArray(new ComponentEntry[distinct.size()]));
+            }
         }
     }
 
+    /**
+     * @return entries of the given component name, an empty list if absent
+     */
+    public List<ComponentEntry> get(String keyName) {
+        return toList(compMaps.get(keyName));
+    }
+
+    public boolean contains(String keyName) {
+        return compMaps.containsKey(keyName);
+    }
+
+    /**
+     * @return all component names
+     */
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(compMaps.keySet());
+    }
+
+    /**
+     * @return conflicting components sorted by name, which means more than one
+     *         different entry was found for them
+     */
+    public Map<String, List<ComponentEntry>> getConflicts() {
+        Map<String, List<ComponentEntry>> conflicts = new TreeMap<String, List<ComponentEntry>>();
+        for (String keyName : conflictNames) {
+            Object current = compMaps.get(keyName);
+            //Stale names are skipped
+            if (current instanceof ComponentEntry[]) {
+                conflicts.put(keyName, toList(current));
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * @return number of component names
+     */
+    public int size() {
+        return compMaps.size();
+    }
+
+    public void clear() {
+        compMaps.clear();
+        conflictNames.clear();
+    }
+
+    private static List<ComponentEntry> toList(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (value instanceof ComponentEntry) {
+            return Collections.singletonList((ComponentEntry) value);
+        }
+        //Published arrays are never modified
+        return Collections.unmodifiableList(Arrays.asList((ComponentEntry[]) value));
+    }
 }
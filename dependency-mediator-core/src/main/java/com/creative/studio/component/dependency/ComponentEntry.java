@@ -4,35 +4,89 @@ import java.util.Arrays;
 import java.util.jar.JarEntry;
 
 /**
+ * Scanned component,kept compact since millions of them may be alive.
+ * <p>
+ * The entries of a jar share the path string of the jar, jar entry names and
+ * path names are only stored when they can not be derived from the component
+ * name, and 16 bytes digests are packed into a pair of longs.
+ * <p>
+ * Entries are equal when they have the same name and digest. Comparing never
+ * reads the jars, entries which are only fingerprinted by CRC-32 are digested
+ * by {@link DependencyMediator#resolveDuplicates(ComponentContainer, ScanSettings)}
+ * first.
+ *
  * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
  */
 public class ComponentEntry implements Comparable<ComponentEntry> {
 
+    private static final byte HAS_CRC    = 1;
+    private static final byte HAS_DIGEST = 2;
+
     /**
-     * Similar file name
+     * Similar file name,null if it is derived from the jar and entry name
      */
-    private String   pathName;
+    private String            pathName;
     /**
      * Component name ,such as fully-qualified class name or jar name
      */
-    private String   name;
+    private String            name;
+    /**
+     * Path of the jar which contains this entry,the very string the scanner
+     * of the jar hands to all its entries,null if it is not a jar entry
+     */
+    private String            jarName;
+    /**
+     * Name of the jar entry,null if it is derived from the component name
+     */
+    private String            entryName;
+    /**
+     * Jar entry meta info,it is not kept by the scanners,this field may be null
+     */
+    private JarEntry          entry;
     /**
-     * Name of the jar which contains this entry,this field may be null
+     * MD5 info packed into two longs,or digest bytes of other lengths
      */
-    private String   jarName;
+    private long              digestHigh;
+    private long              digestLow;
+    private byte[]            digestBytes;
     /**
-     * Jar entry meta info,if it is a jar file,this field may be null
+     * CRC-32 and uncompressed size of the jar entry from the zip central
+     * directory
      */
-    private JarEntry entry;
+    private int               crc;
+    private int               size       = -1;
     /**
-     * MD5 info
+     * Which fingerprints are known,written last so the fingerprints are
+     * published with it
      */
-    private byte[]   digest;
+    private volatile byte     flags;
+
+    public ComponentEntry() {
+        super();
+    }
+
+    /**
+     * Compact entry of a class in a jar
+     *
+     * @param name component name
+     * @param jarName path of the jar
+     * @param entryName name of the jar entry
+     */
+    public ComponentEntry(String name, String jarName, String entryName) {
+        this.name = name;
+        this.jarName = jarName;
+        if (!entryName.equals(deriveEntryName())) {
+            this.entryName = entryName;
+        }
+    }
 
     /**
      * @return the pathName
      */
     public String getPathName() {
+        if (pathName == null && jarName != null) {
+            return getJarName() + ":" + getEntryName();
+        }
         return pathName;
     }
 
@@ -86,9 +140,50 @@ public class ComponentEntry implements Comparable<ComponentEntry> {
     }
 
     /**
-     * @return the digest
+     * @return name of the entry inside the jar, or null if it is not a jar
+     *         entry
+     */
+    public String getEntryName() {
+        if (entryName != null) {
+            return entryName;
+        }
+        if (entry != null) {
+            return entry.getName();
+        }
+        if (jarName == null) {
+            return null;
+        }
+        if (pathName != null) {
+            if (pathName.length() > jarName.length() && pathName.startsWith(jarName)) {
+                return pathName.substring(jarName.length() + 1);
+            }
+        }
+        return deriveEntryName();
+    }
+
+    private String deriveEntryName() {
+        return name == null ? null : name.replace('.', '/') + DependencyMediator.CLASS_SUFFIX;
+    }
+
+    /**
+     * Entries which are only fingerprinted by CRC-32 and size, or not at all,
+     * are digested by {@link DependencyMediator#resolveDuplicates} when their
+     * name is found again
+     *
+     * @return the digest,null if not digested
      */
     public byte[] getDigest() {
+        if ((flags & HAS_DIGEST) == 0) {
+            return null;
+        }
+        if (digestBytes != null) {
+            return digestBytes.clone();
+        }
+        byte[] digest = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            digest[i] = (byte) (digestHigh >>> (56 - 8 * i));
+            digest[i + 8] = (byte) (digestLow >>> (56 - 8 * i));
+        }
         return digest;
     }
 
@@ -96,16 +191,101 @@ public class ComponentEntry implements Comparable<ComponentEntry> {
      * @param digest the digest to set
      */
     public void setDigest(byte[] digest) {
-        this.digest = digest;
+        if (digest == null) {
+            flags = (byte) (flags & ~HAS_DIGEST);
+            return;
+        }
+        if (digest.length == 16) {
+            long high = 0;
+            long low = 0;
+            for (int i = 0; i < 8; i++) {
+                high = (high << 8) | (digest[i] & 0xff);
+                low = (low << 8) | (digest[i + 8] & 0xff);
+            }
+            digestHigh = high;
+            digestLow = low;
+            digestBytes = null;
+        } else {
+            digestBytes = digest.clone();
+        }
+        flags = (byte) (flags | HAS_DIGEST);
+    }
+
+    /**
+     * @return the crc,-1 if unknown
+     */
+    public long getCrc() {
+        return (flags & HAS_CRC) == 0 ? -1 : crc & 0xffffffffL;
+    }
+
+    /**
+     * @param crc the crc to set
+     */
+    public void setCrc(long crc) {
+        this.crc = (int) crc;
+        flags = (byte) (crc == -1 ? flags & ~HAS_CRC : flags | HAS_CRC);
+    }
+
+    /**
+     * @return the size,-1 if unknown
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @param size the size to set,-1 if unknown
+     * @throws IllegalArgumentException if the size is larger than 2GB,which
+     *             no class entry is
+     */
+    public void setSize(long size) {
+        if (size < -1 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid entry size: " + size);
+        }
+        this.size = (int) size;
+    }
+
+    /**
+     * @return whether the digest is known
+     */
+    public boolean isDigested() {
+        return (flags & HAS_DIGEST) != 0;
+    }
+
+    /**
+     * @return whether a digest or CRC-32 is known for this entry
+     */
+    public boolean isFingerprinted() {
+        return flags != 0;
+    }
+
+    /**
+     * @return whether both CRC-32 are known and tell the contents apart,
+     *         without digesting them
+     */
+    public boolean isCrcDifferent(ComponentEntry other) {
+        return (flags & HAS_CRC) != 0 && (other.flags & HAS_CRC) != 0
+                && (crc != other.crc || size != other.size);
+    }
+
+    /**
+     * Compare the known digests only, an entry which is not digested yet
+     * differs from any other
+     */
+    private boolean sameContent(ComponentEntry other) {
+        if ((flags & HAS_DIGEST) == 0 || (other.flags & HAS_DIGEST) == 0) {
+            return false;
+        }
+        if (digestBytes != null || other.digestBytes != null) {
+            return Arrays.equals(digestBytes, other.digestBytes);
+        }
+        return digestHigh == other.digestHigh && digestLow == other.digestLow;
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + Arrays.hashCode(digest);
-        result = prime * result + ((name == null) ? 0 : name.hashCode());
-        return result;
+        //Digest may be resolved lazily,so it is left out
+        return (name == null) ? 0 : name.hashCode();
     }
 
     @Override
@@ -117,14 +297,12 @@ public class ComponentEntry implements Comparable<ComponentEntry> {
         if (getClass() != obj.getClass())
             return false;
         ComponentEntry other = (ComponentEntry) obj;
-        if (!Arrays.equals(digest, other.digest))
-            return false;
         if (name == null) {
             if (other.name != null)
                 return false;
         } else if (!name.equals(other.name))
             return false;
-        return true;
+        return sameContent(other);
     }
 
     @Override
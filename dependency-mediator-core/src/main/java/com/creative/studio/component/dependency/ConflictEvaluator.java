@@ -0,0 +1,147 @@
+package com.creative.studio.component.dependency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds the conflicting classes of classpaths made of indexed jars, without
+ * putting every class into a {@link ComponentContainer}.
+ * <p>
+ * Class names are interned to ids of one {@link SymbolTable}, and the class
+ * names of each jar are indexed once as a {@link ClassBitmap}. The names found
+ * in more than one jar of a classpath are then found by a bitwise AND and OR
+ * per jar, and only their entries are compared. So checking many classpaths
+ * drawn from the same jars costs little more than the number of jars, and of
+ * the classes they share.
+ * <p>
+ * An evaluator is thread safe, and the indexed jars may be shared by the
+ * classpaths evaluated concurrently.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class ConflictEvaluator {
+
+    /**
+     * Class entries of a jar or directory,indexed by class id
+     */
+    public static final class IndexedJar {
+        private final String               pathName;
+        private final List<ComponentEntry> jarEntries;
+        private final ClassBitmap          classes;
+        /**
+         * Ids of the entries,sorted,and the entries in the same order
+         */
+        private final int[]                ids;
+        private final ComponentEntry[]     entries;
+
+        private IndexedJar(String pathName, List<ComponentEntry> jarEntries, int[] ids,
+                           ComponentEntry[] entries) {
+            this.pathName = pathName;
+            this.jarEntries = jarEntries;
+            this.classes = ClassBitmap.of(ids);
+            this.ids = ids;
+            this.entries = entries;
+        }
+
+        public String getPathName() {
+            return pathName;
+        }
+
+        /**
+         * @return all the entries,in jar order
+         */
+        public List<ComponentEntry> getEntries() {
+            return jarEntries;
+        }
+
+        public ClassBitmap getClasses() {
+            return classes;
+        }
+
+        /**
+         * @return the entry of the class id,null if the jar does not have it
+         */
+        ComponentEntry get(int id) {
+            int index = Arrays.binarySearch(ids, id);
+            return index < 0 ? null : entries[index];
+        }
+    }
+
+    private final SymbolTable names = new SymbolTable(1 << 16);
+
+    /**
+     * Index the class entries of a jar or directory. Only the first entry of
+     * a class name is kept,like a class loader does.
+     */
+    public IndexedJar index(String pathName, List<ComponentEntry> jarEntries) {
+        long[] sorted = new long[jarEntries.size()];
+        ComponentEntry[] byOrder = jarEntries.toArray(new ComponentEntry[jarEntries.size()]);
+        for (int i = 0; i < byOrder.length; i++) {
+            //Id in the high int,order in the jar in the low int
+            sorted[i] = ((long) names.intern(byOrder[i].getName()) << 32) | i;
+        }
+        Arrays.sort(sorted);
+        int[] ids = new int[sorted.length];
+        ComponentEntry[] entries = new ComponentEntry[sorted.length];
+        int n = 0;
+        for (long key : sorted) {
+            int id = (int) (key >>> 32);
+            if (n == 0 || ids[n - 1] != id) {
+                ids[n] = id;
+                entries[n] = byOrder[(int) key];
+                n++;
+            }
+        }
+        return new IndexedJar(pathName, jarEntries, Arrays.copyOf(ids, n), Arrays.copyOf(
+                entries, n));
+    }
+
+    /**
+     * @param classpath the indexed jars,in classpath order
+     * @param settings the settings the jars were scanned with,which digest
+     *            the entries told apart by nothing else
+     * @return the conflicting classes sorted by name,with their different
+     *         entries in classpath order,like
+     *         {@link ComponentContainer#getConflicts()}
+     */
+    public Map<String, List<ComponentEntry>> getConflicts(List<IndexedJar> classpath,
+                                                          ScanSettings settings) {
+        ClassBitmap seen = ClassBitmap.EMPTY;
+        ClassBitmap duplicates = ClassBitmap.EMPTY;
+        for (IndexedJar jar : classpath) {
+            duplicates = duplicates.or(seen.and(jar.classes));
+            seen = seen.or(jar.classes);
+        }
+        int[] duplicateIds = duplicates.toArray();
+        List<List<ComponentEntry>> candidates = new ArrayList<List<ComponentEntry>>(
+                duplicateIds.length);
+        for (int id : duplicateIds) {
+            List<ComponentEntry> entries = new ArrayList<ComponentEntry>();
+            for (IndexedJar jar : classpath) {
+                if (jar.classes.contains(id)) {
+                    entries.add(jar.get(id));
+                }
+            }
+            candidates.add(entries);
+        }
+        //Entries are only compared by digest
+        DependencyMediator.resolveDigests(candidates, settings);
+        Map<String, List<ComponentEntry>> conflicts = new TreeMap<String, List<ComponentEntry>>();
+        for (int i = 0; i < duplicateIds.length; i++) {
+            List<ComponentEntry> distinct = new ArrayList<ComponentEntry>();
+            for (ComponentEntry cEntry : candidates.get(i)) {
+                //Equal entries are the same class,whichever jar they come from
+                if (!distinct.contains(cEntry)) {
+                    distinct.add(cEntry);
+                }
+            }
+            if (distinct.size() > 1) {
+                conflicts.put(names.get(duplicateIds[i]), distinct);
+            }
+        }
+        return conflicts;
+    }
+}
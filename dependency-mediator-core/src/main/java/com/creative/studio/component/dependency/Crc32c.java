@@ -0,0 +1,62 @@
+package com.creative.studio.component.dependency;
+
+/**
+ * CRC-32C (Castagnoli) {@link Hasher}, processing eight bytes per step with
+ * the slicing-by-8 tables. The JDK only provides it since Java 9.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+final class Crc32c implements Hasher {
+
+    /**
+     * Reversed Castagnoli polynomial
+     */
+    private static final int     POLY   = 0x82f63b78;
+    private static final int[][] TABLES = new int[8][256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int k = 0; k < 8; k++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLY : crc >>> 1;
+            }
+            TABLES[0][i] = crc;
+        }
+        for (int i = 0; i < 256; i++) {
+            for (int t = 1; t < 8; t++) {
+                int previous = TABLES[t - 1][i];
+                TABLES[t][i] = (previous >>> 8) ^ TABLES[0][previous & 0xff];
+            }
+        }
+    }
+
+    private int                  crc    = 0xffffffff;
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+        int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+        int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+        int c = crc;
+        int i = offset;
+        int end = offset + length;
+        for (; i + 8 <= end; i += 8) {
+            c ^= (bytes[i] & 0xff) | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff) << 16
+                    | (bytes[i + 3] & 0xff) << 24;
+            c = t7[c & 0xff] ^ t6[(c >>> 8) & 0xff] ^ t5[(c >>> 16) & 0xff] ^ t4[c >>> 24]
+                    ^ t3[bytes[i + 4] & 0xff] ^ t2[bytes[i + 5] & 0xff] ^ t1[bytes[i + 6] & 0xff]
+                    ^ t0[bytes[i + 7] & 0xff];
+        }
+        for (; i < end; i++) {
+            c = (c >>> 8) ^ t0[(c ^ bytes[i]) & 0xff];
+        }
+        crc = c;
+    }
+
+    @Override
+    public byte[] digest() {
+        int value = ~crc;
+        crc = 0xffffffff;
+        return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8),
+                (byte) value };
+    }
+}
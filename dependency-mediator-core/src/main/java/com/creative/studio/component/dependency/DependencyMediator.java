@@ -1,38 +1,57 @@
 package com.creative.studio.component.dependency;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.regex.Pattern;
 
+import javax.management.JMException;
+
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Opcodes;
 
+import com.creative.studio.component.dependency.cache.ArtifactIndex;
+import com.creative.studio.component.dependency.cache.ClassTableCache;
+import com.creative.studio.component.dependency.cache.ScanCache;
+import com.creative.studio.component.dependency.cache.TieredCache;
+import com.creative.studio.component.dependency.compatibility.ClassCompatibleContainer;
+import com.creative.studio.component.dependency.compatibility.CompatibilityChecker;
+import com.creative.studio.component.dependency.compatibility.Incompatibility;
+import com.creative.studio.component.dependency.compatibility.LinkageChecker;
+import com.creative.studio.component.dependency.compatibility.LinkageReference;
+import com.creative.studio.component.dependency.daemon.MediatorDaemon;
+import com.creative.studio.component.dependency.report.ReportFormat;
+import com.creative.studio.component.dependency.report.ReportWriter;
+
 /**
  * <p>
  * 1. Support directory scan,including classpath
  * <p>
- * 2. Support component scan,including jar,war,ear and sar
+ * 2. Support component scan,including jar,war,ear and sar,and the jars nested in them
  * <p>
  * 3. Support conflicting classes scan,conflicting means the same fully-qualified
  * class name, but not the same digest or incompatible class(details see <a
@@ -55,11 +74,22 @@ public class DependencyMediator {
     /**
      * Whether to check class compatible
      */
-    private static boolean      checkCompatible  = true;
+    private static boolean      checkCompatible  = false;
+
+    /**
+     * Container used when no container is given explicitly
+     */
+    private static final ComponentContainer defaultContainer = new ComponentContainer();
 
     public static final String  CLASS_SUFFIX     = ".class";
     public static final Pattern JAR_FILE_PATTERN = Pattern.compile("^.+\\.(jar|JAR)$");
 
+    /**
+     * Scan order of the files of a directory, which ensures that outer classes
+     * are visited before inner classes
+     */
+    static final Comparator<File> FILE_ORDER = new FileOrder();
+
     /**
      * Recursively finds class files and process
      * 
@@ -69,19 +99,167 @@ public class DependencyMediator {
      *            case all the classes in this jar file are processed.)
      */
     public static void process(File file) throws IOException {
+        process(file, defaultContainer);
+    }
+
+    /**
+     * Same as {@link #process(File)}, but puts the results into the given
+     * container
+     */
+    public static void process(File file, ComponentContainer container) throws IOException {
+        process(file, container, ScanSettings.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #process(File, ComponentContainer)}, but scans with the
+     * given settings
+     */
+    public static void process(File file, ComponentContainer container, ScanSettings settings)
+            throws IOException {
         List<File> files = new ArrayList<File>();
         if (file.isDirectory()) {
-            files = processDirectory(file);
+            files = processDirectory(file, settings);
             for (File f : files) {
-                doProcess(f);
+                doProcess(f, container, settings);
             }
         } else {
-            doProcess(file);
+            doProcess(file, container, settings);
+        }
+        if (settings.getFingerprintMode().isDeferred()) {
+            resolveDuplicates(container, settings);
+        }
+    }
+
+    /**
+     * Same as {@link #process(File)}, but jars, and the entries of large jars,
+     * are processed concurrently in the given pool. The container ends up
+     * exactly as after a sequential scan.
+     * 
+     * @param file Directory, class file or jar file to scan
+     * @param pool the pool where the scan tasks run
+     */
+    public static void process(File file, ForkJoinPool pool) throws IOException {
+        process(file, pool, defaultContainer);
+    }
+
+    /**
+     * Same as {@link #process(File, ForkJoinPool)}, but puts the results into
+     * the given container
+     */
+    public static void process(File file, ForkJoinPool pool, ComponentContainer container)
+            throws IOException {
+        process(file, pool, container, ScanSettings.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #process(File, ForkJoinPool, ComponentContainer)}, but
+     * scans with the given settings
+     */
+    public static void process(File file, ForkJoinPool pool, ComponentContainer container,
+                               ScanSettings settings) throws IOException {
+        ParallelScanner scanner = new ParallelScanner(pool, checkJars, container, settings);
+        if (file.isDirectory()) {
+            //Files are scanned as soon as they are found
+            scanner.scan(newDirectoryWalker(file, settings));
+        } else {
+            checkComponentFormat(file);
+            scanner.scan(Collections.singletonList(file));
         }
-        if (checkCompatible) {
-            //processCompatible(file, jarFile, classMap);
+        if (settings.getFingerprintMode().isDeferred()) {
+            resolveDuplicates(container, settings);
         }
+    }
 
+    /**
+     * Scan the directory, class file or jar file through the pipeline, which
+     * reads, digests and aggregates the entries in separate stages. The
+     * container ends up exactly as after a sequential scan.
+     * 
+     * @param pipeline the pipeline,whose stats tell the slowest stage after
+     *            the scan
+     */
+    public static void process(File file, ScanPipeline pipeline, ComponentContainer container)
+            throws IOException {
+        process(file, pipeline, container, ScanSettings.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #process(File, ScanPipeline, ComponentContainer)}, but
+     * scans with the given settings
+     */
+    public static void process(File file, ScanPipeline pipeline, ComponentContainer container,
+                               ScanSettings settings) throws IOException {
+        List<File> files = file.isDirectory() ? processDirectory(file, settings) : Collections
+                .singletonList(file);
+        for (File f : files) {
+            checkComponentFormat(f);
+        }
+        pipeline.scan(files, container, settings);
+        if (settings.getFingerprintMode().isDeferred()) {
+            resolveDuplicates(container, settings);
+        }
+    }
+
+    /**
+     * Second phase of the {@link FingerprintMode#LAZY} and
+     * {@link FingerprintMode#CRC} modes. Digest the entries whose names occur
+     * more than once, unless their CRC-32 already tells them apart, opening
+     * each jar only once, and collapse the equal ones.
+     *
+     * @param settings the settings the container was scanned with
+     */
+    public static void resolveDuplicates(ComponentContainer container, ScanSettings settings) {
+        resolveDigests(container.getConflicts().values(), settings);
+        container.collapse();
+    }
+
+    /**
+     * Digest the entries of each group which may equal another entry of the
+     * group,unless their CRC-32 already tells them apart,opening each jar only
+     * once
+     *
+     * @param groups entries of the same component name
+     * @param settings the settings the entries were scanned with
+     */
+    static void resolveDigests(Collection<List<ComponentEntry>> groups, ScanSettings settings) {
+        Map<String, List<ComponentEntry>> pendingEntries = new LinkedHashMap<String, List<ComponentEntry>>();
+        for (List<ComponentEntry> entries : groups) {
+            for (ComponentEntry cEntry : entries) {
+                if (cEntry.isDigested() || cEntry.getJarName() == null
+                        || !mayBeSame(cEntry, entries)) {
+                    continue;
+                }
+                List<ComponentEntry> jarEntries = pendingEntries.get(cEntry.getJarName());
+                if (jarEntries == null) {
+                    jarEntries = new ArrayList<ComponentEntry>();
+                    pendingEntries.put(cEntry.getJarName(), jarEntries);
+                }
+                jarEntries.add(cEntry);
+            }
+        }
+        for (Entry<String, List<ComponentEntry>> entry : pendingEntries.entrySet()) {
+            List<String> entryNames = new ArrayList<String>();
+            for (ComponentEntry cEntry : entry.getValue()) {
+                entryNames.add(cEntry.getEntryName());
+            }
+            byte[][] digests = getDigests(entry.getKey(), entryNames, settings);
+            for (int i = 0; i < digests.length; i++) {
+                entry.getValue().get(i).setDigest(digests[i]);
+            }
+        }
+    }
+
+    /**
+     * @return whether another entry may have the same content,which only
+     *         their CRC-32 can rule out without digesting them
+     */
+    private static boolean mayBeSame(ComponentEntry cEntry, List<ComponentEntry> entries) {
+        for (ComponentEntry other : entries) {
+            if (other != cEntry && !cEntry.isCrcDifferent(other)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private static String getFileExtension(String fullName) {
@@ -90,24 +268,46 @@ public class DependencyMediator {
         return (dotIndex == -1) ? "" : fileName.substring(dotIndex + 1);
     }
 
-    protected static void doProcess(File file) throws IOException {
-        String fileFormat = getFileExtension(file.getName());
-        ComponentFormat compFormat = ComponentFormat.fromString(fileFormat);
+    static ComponentFormat getComponentFormat(File file) {
+        return ComponentFormat.fromString(getFileExtension(file.getName()));
+    }
+
+    private static ComponentFormat checkComponentFormat(File file) {
+        ComponentFormat compFormat = getComponentFormat(file);
         if (null == compFormat) {
             System.err.printf("Not support file format [%s] now !", file.getName());
             System.exit(-1);
         }
+        return compFormat;
+    }
+
+    protected static void doProcess(File file, ComponentContainer container, ScanSettings settings)
+            throws IOException {
+        ComponentBatch batch = new ComponentBatch();
+        doProcess(file, batch, settings);
+        batch.flush(container, settings.getMetrics());
+    }
+
+    static void doProcess(File file, ComponentBatch batch, ScanSettings settings)
+            throws IOException {
+        ComponentFormat compFormat = checkComponentFormat(file);
         switch (compFormat) {
             case WAR:
             case EAR:
             case SAR:
             case ZIP:
+                if (checkJars) {
+                    processNestedArchive(file, batch, settings);
+                } else {
+                    processJarFile(file, checkJars, batch, settings);
+                }
+                break;
             case GZIP:
             case JAR:
-                processJarFile(file, checkJars);
+                processJarFile(file, checkJars, batch, settings);
                 break;
             case CLASS:
-                processClassFile(file);
+                processClassFile(file, batch, settings);
                 break;
             default:
                 break;
@@ -115,35 +315,27 @@ public class DependencyMediator {
     }
 
     protected static List<File> processDirectory(File dir) throws IOException {
-        List<File> totalFiles = new ArrayList<File>();
-        listFiles(dir, totalFiles);
+        return processDirectory(dir, ScanSettings.DEFAULT);
+    }
+
+    /**
+     * @return the files of the directory which the settings accept,in scan
+     *         order
+     */
+    protected static List<File> processDirectory(File dir, ScanSettings settings)
+            throws IOException {
+        List<File> totalFiles = newDirectoryWalker(dir, settings).walk();
         //Ensure that outer classes are visited before inner classes
-        Collections.sort(totalFiles, new Comparator<File>() {
-            public int compare(File file1, File file2) {
-                String n1 = file1.getName();
-                String n2 = file2.getName();
-                int diff = n1.length() - n2.length();
-                return diff != 0 ? diff : n1.compareTo(n2);
-            }
-        });
+        Collections.sort(totalFiles, FILE_ORDER);
         return totalFiles;
     }
 
-    protected static void listFiles(File dir, List<File> totalFiles) {
-        //Performance problems: using Files.newDirectoryStream
-        File[] files = dir.listFiles();
-        if (files != null) {
-            for (File f : files) {
-                if (f.isDirectory()) {
-                    listFiles(f, totalFiles);
-                } else {
-                    if (JAR_FILE_PATTERN.matcher(f.getName()).matches()
-                            || f.getName().endsWith(CLASS_SUFFIX)) {
-                        totalFiles.add(f);
-                    }
-                }
-            }
-        }
+    /**
+     * @return a walker of the directory with the include and exclude globs of
+     *         the settings
+     */
+    static DirectoryWalker newDirectoryWalker(File dir, ScanSettings settings) {
+        return new DirectoryWalker(dir, settings.getIncludes(), settings.getExcludes());
     }
 
     /**
@@ -154,6 +346,126 @@ public class DependencyMediator {
      * @throws IOException
      */
     public static void processJarFile(File file, boolean checkJars) throws IOException {
+        processJarFile(file, checkJars, defaultContainer);
+    }
+
+    /**
+     * Same as {@link #processJarFile(File, boolean)}, but puts the results into
+     * the given container
+     */
+    public static void processJarFile(File file, boolean checkJars, ComponentContainer container)
+            throws IOException {
+        processJarFile(file, checkJars, container, ScanSettings.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #processJarFile(File, boolean, ComponentContainer)}, but
+     * scans with the given settings
+     */
+    public static void processJarFile(File file, boolean checkJars, ComponentContainer container,
+                                      ScanSettings settings) throws IOException {
+        ComponentBatch batch = new ComponentBatch();
+        processJarFile(file, checkJars, batch, settings);
+        batch.flush(container, settings.getMetrics());
+    }
+
+    /**
+     * Scan the classes of the jar, through the scan cache of the settings if
+     * there is one
+     *
+     * @return the class entries of the jar,in jar order
+     */
+    public static List<ComponentEntry> readClassTable(File file, ScanSettings settings)
+            throws IOException {
+        ComponentBatch batch = new ComponentBatch();
+        processJarFile(file, true, batch, settings);
+        return Collections.unmodifiableList(batch.getEntries());
+    }
+
+    static void processJarFile(File file, boolean checkJars, ComponentBatch batch,
+                               ScanSettings settings) throws IOException {
+        if (!checkJars) {
+            scanJarFile(file, false, batch, settings);
+            return;
+        }
+        long start = System.nanoTime();
+        ComponentBatch jarBatch = new ComponentBatch();
+        if (!loadCached(file, jarBatch, settings)) {
+            CentralDirectory directory = openCentralDirectory(file, settings.getMetrics());
+            if (directory != null) {
+                try {
+                    processCentralDirectory(directory, jarBatch, settings);
+                } finally {
+                    directory.close();
+                }
+            } else {
+                scanJarFile(file, true, jarBatch, settings);
+            }
+            storeCached(file, jarBatch, settings);
+        }
+        settings.getMetrics().recordJar(file.getPath(), System.nanoTime() - start, jarBatch.size(),
+                file.length());
+        batch.addAll(jarBatch);
+    }
+
+    /**
+     * Process the classes of the archive and of the jars, wars and other
+     * archives nested in it, without extracting them to disk
+     */
+    static void processNestedArchive(File file, ComponentBatch batch, ScanSettings settings)
+            throws IOException {
+        new NestedArchiveScanner(batch, settings).scan(file);
+    }
+
+    /**
+     * Add the cached class entries of the jar to the batch
+     * 
+     * @return false if the jar is not cached or has changed,or was cached by a
+     *         scan which did not fingerprint it as the mode of the settings
+     *         requires
+     */
+    static boolean loadCached(File file, ComponentBatch batch, ScanSettings settings) {
+        ClassTableCache cache = settings.getScanCache();
+        if (cache == null) {
+            return false;
+        }
+        ScanMetrics metrics = settings.getMetrics();
+        long start = System.nanoTime();
+        List<ComponentEntry> cached = cache.load(file, settings.getFingerprintMode(),
+                settings.getDigestAlgorithm());
+        metrics.record(ScanMetrics.Stage.CACHE, cached == null ? 0 : cached.size(), 0,
+                System.nanoTime() - start);
+        metrics.recordCache(cached != null);
+        if (cached == null) {
+            return false;
+        }
+        for (ComponentEntry cEntry : cached) {
+            batch.add(cEntry.getName(), cEntry);
+        }
+        return true;
+    }
+
+    /**
+     * Cache the class entries of the jar, which are all the entries of the
+     * batch, unless some of them could not be read
+     */
+    static void storeCached(File file, ComponentBatch batch, ScanSettings settings) {
+        ClassTableCache cache = settings.getScanCache();
+        //A partial class table would hide the missing classes from later scans
+        if (cache != null && !batch.isFailed()) {
+            long start = System.nanoTime();
+            cache.store(file, batch.getEntries(), settings.getDigestAlgorithm());
+            settings.getMetrics().record(ScanMetrics.Stage.CACHE, batch.size(), 0,
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Scan the jar with {@link JarFile}, without the scan cache, for archives
+     * the central directory reader does not support
+     */
+    static void scanJarFile(File file, boolean checkJars, ComponentBatch batch,
+                            ScanSettings settings) throws IOException {
         JarFile jarFile = null;
         try {
             jarFile = new JarFile(file);
@@ -164,17 +476,13 @@ public class DependencyMediator {
                     if (!jarEntry.getName().endsWith(".class")) {
                         continue;
                     }
-                    //Check whether  the same class
-                    String keyName = jarEntry.getName()
-                            .substring(0, jarEntry.getName().length() - 6).replace("/", ".");
-                    ComponentEntry cEntry = new ComponentEntry();
-                    cEntry.setPathName(jarFile.getName() + ":" + jarEntry.getName());
-                    cEntry.setJarName(jarFile.getName());
-                    cEntry.setName(keyName);
-                    cEntry.setEntry(jarEntry);
-                    cEntry.setDigest(getDigest(jarFile.getInputStream(jarEntry)));
-                    
-                    ComponentContainer.put(keyName, cEntry);
+                    try {
+                        processJarEntry(jarFile, jarEntry, batch, settings);
+                    } catch (IOException e) {
+                        //Left out,an entry without digest would differ from every other
+                        settings.getMetrics().recordFailure(file.getPath(), e);
+                        batch.markFailed();
+                    }
                 }
             } else {
                 //Handle MANIFEST 
@@ -192,12 +500,15 @@ public class DependencyMediator {
                 ComponentEntry cEntry = new ComponentEntry();
                 cEntry.setName(name);
                 cEntry.setPathName(jarFile.getName());
-                cEntry.setDigest(getDigest(new FileInputStream(new File(jarFile.getName()))));
+                cEntry.setDigest(getDigest(new FileInputStream(new File(jarFile.getName())),
+                        settings.getDigestAlgorithm()));
 
-                ComponentContainer.put(keyName, cEntry);
+                batch.add(keyName, cEntry);
             }
-        } catch (Throwable e) {
-            e.printStackTrace();
+        } catch (Exception e) {
+            //The classes read so far are kept,the failure is counted
+            settings.getMetrics().recordFailure(file.getPath(), e);
+            batch.markFailed();
         } finally {
             if (null != jarFile) {
                 jarFile.close();
@@ -205,17 +516,130 @@ public class DependencyMediator {
         }
     }
 
-    public static void output(HashMap<String, TreeSet<ComponentEntry>> classMap) {
+    /**
+     * @return the central directory of the archive, or null if it is not
+     *         supported and {@link JarFile} has to be used
+     */
+    static CentralDirectory openCentralDirectory(File file, ScanMetrics metrics) {
+        long start = System.nanoTime();
+        try {
+            return CentralDirectory.open(file);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            metrics.record(ScanMetrics.Stage.OPEN, 1, 0, System.nanoTime() - start);
+        }
+    }
+
+    private static void processCentralDirectory(CentralDirectory directory, ComponentBatch batch,
+                                                ScanSettings settings) {
+        try {
+            for (int i = 0; i < directory.size(); i++) {
+                if (directory.entryNameEndsWith(i, CLASS_SUFFIX)) {
+                    processJarEntry(directory, i, batch, settings);
+                }
+            }
+        } catch (Exception e) {
+            settings.getMetrics().recordFailure(directory.getName(), e);
+            batch.markFailed();
+        }
+    }
+
+    /**
+     * Fingerprint a class entry of the central directory
+     */
+    static void processJarEntry(CentralDirectory directory, int index, ComponentBatch batch,
+                                ScanSettings settings) throws IOException {
+        ComponentEntry cEntry = createJarEntry(directory, index, null, settings);
+        batch.add(cEntry.getName(), cEntry);
+    }
+
+    static boolean isCheckJars() {
+        return checkJars;
+    }
+
+    /**
+     * Create the entry of a class of the central directory, fingerprinted as
+     * the mode requires
+     * 
+     * @param compressed the data of the entry if it is already copied by
+     *            {@link CentralDirectory#readCompressed}, otherwise null
+     */
+    static ComponentEntry createJarEntry(CentralDirectory directory, int index, byte[] compressed,
+                                         ScanSettings settings) throws IOException {
+        FingerprintMode fingerprintMode = settings.getFingerprintMode();
+        DigestAlgorithm digestAlgorithm = settings.getDigestAlgorithm();
+        String entryName = directory.getEntryName(index);
+        //Check whether  the same class
+        String keyName = entryName.substring(0, entryName.length() - 6).replace("/", ".");
+        ComponentEntry cEntry = new ComponentEntry(keyName, directory.getName(), entryName);
+        long start = System.nanoTime();
+        long compressedSize = 0;
+        long size = 0;
+        //In lazy mode,entries are digested by resolveDuplicates if the same name is found again
+        if (FingerprintMode.CRC == fingerprintMode) {
+            //Digest is resolved lazily if the same name,CRC and size is found again
+            cEntry.setCrc(directory.getCrc(index));
+            cEntry.setSize(directory.getSize(index));
+        } else if (FingerprintMode.LAZY != fingerprintMode) {
+            DigestEngine engine = DigestEngine.get();
+            cEntry.setDigest(compressed == null ? engine.digest(digestAlgorithm, directory, index)
+                    : engine.digest(digestAlgorithm, directory, index, compressed));
+            compressedSize = directory.getCompressedSize(index);
+            size = directory.getSize(index);
+        }
+        settings.getMetrics().recordDigest(compressedSize, size, System.nanoTime() - start);
+        return cEntry;
+    }
+
+    /**
+     * Digest a class entry of the opened jar file
+     * 
+     * @throws IOException if the entry can not be read,it is then not added
+     */
+    static void processJarEntry(JarFile jarFile, JarEntry jarEntry, ComponentBatch batch,
+                                ScanSettings settings) throws IOException {
+        FingerprintMode fingerprintMode = settings.getFingerprintMode();
+        //Check whether  the same class
+        String keyName = jarEntry.getName().substring(0, jarEntry.getName().length() - 6)
+                .replace("/", ".");
+        ComponentEntry cEntry = new ComponentEntry(keyName, jarFile.getName(), jarEntry.getName());
+        long start = System.nanoTime();
+        long compressedSize = 0;
+        long size = 0;
+        //In lazy mode,entries are digested by resolveDuplicates if the same name is found again
+        if (FingerprintMode.CRC == fingerprintMode && jarEntry.getCrc() != -1
+                && jarEntry.getSize() != -1 && jarEntry.getSize() <= Integer.MAX_VALUE) {
+            //Digest is resolved lazily if the same name,CRC and size is found again
+            cEntry.setCrc(jarEntry.getCrc());
+            cEntry.setSize(jarEntry.getSize());
+        } else if (FingerprintMode.LAZY != fingerprintMode) {
+            cEntry.setDigest(getDigest(jarFile.getInputStream(jarEntry),
+                    settings.getDigestAlgorithm()));
+            compressedSize = Math.max(jarEntry.getCompressedSize(), 0);
+            size = Math.max(jarEntry.getSize(), 0);
+        }
+        settings.getMetrics().recordDigest(compressedSize, size, System.nanoTime() - start);
+
+        batch.add(keyName, cEntry);
+    }
+
+    /**
+     * @return the container used when no container is given explicitly
+     */
+    public static ComponentContainer getDefaultContainer() {
+        return defaultContainer;
+    }
+
+    public static void output(ComponentContainer container) {
         System.out.println("Output component reactor info......");
         int count = 0;
-        for (Entry<String, TreeSet<ComponentEntry>> entry : classMap.entrySet()) {
-            if (entry.getValue().size() > 1) {
-                count++;
-                System.out.printf("Conflicting component  [%s] was founded in the  path : \n",
-                        entry.getKey());
-                for (ComponentEntry jar : entry.getValue()) {
-                    System.out.printf(" \t%s\n", jar.getPathName());
-                }
+        for (Entry<String, List<ComponentEntry>> entry : container.getConflicts().entrySet()) {
+            count++;
+            System.out.printf("Conflicting component  [%s] was founded in the  path : \n",
+                    entry.getKey());
+            for (ComponentEntry jar : entry.getValue()) {
+                System.out.printf(" \t%s\n", jar.getPathName());
             }
         }
         if (count == 0) {
@@ -223,30 +647,209 @@ public class DependencyMediator {
         }
     }
 
-    //    private static void processCompatible(File file, JarFile jarFile,
-    //                                          HashMap<String, TreeSet<ComponentEntry>> classMap)
-    //            throws IOException {
-    //        Iterator<Entry<String, TreeSet<ComponentEntry>>> iter = classMap.entrySet().iterator();
-    //        while (iter.hasNext()) {
-    //            Entry<String, TreeSet<ComponentEntry>> jarEntryInfoEntry = iter.next();
-    //            Set<ComponentEntry> jarEntryInfos = jarEntryInfoEntry.getValue();
-    //            Iterator<ComponentEntry> jarEntryInfoIter = jarEntryInfos.iterator();
-    //            while (jarEntryInfoIter.hasNext()) {
-    //                JarEntry jarEntry = jarEntryInfoIter.next().getEntry();
-    //                InputStream is = jarFile.getInputStream(jarEntry);
-    //                loadByteCode(file.getPath() + ":" + jarEntry.getName(), is);
-    //            }
-    //        }
-    //    }
-
-    private static void loadByteCode(final String fileName, final InputStream is)
+    public static void output(List<LinkageReference> unresolved) {
+        for (LinkageReference reference : unresolved) {
+            System.out.printf("Unresolved reference  %s\n", reference);
+        }
+    }
+
+    public static void output(Map<String, List<Incompatibility>> incompatibilities) {
+        for (Entry<String, List<Incompatibility>> entry : incompatibilities.entrySet()) {
+            System.out.printf("Incompatible component  [%s] :\n", entry.getKey());
+            for (Incompatibility incompatibility : entry.getValue()) {
+                System.out.printf(" \t%s\n", incompatibility);
+            }
+        }
+    }
+
+    /**
+     * Write each conflicting component as a record,see {@link ReportWriter}
+     */
+    public static void report(ComponentContainer container, ReportWriter writer)
+            throws IOException {
+        for (Entry<String, List<ComponentEntry>> entry : container.getConflicts().entrySet()) {
+            writer.writeConflict(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public static void report(List<LinkageReference> unresolved, ReportWriter writer)
+            throws IOException {
+        for (LinkageReference reference : unresolved) {
+            writer.writeUnresolved(reference);
+        }
+    }
+
+    public static void report(Map<String, List<Incompatibility>> incompatibilities,
+                              ReportWriter writer) throws IOException {
+        for (Entry<String, List<Incompatibility>> entry : incompatibilities.entrySet()) {
+            for (Incompatibility incompatibility : entry.getValue()) {
+                writer.writeIncompatibility(entry.getKey(), incompatibility);
+            }
+        }
+    }
+
+    /**
+     * Check the binary compatibility of the versions of every conflicting
+     * class, see {@link CompatibilityChecker}. Only the class files are read
+     * again, each jar is opened once. Classes of jars nested in other
+     * archives are not checked.
+     * 
+     * @return the incompatibilities keyed by class name
+     */
+    public static Map<String, List<Incompatibility>> processCompatible(ComponentContainer container) {
+        return processCompatible(container, ScanSettings.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #processCompatible(ComponentContainer)}, but records the
+     * jars it opens into the metrics of the settings
+     */
+    public static Map<String, List<Incompatibility>> processCompatible(ComponentContainer container,
+                                                                        ScanSettings settings) {
+        Map<String, List<ComponentEntry>> jarEntries = new LinkedHashMap<String, List<ComponentEntry>>();
+        for (List<ComponentEntry> entries : container.getConflicts().values()) {
+            for (ComponentEntry cEntry : entries) {
+                String jarName = cEntry.getJarName() == null ? "" : cEntry.getJarName();
+                List<ComponentEntry> list = jarEntries.get(jarName);
+                if (list == null) {
+                    list = new ArrayList<ComponentEntry>();
+                    jarEntries.put(jarName, list);
+                }
+                list.add(cEntry);
+            }
+        }
+        Map<ComponentEntry, byte[]> classBytes = new IdentityHashMap<ComponentEntry, byte[]>();
+        for (Entry<String, List<ComponentEntry>> entry : jarEntries.entrySet()) {
+            readClassBytes(entry.getKey(), entry.getValue(), classBytes, settings.getMetrics());
+        }
+        //Versions are added in classpath order,the first one is loaded at runtime
+        ClassCompatibleContainer classes = new ClassCompatibleContainer();
+        for (List<ComponentEntry> entries : container.getConflicts().values()) {
+            for (ComponentEntry cEntry : entries) {
+                byte[] bytes = classBytes.get(cEntry);
+                if (bytes != null) {
+                    try {
+                        classes.add(cEntry.getPathName(), bytes);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+        return new CompatibilityChecker().check(classes);
+    }
+
+    /**
+     * Read the class files of the entries of the jar,or the class files
+     * themselves if the jar name is empty
+     */
+    private static void readClassBytes(String jarName, List<ComponentEntry> entries,
+                                       Map<ComponentEntry, byte[]> classBytes,
+                                       ScanMetrics metrics) {
+        if (jarName.length() == 0) {
+            for (ComponentEntry cEntry : entries) {
+                try {
+                    classBytes.put(cEntry, readFully(new FileInputStream(cEntry.getPathName())));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            return;
+        }
+        if (jarName.contains(NestedArchiveScanner.NESTED_SEPARATOR)) {
+            return;
+        }
+        CentralDirectory directory = openCentralDirectory(new File(jarName), metrics);
+        if (directory != null) {
+            try {
+                for (ComponentEntry cEntry : entries) {
+                    int index = directory.indexOf(cEntry.getEntryName());
+                    try {
+                        if (index != -1) {
+                            classBytes.put(cEntry, directory.read(index));
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            } finally {
+                directory.close();
+            }
+            return;
+        }
+        JarFile jarFile = null;
+        try {
+            jarFile = new JarFile(jarName);
+            for (ComponentEntry cEntry : entries) {
+                JarEntry jarEntry = jarFile.getJarEntry(cEntry.getEntryName());
+                if (jarEntry != null) {
+                    classBytes.put(cEntry, readFully(jarFile.getInputStream(jarEntry)));
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (jarFile != null) {
+                try {
+                    jarFile.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                bytes.write(buffer, 0, n);
+            }
+            return bytes.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * Find the references which would not resolve at runtime, see
+     * {@link LinkageChecker}. The jars and class files under a directory are
+     * on the classpath in scan order. Jars nested in other archives are not
+     * checked.
+     * 
+     * @param pool the pool where the jars are processed
+     * @param settings the settings whose globs filter the directory
+     */
+    public static List<LinkageReference> checkLinkage(File file, ForkJoinPool pool,
+                                                      ScanSettings settings) throws IOException {
+        List<File> classpath = file.isDirectory() ? processDirectory(file, settings) : Collections
+                .singletonList(file);
+        return new LinkageChecker(pool).check(classpath);
+    }
+
+    public static boolean isCheckCompatible() {
+        return checkCompatible;
+    }
+
+    /**
+     * @param check whether {@link #main} checks the compatibility of the
+     *            conflicting classes
+     */
+    public static void setCheckCompatible(boolean check) {
+        checkCompatible = check;
+    }
+
+    private static void loadByteCode(final String fileName, final InputStream is,
+                                     final ComponentBatch batch, DigestAlgorithm algorithm)
             throws IOException {
         {
             try {
                 FileInputStream fis = new FileInputStream(new File(fileName));
-                final byte[] dd = getDigest(fis);
+                final byte[] dd = getDigest(fis, algorithm);
                 ClassReader cr = new ClassReader(is);
-                cr.accept(new ClassVisitor(Opcodes.ASM5) {
+                cr.accept(new ClassVisitor(Opcodes.ASM9) {
                     public void visit(int version, int access, String name, String signature,
                                       String superName, String[] interfaces) {
                         //Check whether  the same class
@@ -257,7 +860,7 @@ public class DependencyMediator {
 
                         cEntry.setDigest(dd);
 
-                        ComponentContainer.put(keyName, cEntry);
+                        batch.add(keyName, cEntry);
                     }
                 }, 0);
 
@@ -270,35 +873,83 @@ public class DependencyMediator {
         }
     }
 
-    private static byte[] getDigest(InputStream is) {
-        DigestInputStream dis = null;
+    /**
+     * Inflate and digest the named entries of the jar, opening it only once
+     * 
+     * @return digests in the order of the names, null for the entries which
+     *         can not be read
+     */
+    static byte[][] getDigests(String jarName, List<String> entryNames, ScanSettings settings) {
+        DigestAlgorithm digestAlgorithm = settings.getDigestAlgorithm();
+        byte[][] digests = new byte[entryNames.size()][];
+        CentralDirectory directory = openCentralDirectory(new File(jarName),
+                settings.getMetrics());
+        if (directory != null) {
+            try {
+                for (int i = 0; i < digests.length; i++) {
+                    int index = directory.indexOf(entryNames.get(i));
+                    try {
+                        digests[i] = index == -1 ? null : DigestEngine.get().digest(
+                                digestAlgorithm, directory, index);
+                    } catch (IOException e) {
+                        settings.getMetrics().recordFailure(jarName, e);
+                    }
+                }
+            } finally {
+                directory.close();
+            }
+            return digests;
+        }
+        JarFile jarFile = null;
         try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            dis = new DigestInputStream(is, md);
-            byte[] bytes = new byte[1024];
-            int numBytes = -1;
-            while ((numBytes = is.read(bytes)) != -1) {
-                md.update(bytes, 0, numBytes);
-            }
-            return md.digest();
-        } catch (Throwable e) {
-            e.printStackTrace();
+            jarFile = new JarFile(jarName);
+            for (int i = 0; i < digests.length; i++) {
+                JarEntry jarEntry = jarFile.getJarEntry(entryNames.get(i));
+                try {
+                    digests[i] = jarEntry == null ? null : getDigest(
+                            jarFile.getInputStream(jarEntry), digestAlgorithm);
+                } catch (IOException e) {
+                    settings.getMetrics().recordFailure(jarName, e);
+                }
+            }
+        } catch (IOException e) {
+            settings.getMetrics().recordFailure(jarName, e);
         } finally {
-            if (dis != null) {
+            if (jarFile != null) {
                 try {
-                    dis.close();
+                    jarFile.close();
                 } catch (IOException e) {
                     e.printStackTrace();
                 }
             }
         }
-        return null;
+        return digests;
     }
 
-    protected static void processClassFile(File file) throws IOException {
+    /**
+     * Digest and close the stream
+     */
+    private static byte[] getDigest(InputStream is, DigestAlgorithm algorithm)
+            throws IOException {
+        try {
+            return DigestEngine.get().digest(algorithm, is);
+        } finally {
+            is.close();
+        }
+    }
+
+    protected static void processClassFile(File file, ComponentContainer container,
+                                           ScanSettings settings) throws IOException {
+        ComponentBatch batch = new ComponentBatch();
+        processClassFile(file, batch, settings);
+        batch.flush(container, settings.getMetrics());
+    }
+
+    static void processClassFile(File file, ComponentBatch batch, ScanSettings settings)
+            throws IOException {
         InputStream in = new FileInputStream(file);
         try {
-            loadByteCode(file.getPath(), in);
+            loadByteCode(file.getPath(), in, batch, settings.getDigestAlgorithm());
         } finally {
             in.close();
         }
@@ -321,6 +972,23 @@ public class DependencyMediator {
     }
 
     public static void scanClassPath() {
+        scanClassPath(ScanSettings.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #scanClassPath()}, but scans with the given settings
+     */
+    public static void scanClassPath(ScanSettings settings) {
+        scanClassPath(null, settings);
+    }
+
+    /**
+     * Same as {@link #scanClassPath(ScanSettings)}, but the entries of the
+     * class path are processed concurrently in the given pool
+     *
+     * @param pool the pool where the scan tasks run,null to scan sequentially
+     */
+    public static void scanClassPath(ForkJoinPool pool, ScanSettings settings) {
         Set<URLClassLoader> loaders = new LinkedHashSet<URLClassLoader>();
         loaders.addAll(getClassLoaders(Thread.currentThread().getContextClassLoader()));
         loaders.addAll(getClassLoaders(DependencyMediator.class.getClassLoader()));
@@ -330,7 +998,11 @@ public class DependencyMediator {
                 String file = url.getFile();
                 File dir = new File(file);
                 try {
-                    process(dir);
+                    if (pool != null) {
+                        process(dir, pool, defaultContainer, settings);
+                    } else {
+                        process(dir, defaultContainer, settings);
+                    }
                 } catch (IOException e1) {
                     e1.printStackTrace();
                 }
@@ -338,21 +1010,242 @@ public class DependencyMediator {
         }
     }
 
+    private static List<String> splitGlobs(String globs) {
+        List<String> result = new ArrayList<String>();
+        if (globs != null) {
+            for (String glob : globs.split(",")) {
+                if (!glob.trim().isEmpty()) {
+                    result.add(glob.trim());
+                }
+            }
+        }
+        return result;
+    }
+
     public static void main(String args[]) {
         File dir = null;
         boolean scanClasspath = SystemPropertyUtils.getBoolean("scanClasspath", false);
+        //Zero means scanning sequentially
+        int parallelism = SystemPropertyUtils.getInt("parallelism", 0);
+        //Zero means no pipeline
+        int pipelineWorkers = SystemPropertyUtils.getInt("pipelineWorkers", 0);
+        ScanSettings settings = ScanSettings.DEFAULT.withMetrics(new ScanMetrics());
+        FingerprintMode mode = FingerprintMode.fromString(SystemPropertyUtils.get("fingerprint",
+                FingerprintMode.DIGEST.getValue()));
+        if (mode != null) {
+            settings = settings.withFingerprintMode(mode);
+        }
+        DigestAlgorithm algorithm = DigestAlgorithm.fromString(SystemPropertyUtils.get("digest",
+                DigestAlgorithm.MD5.getValue()));
+        if (algorithm != null) {
+            settings = settings.withDigestAlgorithm(algorithm);
+        }
+        settings = settings.withDirectoryFilter(splitGlobs(SystemPropertyUtils.get("includes")),
+                splitGlobs(SystemPropertyUtils.get("excludes")));
+        String cacheDirectory = SystemPropertyUtils.get("scanCache");
+        String localRepository = SystemPropertyUtils.get("artifactIndex");
+        ClassTableCache cache = null;
+        if (cacheDirectory != null) {
+            cache = new ScanCache(new File(cacheDirectory), SystemPropertyUtils.getBoolean(
+                    "scanCacheVerify", false));
+        }
+        if (localRepository != null) {
+            ArtifactIndex index = new ArtifactIndex(new File(localRepository));
+            cache = cache == null ? index : new TieredCache(cache, index);
+        }
+        settings = settings.withScanCache(cache);
+        if (SystemPropertyUtils.getBoolean("daemon", false)) {
+            runDaemon(settings);
+            return;
+        }
+        if (args.length > 0 && SystemPropertyUtils.getBoolean("watch", false)) {
+            runWatch(new File(args[0]), settings);
+            return;
+        }
+        boolean printMetrics = SystemPropertyUtils.getBoolean("metrics", false);
+        if (printMetrics) {
+            try {
+                settings.getMetrics().register();
+            } catch (JMException e) {
+                e.printStackTrace();
+            }
+        }
         if (args.length == 0) {
             if (scanClasspath) {
-                scanClassPath();
+                ForkJoinPool pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+                try {
+                    scanClassPath(pool, settings);
+                } finally {
+                    if (pool != null) {
+                        pool.shutdown();
+                    }
+                }
             }
         } else {
             dir = new File(args[0]);
             try {
-                process(dir);
+                if (pipelineWorkers > 0) {
+                    ScanPipeline pipeline = new ScanPipeline(SystemPropertyUtils.getInt(
+                            "pipelineReaders", 1), pipelineWorkers, SystemPropertyUtils.getInt(
+                            "pipelineWorkQueue", ScanPipeline.DEFAULT_QUEUE_DEPTH),
+                            SystemPropertyUtils.getInt("pipelineResultQueue",
+                                    ScanPipeline.DEFAULT_QUEUE_DEPTH));
+                    process(dir, pipeline, defaultContainer, settings);
+                    System.err.println(pipeline.getStats());
+                } else if (parallelism > 0) {
+                    ForkJoinPool pool = new ForkJoinPool(parallelism);
+                    try {
+                        process(dir, pool, defaultContainer, settings);
+                    } finally {
+                        pool.shutdown();
+                    }
+                } else {
+                    process(dir, defaultContainer, settings);
+                }
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
-        output(ComponentContainer.compMaps);
+        if (printMetrics) {
+            System.err.println(settings.getMetrics());
+        }
+        ReportWriter writer = null;
+        ReportFormat format = ReportFormat.fromString(SystemPropertyUtils.get("report", ""));
+        try {
+            if (format != null) {
+                String reportFile = SystemPropertyUtils.get("reportFile");
+                writer = format.open(reportFile == null ? new StandardOutputStream()
+                        : new FileOutputStream(reportFile));
+                report(defaultContainer, writer);
+            } else {
+                output(defaultContainer);
+            }
+            if (SystemPropertyUtils.getBoolean("checkCompatible", checkCompatible)) {
+                Map<String, List<Incompatibility>> incompatibilities = processCompatible(
+                        defaultContainer, settings);
+                if (writer != null) {
+                    report(incompatibilities, writer);
+                } else {
+                    output(incompatibilities);
+                }
+            }
+            if (dir != null && SystemPropertyUtils.getBoolean("checkLinkage", false)) {
+                ForkJoinPool pool = parallelism > 0 ? new ForkJoinPool(parallelism)
+                        : new ForkJoinPool();
+                try {
+                    List<LinkageReference> unresolved = checkLinkage(dir, pool, settings);
+                    if (writer != null) {
+                        report(unresolved, writer);
+                    } else {
+                        output(unresolved);
+                    }
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Serve checks from a resident {@link MediatorDaemon} with the settings of
+     * the command line,until it is stopped
+     */
+    private static void runDaemon(ScanSettings settings) {
+        String daemonFile = SystemPropertyUtils.get("daemonFile");
+        try {
+            MediatorDaemon daemon = new MediatorDaemon(SystemPropertyUtils.getInt("daemonPort", 0),
+                    daemonFile == null ? MediatorDaemon.DEFAULT_DAEMON_FILE : new File(daemonFile),
+                    SystemPropertyUtils.getInt("daemonThreads", Runtime.getRuntime()
+                            .availableProcessors()), SystemPropertyUtils.getInt("daemonMaxJars",
+                            100000), settings);
+            System.err.println("Dependency mediator daemon listening on port " + daemon.getPort());
+            daemon.run();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Print the conflicts of the directory,then the conflicts changed by each
+     * change of its jars and class files,until interrupted
+     */
+    private static void runWatch(File dir, ScanSettings settings) {
+        try {
+            DirectoryWatcher watcher = new DirectoryWatcher(dir, defaultContainer,
+                    SystemPropertyUtils.getLong("watchQuietMillis",
+                            DirectoryWatcher.DEFAULT_QUIET_MILLIS), settings);
+            try {
+                watcher.start();
+                output(defaultContainer);
+                watcher.run(new DirectoryWatcher.Listener() {
+                    public void onChange(Map<String, List<ComponentEntry>> changes) {
+                        for (Entry<String, List<ComponentEntry>> entry : changes.entrySet()) {
+                            if (entry.getValue().isEmpty()) {
+                                System.out.printf("Conflicting component  [%s] was resolved\n",
+                                        entry.getKey());
+                                continue;
+                            }
+                            System.out.printf(
+                                    "Conflicting component  [%s] was founded in the  path : \n",
+                                    entry.getKey());
+                            for (ComponentEntry jar : entry.getValue()) {
+                                System.out.printf(" \t%s\n", jar.getPathName());
+                            }
+                        }
+                    }
+
+                    public void onFailure(File file, IOException cause) {
+                        System.err.printf("Skip unreadable file [%s] : %s\n", file, cause);
+                    }
+                });
+            } finally {
+                watcher.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final class FileOrder implements Comparator<File> {
+        public int compare(File file1, File file2) {
+            String n1 = file1.getName();
+            String n2 = file2.getName();
+            int diff = n1.length() - n2.length();
+            if (diff != 0) {
+                return diff;
+            }
+            diff = n1.compareTo(n2);
+            //Same names are ordered by path,so the order never depends on the walk
+            return diff != 0 ? diff : file1.compareTo(file2);
+        }
+    }
+
+    /**
+     * Standard output,which stays open when the report writer on it is closed
+     */
+    private static final class StandardOutputStream extends FilterOutputStream {
+        StandardOutputStream() {
+            super(new FileOutputStream(FileDescriptor.out));
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
     }
 }
@@ -0,0 +1,74 @@
+package com.creative.studio.component.dependency;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hash functions used to fingerprint components. Digests of different
+ * algorithms are never compared with each other.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public enum DigestAlgorithm {
+    /**
+     * 4 bytes CRC-32C, cheap,but collisions are likely within large
+     * repositories
+     */
+    CRC32C("crc32c") {
+        @Override
+        Hasher newHasher() {
+            return new Crc32c();
+        }
+    },
+    /**
+     * 8 bytes xxHash64, the fastest,with far fewer collisions than CRC-32C
+     */
+    XXHASH64("xxhash64") {
+        @Override
+        Hasher newHasher() {
+            return new XxHash64();
+        }
+    },
+    /**
+     * 16 bytes MD5, the default
+     */
+    MD5("md5") {
+        @Override
+        Hasher newHasher() {
+            return new MessageDigestHasher("MD5");
+        }
+    },
+    /**
+     * 32 bytes SHA-256, the slowest
+     */
+    SHA256("sha-256") {
+        @Override
+        Hasher newHasher() {
+            return new MessageDigestHasher("SHA-256");
+        }
+    };
+
+    private String value;
+
+    DigestAlgorithm(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+
+    abstract Hasher newHasher();
+
+    private static Map<String, DigestAlgorithm> stringToEnum = new HashMap<String, DigestAlgorithm>();
+
+    static {
+        for (DigestAlgorithm algorithm : values()) {
+            stringToEnum.put(algorithm.getValue(), algorithm);
+        }
+    }
+
+    public static DigestAlgorithm fromString(String value) {
+        return stringToEnum.get(value.toLowerCase());
+    }
+}
@@ -0,0 +1,120 @@
+package com.creative.studio.component.dependency;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Per-thread digest engine, which reuses its hash functions, its inflater and
+ * its buffers for every entry, so digesting allocates nothing but the digest
+ * itself.
+ * <p>
+ * Buffers grow up to {@link #MAX_POOLED_SIZE} to hold the largest entry seen
+ * so far, larger entries get buffers of their own.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public final class DigestEngine {
+
+    static final int                               BUFFER_SIZE     = 64 * 1024;
+    static final int                               MAX_POOLED_SIZE = 4 * 1024 * 1024;
+
+    private static final ThreadLocal<DigestEngine> engines         = new ThreadLocal<DigestEngine>();
+
+    private final Hasher[]                         hashers         = new Hasher[DigestAlgorithm
+                                                                           .values().length];
+    private final Inflater                         inflater        = new Inflater(true);
+    private byte[]                                 buffer          = new byte[BUFFER_SIZE];
+    private byte[]                                 input           = new byte[BUFFER_SIZE];
+
+    private DigestEngine() {
+        super();
+    }
+
+    /**
+     * @return the engine of the current thread
+     */
+    public static DigestEngine get() {
+        DigestEngine engine = engines.get();
+        if (engine == null) {
+            engine = new DigestEngine();
+            engines.set(engine);
+        }
+        return engine;
+    }
+
+    /**
+     * Digest the rest of the stream, which is not closed
+     */
+    public byte[] digest(DigestAlgorithm algorithm, InputStream in) throws IOException {
+        Hasher hasher = getHasher(algorithm);
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            hasher.update(buffer, 0, n);
+        }
+        return hasher.digest();
+    }
+
+    public byte[] digest(DigestAlgorithm algorithm, byte[] bytes, int offset, int length) {
+        Hasher hasher = getHasher(algorithm);
+        hasher.update(bytes, offset, length);
+        return hasher.digest();
+    }
+
+    /**
+     * Inflate the entry of the central directory into the pooled buffers and
+     * digest it
+     */
+    public byte[] digest(DigestAlgorithm algorithm, CentralDirectory directory, int index)
+            throws IOException {
+        int compressedSize = (int) directory.getCompressedSize(index);
+        byte[] compressed = input;
+        if (compressedSize + 1 > compressed.length) {
+            compressed = newBuffer(compressedSize + 1);
+            if (compressedSize + 1 <= MAX_POOLED_SIZE) {
+                input = compressed;
+            }
+        }
+        directory.readCompressed(index, compressed);
+        return digest(algorithm, directory, index, compressed);
+    }
+
+    /**
+     * Inflate the data of the entry, already copied by
+     * {@link CentralDirectory#readCompressed}, into the pooled buffer and
+     * digest it
+     */
+    byte[] digest(DigestAlgorithm algorithm, CentralDirectory directory, int index,
+                  byte[] compressed) throws IOException {
+        int size = (int) directory.getSize(index);
+        byte[] output = buffer;
+        if (size > output.length) {
+            output = newBuffer(size);
+            if (size <= MAX_POOLED_SIZE) {
+                buffer = output;
+            }
+        }
+        directory.inflate(index, compressed, output, inflater);
+        return digest(algorithm, output, 0, size);
+    }
+
+    private Hasher getHasher(DigestAlgorithm algorithm) {
+        Hasher hasher = hashers[algorithm.ordinal()];
+        if (hasher == null) {
+            hasher = algorithm.newHasher();
+            hashers[algorithm.ordinal()] = hasher;
+        }
+        return hasher;
+    }
+
+    /**
+     * @return a new buffer of at least the size, rounded up to a power of two
+     *         if it may be pooled
+     */
+    private static byte[] newBuffer(int size) {
+        if (size > MAX_POOLED_SIZE) {
+            return new byte[size];
+        }
+        return new byte[Math.min(Integer.highestOneBit(size) << 1, MAX_POOLED_SIZE)];
+    }
+}
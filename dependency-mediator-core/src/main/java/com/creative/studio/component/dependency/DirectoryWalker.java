@@ -0,0 +1,207 @@
+package com.creative.studio.component.dependency;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds the jars and class files under a directory, either sequentially with
+ * {@link Files#walkFileTree}, or with one fork-join task per subdirectory
+ * which hands over every file as soon as it is found.
+ * <p>
+ * Include and exclude patterns are globs, such as <code>**&#47;lib/*.jar</code>,
+ * matched against the path relative to the root directory, with
+ * <code>/</code> as separator. A file is accepted if it matches any include,
+ * or if there is no include, and matches no exclude. Excluded directories are
+ * not entered at all.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class DirectoryWalker {
+
+    /**
+     * Receives the accepted files, possibly from several threads at once
+     */
+    public interface Listener {
+        void onFile(File file);
+    }
+
+    private final Path              root;
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+
+    public DirectoryWalker(File root) {
+        this(root, Collections.<String> emptyList(), Collections.<String> emptyList());
+    }
+
+    /**
+     * @param includes globs of the files to accept, all if empty
+     * @param excludes globs of the files and directories to skip
+     */
+    public DirectoryWalker(File root, List<String> includes, List<String> excludes) {
+        this.root = root.toPath();
+        FileSystem fileSystem = this.root.getFileSystem();
+        this.includes = new ArrayList<PathMatcher>();
+        for (String glob : includes) {
+            this.includes.add(fileSystem.getPathMatcher("glob:" + glob));
+        }
+        this.excludes = new ArrayList<PathMatcher>();
+        for (String glob : excludes) {
+            this.excludes.add(fileSystem.getPathMatcher("glob:" + glob));
+        }
+    }
+
+    /**
+     * @return the accepted files, in no particular order
+     */
+    public List<File> walk() throws IOException {
+        final List<File> files = new ArrayList<File>();
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        return isExcluded(dir) ? FileVisitResult.SKIP_SUBTREE
+                                : FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile() && accept(file)) {
+                            files.add(file.toFile());
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        //Unreadable entries and symbolic link loops are skipped
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+        return files;
+    }
+
+    /**
+     * Walk the subdirectories concurrently in the pool, and hand every
+     * accepted file to the listener from the task which found it. Returns
+     * when the whole tree is walked.
+     */
+    public void walk(ForkJoinPool pool, Listener listener) {
+        ConcurrentMap<Path, Boolean> visitedLinks = new ConcurrentHashMap<Path, Boolean>();
+        pool.invoke(new DirectoryTask(root, listener, visitedLinks));
+    }
+
+    /**
+     * @return whether the regular file is a jar or class file matching the
+     *         patterns
+     */
+    boolean accept(Path file) {
+        String name = file.getFileName().toString();
+        if (!DependencyMediator.JAR_FILE_PATTERN.matcher(name).matches()
+                && !name.endsWith(DependencyMediator.CLASS_SUFFIX)) {
+            return false;
+        }
+        if (isExcluded(file)) {
+            return false;
+        }
+        if (includes.isEmpty()) {
+            return true;
+        }
+        Path relative = root.relativize(file);
+        for (PathMatcher matcher : includes) {
+            if (matcher.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether the file or directory matches an exclude
+     */
+    boolean isExcluded(Path path) {
+        if (excludes.isEmpty() || path.equals(root)) {
+            return false;
+        }
+        Path relative = root.relativize(path);
+        for (PathMatcher matcher : excludes) {
+            if (matcher.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class DirectoryTask extends RecursiveAction {
+        private static final long                  serialVersionUID = 1L;
+
+        private final Path                         dir;
+        private final Listener                     listener;
+        private final ConcurrentMap<Path, Boolean> visitedLinks;
+
+        DirectoryTask(Path dir, Listener listener, ConcurrentMap<Path, Boolean> visitedLinks) {
+            this.dir = dir;
+            this.listener = listener;
+            this.visitedLinks = visitedLinks;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subtasks = new ArrayList<DirectoryTask>();
+            try {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+                try {
+                    for (Path path : stream) {
+                        if (Files.isDirectory(path)) {
+                            if (!isExcluded(path) && isFirstVisit(path)) {
+                                DirectoryTask subtask = new DirectoryTask(path, listener,
+                                        visitedLinks);
+                                subtask.fork();
+                                subtasks.add(subtask);
+                            }
+                        } else if (Files.isRegularFile(path) && accept(path)) {
+                            listener.onFile(path.toFile());
+                        }
+                    }
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                //Unreadable directories are skipped,like the sequential walk does
+            }
+            for (DirectoryTask subtask : subtasks) {
+                subtask.join();
+            }
+        }
+
+        /**
+         * Symbolic links to directories are followed once, so link loops end
+         */
+        private boolean isFirstVisit(Path path) {
+            if (!Files.isSymbolicLink(path)) {
+                return true;
+            }
+            try {
+                return visitedLinks.putIfAbsent(path.toRealPath(), Boolean.TRUE) == null;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+}
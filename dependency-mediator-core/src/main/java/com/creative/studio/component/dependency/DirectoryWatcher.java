@@ -0,0 +1,373 @@
+package com.creative.studio.component.dependency;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link ComponentContainer} up to date with a directory, such as an
+ * exploded WAR or <code>target/classes</code>, while its jars and class files
+ * are added, modified and removed.
+ * <p>
+ * The directory is scanned once, then every directory of the tree is watched
+ * by a {@link WatchService}. A change only scans again the files it touches,
+ * and only the entries of the component names of those files are replaced in
+ * the container, in the order of
+ * {@link DependencyMediator#processDirectory(File, ScanSettings)}, so the
+ * container ends up exactly as after a full scan with the same settings.
+ * <p>
+ * A watcher is driven by a single thread, while the container may be read
+ * concurrently: the entries of each changed name are replaced at once.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class DirectoryWatcher implements Closeable {
+
+    /**
+     * Receives the conflicts changed by each batch of file changes
+     */
+    public interface Listener {
+        /**
+         * @param changes the component names whose conflict changed,sorted,to
+         *            their entries,an empty list once they no longer conflict
+         */
+        void onChange(Map<String, List<ComponentEntry>> changes);
+
+        /**
+         * @param file a file which could not be scanned,such as a jar still
+         *            being written,it is scanned again on its next event
+         * @param cause the failure,also counted by the metrics of the
+         *            settings
+         */
+        void onFailure(File file, IOException cause);
+    }
+
+    /**
+     * Time without events after which a batch of changes is applied,so a jar
+     * being copied is scanned once it is complete
+     */
+    public static final long                                   DEFAULT_QUIET_MILLIS = 50;
+
+    private final Path                                         root;
+    private final ComponentContainer                           container;
+    private final DirectoryWalker                              walker;
+    private final WatchService                                 watchService;
+    private final long                                         quietMillis;
+    private final ScanSettings                                 settings;
+    private final Map<WatchKey, Path>                          directories          = new HashMap<WatchKey, Path>();
+    /**
+     * Scanned files to their entries grouped by component name,in scan order
+     */
+    private final Map<File, Map<String, List<ComponentEntry>>> fileEntries          = new HashMap<File, Map<String, List<ComponentEntry>>>();
+    /**
+     * Component names to the files having them,in scan order
+     */
+    private final Map<String, SortedSet<File>>                 owners               = new HashMap<String, SortedSet<File>>();
+
+    public DirectoryWatcher(File root, ComponentContainer container) throws IOException {
+        this(root, container, DEFAULT_QUIET_MILLIS, ScanSettings.DEFAULT);
+    }
+
+    /**
+     * @param root the directory to watch
+     * @param container the container to keep up to date,which should be
+     *            empty
+     * @param quietMillis time without events after which changes are applied
+     * @param settings the settings the files are scanned with
+     */
+    public DirectoryWatcher(File root, ComponentContainer container, long quietMillis,
+                            ScanSettings settings) throws IOException {
+        this.root = root.toPath();
+        this.container = container;
+        this.walker = DependencyMediator.newDirectoryWalker(root, settings);
+        this.watchService = this.root.getFileSystem().newWatchService();
+        this.quietMillis = quietMillis;
+        this.settings = settings;
+    }
+
+    /**
+     * Watch the directory tree and scan it into the container. Directories
+     * are watched first,so no change made during the scan is missed.
+     */
+    public void start() throws IOException {
+        register(root);
+        apply(DependencyMediator.processDirectory(root.toFile(), settings), null);
+    }
+
+    /**
+     * Apply the changes until the watcher is closed or the thread
+     * interrupted,and hand each batch of changed conflicts to the listener
+     */
+    public void run(Listener listener) throws IOException {
+        try {
+            while (true) {
+                Map<String, List<ComponentEntry>> changes = poll(Long.MAX_VALUE,
+                        TimeUnit.MILLISECONDS, listener);
+                if (!changes.isEmpty()) {
+                    listener.onChange(changes);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            //Closed by another thread
+        }
+    }
+
+    /**
+     * Wait for file changes,then until no event came for the quiet time,
+     * and apply them
+     *
+     * @return the changed conflicts,see {@link Listener#onChange(Map)},empty
+     *         if nothing changed before the timeout
+     */
+    public Map<String, List<ComponentEntry>> poll(long timeout, TimeUnit unit)
+            throws IOException, InterruptedException {
+        return poll(timeout, unit, null);
+    }
+
+    /**
+     * Same as {@link #poll(long, TimeUnit)}, but tells the listener about the
+     * files which could not be scanned
+     */
+    public Map<String, List<ComponentEntry>> poll(long timeout, TimeUnit unit, Listener listener)
+            throws IOException, InterruptedException {
+        WatchKey key = watchService.poll(timeout, unit);
+        Set<File> changed = new LinkedHashSet<File>();
+        boolean overflow = false;
+        while (key != null) {
+            overflow |= drain(key, changed);
+            key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS);
+        }
+        if (overflow) {
+            //Events were lost,every file is checked again
+            changed.addAll(fileEntries.keySet());
+            changed.addAll(DependencyMediator.processDirectory(root.toFile(), settings));
+        }
+        return apply(changed, listener);
+    }
+
+    /**
+     * @return true if events were lost
+     */
+    private boolean drain(WatchKey key, Set<File> changed) throws IOException {
+        Path dir = directories.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(path)) {
+                //Files created before the directory was watched are found by the walk
+                changed.addAll(register(path));
+            } else {
+                changed.add(path.toFile());
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return overflow;
+    }
+
+    /**
+     * Watch the directory and its subdirectories which are not excluded
+     *
+     * @return the accepted files found under them
+     */
+    private List<File> register(Path dir) throws IOException {
+        final List<File> files = new ArrayList<File>();
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs)
+                    throws IOException {
+                if (walker.isExcluded(path)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                directories.put(path.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY), path);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && walker.accept(path)) {
+                    files.add(path.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException e) {
+                //Removed while walked,its deletion is another event
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    /**
+     * Scan the files again,or drop them if they are gone,and put again the
+     * component names they have or had
+     *
+     * @param files jars,class files and deleted paths,in any order
+     * @param listener told about the files which could not be scanned,may
+     *            be null
+     * @return the changed conflicts,see {@link Listener#onChange(Map)}
+     */
+    Map<String, List<ComponentEntry>> apply(Collection<File> files, Listener listener) {
+        Set<String> names = new TreeSet<String>();
+        for (File file : files) {
+            if (!fileEntries.containsKey(file) && !file.exists()) {
+                //A deleted directory drops the files under it
+                String prefix = file.getPath() + File.separator;
+                for (File tracked : new ArrayList<File>(fileEntries.keySet())) {
+                    if (tracked.getPath().startsWith(prefix)) {
+                        drop(tracked, names);
+                    }
+                }
+                continue;
+            }
+            drop(file, names);
+            if (file.isFile() && walker.accept(file.toPath())) {
+                scan(file, names, listener);
+            }
+        }
+        Map<String, List<ComponentEntry>> named = new LinkedHashMap<String, List<ComponentEntry>>();
+        for (String name : names) {
+            List<ComponentEntry> entries = new ArrayList<ComponentEntry>();
+            SortedSet<File> nameOwners = owners.get(name);
+            if (nameOwners != null) {
+                for (File owner : nameOwners) {
+                    entries.addAll(fileEntries.get(owner).get(name));
+                }
+            }
+            named.put(name, entries);
+        }
+        if (settings.getFingerprintMode().isDeferred()) {
+            //Only the changed names are digested,the others are as they were
+            DependencyMediator.resolveDigests(named.values(), settings);
+        }
+        Map<String, List<ComponentEntry>> changes = new TreeMap<String, List<ComponentEntry>>();
+        for (Entry<String, List<ComponentEntry>> entry : named.entrySet()) {
+            String name = entry.getKey();
+            List<ComponentEntry> old = container.replace(name, entry.getValue());
+            List<ComponentEntry> entries = container.get(name);
+            if ((old.size() > 1 || entries.size() > 1) && isChanged(old, entries)) {
+                changes.put(name, entries.size() > 1 ? entries : Collections
+                        .<ComponentEntry> emptyList());
+            }
+        }
+        return changes;
+    }
+
+    private void drop(File file, Set<String> names) {
+        Map<String, List<ComponentEntry>> entries = fileEntries.remove(file);
+        if (entries == null) {
+            return;
+        }
+        for (String name : entries.keySet()) {
+            names.add(name);
+            SortedSet<File> files = owners.get(name);
+            files.remove(file);
+            if (files.isEmpty()) {
+                owners.remove(name);
+            }
+        }
+    }
+
+    private void scan(File file, Set<String> names, Listener listener) {
+        ComponentBatch batch = new ComponentBatch();
+        try {
+            DependencyMediator.doProcess(file, batch, settings);
+        } catch (IOException e) {
+            //Such as a jar still being written,the next event scans it again
+            settings.getMetrics().recordFailure(file.getPath(), e);
+            if (listener != null) {
+                listener.onFailure(file, e);
+            }
+            return;
+        }
+        Map<String, List<ComponentEntry>> entries = new LinkedHashMap<String, List<ComponentEntry>>();
+        for (int i = 0; i < batch.size(); i++) {
+            String keyName = batch.getKeys().get(i);
+            List<ComponentEntry> named = entries.get(keyName);
+            if (named == null) {
+                named = new ArrayList<ComponentEntry>(1);
+                entries.put(keyName, named);
+            }
+            named.add(batch.getEntries().get(i));
+        }
+        fileEntries.put(file, entries);
+        for (String name : entries.keySet()) {
+            names.add(name);
+            SortedSet<File> files = owners.get(name);
+            if (files == null) {
+                files = new TreeSet<File>(DependencyMediator.FILE_ORDER);
+                owners.put(name, files);
+            }
+            files.add(file);
+        }
+    }
+
+    private static boolean isChanged(List<ComponentEntry> old, List<ComponentEntry> entries) {
+        if (old.size() != entries.size()) {
+            return true;
+        }
+        Iterator<ComponentEntry> it = entries.iterator();
+        for (ComponentEntry cEntry : old) {
+            ComponentEntry other = it.next();
+            if (!cEntry.getPathName().equals(other.getPathName())) {
+                return true;
+            }
+            //Entries told apart by CRC-32 are not digested
+            if (!cEntry.equals(other)
+                    && (cEntry.getCrc() == -1 || other.getCrc() == -1 || cEntry
+                            .isCrcDifferent(other))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of scanned files
+     */
+    public int size() {
+        return fileEntries.size();
+    }
+
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,58 @@
+package com.creative.studio.component.dependency;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How the content of jar entries is fingerprinted when scanning
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public enum FingerprintMode {
+    /**
+     * Inflate and digest every class entry
+     */
+    DIGEST("digest"),
+    /**
+     * Compare CRC-32 and size from the zip central directory first, entries
+     * are only inflated and digested when two of them have the same name, CRC
+     * and size
+     */
+    CRC("crc"),
+    /**
+     * Index class names from the jar directories first, and only digest the
+     * entries whose names occur more than once
+     */
+    LAZY("lazy");
+
+    private String value;
+
+    FingerprintMode(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * @return whether some entries are only digested by
+     *         {@link DependencyMediator#resolveDuplicates(ComponentContainer)}
+     *         once the scan is done
+     */
+    public boolean isDeferred() {
+        return DIGEST != this;
+    }
+
+    private static Map<String, FingerprintMode> stringToEnum = new HashMap<String, FingerprintMode>();
+
+    static {
+        for (FingerprintMode mode : values()) {
+            stringToEnum.put(mode.getValue(), mode);
+        }
+    }
+
+    public static FingerprintMode fromString(String value) {
+        return stringToEnum.get(value.toLowerCase());
+    }
+}
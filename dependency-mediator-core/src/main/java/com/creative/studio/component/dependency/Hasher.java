@@ -0,0 +1,16 @@
+package com.creative.studio.component.dependency;
+
+/**
+ * Incremental hash function of a {@link DigestAlgorithm}
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+interface Hasher {
+
+    void update(byte[] bytes, int offset, int length);
+
+    /**
+     * @return the hash of the bytes so far, and reset for the next input
+     */
+    byte[] digest();
+}
@@ -0,0 +1,32 @@
+package com.creative.studio.component.dependency;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * {@link Hasher} of a JDK {@link MessageDigest}
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+final class MessageDigestHasher implements Hasher {
+
+    private final MessageDigest md;
+
+    MessageDigestHasher(String algorithm) {
+        try {
+            this.md = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+        md.update(bytes, offset, length);
+    }
+
+    @Override
+    public byte[] digest() {
+        return md.digest();
+    }
+}
@@ -0,0 +1,146 @@
+package com.creative.studio.component.dependency;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Streaming scanner of WAR, EAR, SAR and ZIP archives, which also scans the
+ * archives nested in them, such as <code>WEB-INF/lib/*.jar</code> of a WAR or
+ * the modules and <code>lib/*.jar</code> of an EAR.
+ * <p>
+ * Nested archives are read by a {@link ZipInputStream} over the stream of the
+ * enclosing entry, so nothing is extracted to disk and only one entry of each
+ * level is inflated at a time. All entries are digested through the pooled
+ * buffer of the {@link DigestEngine} of the thread, so a scanner is not thread
+ * safe.
+ * <p>
+ * Nested entries can not be opened again later, so they are always digested
+ * eagerly, whatever the fingerprint mode, and the scan cache is not used for
+ * them: the whole archive is read again by every scan. Their jar name is the
+ * path of the nested archive, such as <code>app.war!/WEB-INF/lib/a.jar</code>.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class NestedArchiveScanner {
+
+    /**
+     * Separator between the path of an archive and the name of a nested entry
+     */
+    public static final String   NESTED_SEPARATOR = "!/";
+    /**
+     * Archives nested deeper than this are ignored
+     */
+    static final int             MAX_DEPTH        = 4;
+
+    private static final String  WEB_CLASSES      = "WEB-INF/classes/";
+
+    private final DigestEngine   engine           = DigestEngine.get();
+    private final ComponentBatch batch;
+    private final ScanSettings   settings;
+
+    NestedArchiveScanner(ComponentBatch batch, ScanSettings settings) {
+        this.batch = batch;
+        this.settings = settings;
+    }
+
+    /**
+     * @return whether archives of the format may contain other archives
+     */
+    static boolean isNestingFormat(ComponentFormat compFormat) {
+        return ComponentFormat.WAR == compFormat || ComponentFormat.EAR == compFormat
+                || ComponentFormat.SAR == compFormat || ComponentFormat.ZIP == compFormat;
+    }
+
+    /**
+     * Scan the classes of the archive and of all the archives nested in it
+     */
+    void scan(File file) throws IOException {
+        ZipFile zipFile = new ZipFile(file);
+        try {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                if (!isInteresting(zipEntry)) {
+                    continue;
+                }
+                InputStream in = zipFile.getInputStream(zipEntry);
+                try {
+                    processEntry(file.getPath(), zipEntry, in, 1);
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    private void scanNested(String archiveName, InputStream in, int depth) throws IOException {
+        //The enclosing stream is closed by the caller
+        ZipInputStream zin = new ZipInputStream(in);
+        ZipEntry zipEntry;
+        while ((zipEntry = zin.getNextEntry()) != null) {
+            if (isInteresting(zipEntry)) {
+                processEntry(archiveName, zipEntry, zin, depth + 1);
+            }
+            zin.closeEntry();
+        }
+    }
+
+    private void processEntry(String archiveName, ZipEntry zipEntry, InputStream in, int depth)
+            throws IOException {
+        String entryName = zipEntry.getName();
+        if (entryName.endsWith(DependencyMediator.CLASS_SUFFIX)) {
+            processClassEntry(archiveName, zipEntry, in);
+        } else if (depth < MAX_DEPTH) {
+            String nestedName = archiveName + NESTED_SEPARATOR + entryName;
+            long start = System.nanoTime();
+            int size = batch.size();
+            try {
+                scanNested(nestedName, in, depth);
+            } catch (IOException e) {
+                //A corrupted nested archive should not stop the enclosing one
+                settings.getMetrics().recordFailure(nestedName, e);
+            }
+            settings.getMetrics().recordJar(nestedName, System.nanoTime() - start,
+                    batch.size() - size, Math.max(zipEntry.getCompressedSize(), 0));
+        }
+    }
+
+    private void processClassEntry(String archiveName, ZipEntry zipEntry, InputStream in)
+            throws IOException {
+        String entryName = zipEntry.getName();
+        String className = entryName.startsWith(WEB_CLASSES) ? entryName.substring(WEB_CLASSES
+                .length()) : entryName;
+        //Check whether  the same class
+        String keyName = className.substring(0, className.length() - 6).replace("/", ".");
+        ComponentEntry cEntry = new ComponentEntry(keyName, archiveName, entryName);
+        long start = System.nanoTime();
+        cEntry.setDigest(engine.digest(settings.getDigestAlgorithm(), in));
+        settings.getMetrics().recordDigest(Math.max(zipEntry.getCompressedSize(), 0),
+                Math.max(zipEntry.getSize(), 0), System.nanoTime() - start);
+
+        batch.add(keyName, cEntry);
+    }
+
+    private static boolean isInteresting(ZipEntry zipEntry) {
+        if (zipEntry.isDirectory()) {
+            return false;
+        }
+        String entryName = zipEntry.getName();
+        if (entryName.endsWith(DependencyMediator.CLASS_SUFFIX)) {
+            return true;
+        }
+        int dotIndex = entryName.lastIndexOf('.');
+        if (dotIndex == -1 || dotIndex < entryName.lastIndexOf('/')) {
+            return false;
+        }
+        ComponentFormat compFormat = ComponentFormat.fromString(entryName.substring(dotIndex + 1));
+        return ComponentFormat.JAR == compFormat || isNestingFormat(compFormat);
+    }
+}
@@ -0,0 +1,224 @@
+package com.creative.studio.component.dependency;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join scan engine, which processes components, and the entries of large
+ * jars, concurrently.
+ * <p>
+ * Every task fills its own {@link ComponentBatch}, batches are joined in file
+ * and entry order, and the caller merges the result into the
+ * {@link ComponentContainer}. So the container ends up exactly as after a
+ * sequential scan.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+class ParallelScanner {
+
+    /**
+     * Jars which hold more class entries than this are split into entry tasks
+     */
+    static final int           ENTRY_SPLIT_THRESHOLD = 1024;
+
+    private final ForkJoinPool       pool;
+    private final boolean            checkJars;
+    private final ComponentContainer container;
+    private final ScanSettings       settings;
+
+    ParallelScanner(ForkJoinPool pool, boolean checkJars, ComponentContainer container,
+                    ScanSettings settings) {
+        this.pool = pool;
+        this.checkJars = checkJars;
+        this.container = container;
+        this.settings = settings;
+    }
+
+    /**
+     * Scan the given files and put the results into the container
+     */
+    void scan(List<File> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        ComponentBatch batch = pool.invoke(new FilesTask(files, 0, files.size()));
+        batch.flush(container, settings.getMetrics());
+    }
+
+    /**
+     * Scan the files of the directory while it is walked, and put the results
+     * into the container in {@link DependencyMediator#FILE_ORDER}
+     */
+    void scan(DirectoryWalker walker) {
+        final Queue<FileTask> tasks = new ConcurrentLinkedQueue<FileTask>();
+        walker.walk(pool, new DirectoryWalker.Listener() {
+            public void onFile(File file) {
+                FileTask task = new FileTask(file);
+                //Called by the walking tasks,so the scan task is queued in the pool
+                task.fork();
+                tasks.add(task);
+            }
+        });
+        List<FileTask> sortedTasks = new ArrayList<FileTask>(tasks);
+        Collections.sort(sortedTasks, new Comparator<FileTask>() {
+            public int compare(FileTask task1, FileTask task2) {
+                return DependencyMediator.FILE_ORDER.compare(task1.file, task2.file);
+            }
+        });
+        ComponentBatch batch = new ComponentBatch();
+        for (FileTask task : sortedTasks) {
+            batch.addAll(task.join());
+        }
+        batch.flush(container, settings.getMetrics());
+    }
+
+    private ComponentBatch processFile(File file) {
+        ComponentBatch batch = new ComponentBatch();
+        try {
+            ComponentFormat compFormat = DependencyMediator.getComponentFormat(file);
+            if (checkJars && NestedArchiveScanner.isNestingFormat(compFormat)) {
+                DependencyMediator.processNestedArchive(file, batch, settings);
+            } else if (checkJars && null != compFormat && ComponentFormat.CLASS != compFormat) {
+                processJarEntries(file, batch);
+            } else {
+                DependencyMediator.doProcess(file, batch, settings);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return batch;
+    }
+
+    private void processJarEntries(File file, ComponentBatch batch) throws IOException {
+        long start = System.nanoTime();
+        ComponentBatch jarBatch = new ComponentBatch();
+        if (!DependencyMediator.loadCached(file, jarBatch, settings)) {
+            CentralDirectory directory = DependencyMediator.openCentralDirectory(file,
+                    settings.getMetrics());
+            if (directory != null) {
+                int[] classEntries = new int[directory.size()];
+                int count = 0;
+                for (int i = 0; i < directory.size(); i++) {
+                    if (directory.entryNameEndsWith(i, DependencyMediator.CLASS_SUFFIX)) {
+                        classEntries[count++] = i;
+                    }
+                }
+                try {
+                    jarBatch = new EntriesTask(directory, classEntries, 0, count, settings)
+                            .compute();
+                } finally {
+                    //Every subtask is joined
+                    directory.close();
+                }
+            } else {
+                //Not supported by the central directory reader,read through JarFile
+                DependencyMediator.scanJarFile(file, true, jarBatch, settings);
+            }
+            DependencyMediator.storeCached(file, jarBatch, settings);
+        }
+        settings.getMetrics().recordJar(file.getPath(), System.nanoTime() - start,
+                jarBatch.size(), file.length());
+        batch.addAll(jarBatch);
+    }
+
+    /**
+     * Scan one file
+     */
+    private final class FileTask extends RecursiveTask<ComponentBatch> {
+        private static final long serialVersionUID = 1L;
+
+        private final File        file;
+
+        FileTask(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected ComponentBatch compute() {
+            return processFile(file);
+        }
+    }
+
+    private final class FilesTask extends RecursiveTask<ComponentBatch> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<File>  files;
+        private final int         from;
+        private final int         to;
+
+        FilesTask(List<File> files, int from, int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ComponentBatch compute() {
+            if (to - from == 1) {
+                return processFile(files.get(from));
+            }
+            int middle = (from + to) >>> 1;
+            FilesTask left = new FilesTask(files, from, middle);
+            left.fork();
+            ComponentBatch right = new FilesTask(files, middle, to).compute();
+            ComponentBatch batch = left.join();
+            batch.addAll(right);
+            return batch;
+        }
+    }
+
+    /**
+     * Fingerprint a range of class entries of one central directory
+     */
+    private static final class EntriesTask extends RecursiveTask<ComponentBatch> {
+        private static final long      serialVersionUID = 1L;
+
+        private final CentralDirectory directory;
+        private final int[]            entries;
+        private final int              from;
+        private final int              to;
+        private final ScanSettings     settings;
+
+        EntriesTask(CentralDirectory directory, int[] entries, int from, int to,
+                    ScanSettings settings) {
+            this.directory = directory;
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+            this.settings = settings;
+        }
+
+        @Override
+        protected ComponentBatch compute() {
+            if (to - from <= ENTRY_SPLIT_THRESHOLD) {
+                ComponentBatch batch = new ComponentBatch();
+                for (int i = from; i < to; i++) {
+                    try {
+                        DependencyMediator.processJarEntry(directory, entries[i], batch,
+                                settings);
+                    } catch (Exception e) {
+                        settings.getMetrics().recordFailure(directory.getName(), e);
+                        batch.markFailed();
+                    }
+                }
+                return batch;
+            }
+            int middle = (from + to) >>> 1;
+            EntriesTask left = new EntriesTask(directory, entries, from, middle, settings);
+            left.fork();
+            ComponentBatch right = new EntriesTask(directory, entries, middle, to, settings)
+                    .compute();
+            ComponentBatch batch = left.join();
+            batch.addAll(right);
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.creative.studio.component.dependency;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of one run of a {@link ScanPipeline}, per stage
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class PipelineStats {
+
+    /**
+     * Items, bytes and time of the threads of one stage. Busy time is the
+     * time not spent blocked on the queues of the stage, so the stage with
+     * the highest utilization is the bottleneck.
+     */
+    public static final class StageStats {
+        private final String     name;
+        private final int        threads;
+        private final AtomicLong items     = new AtomicLong();
+        private final AtomicLong bytes     = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+
+        StageStats(String name, int threads) {
+            this.name = name;
+            this.threads = threads;
+        }
+
+        /**
+         * Record the work of one thread of the stage
+         */
+        void record(long itemCount, long byteCount, long elapsedNanos, long waitedNanos) {
+            items.addAndGet(itemCount);
+            bytes.addAndGet(byteCount);
+            busyNanos.addAndGet(elapsedNanos - waitedNanos);
+            waitNanos.addAndGet(waitedNanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public long getItems() {
+            return items.get();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        public long getBusyNanos() {
+            return busyNanos.get();
+        }
+
+        public long getWaitNanos() {
+            return waitNanos.get();
+        }
+
+        /**
+         * @return share of the time the threads of the stage were busy
+         */
+        public double getUtilization() {
+            long busy = busyNanos.get();
+            long total = busy + waitNanos.get();
+            return total == 0 ? 0 : (double) busy / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%s: %d threads, %d items, %d KB, busy %d ms, waiting %d ms, %.0f%% utilized",
+                    name, threads, getItems(), getBytes() / 1024, getBusyNanos() / 1000000,
+                    getWaitNanos() / 1000000, getUtilization() * 100);
+        }
+    }
+
+    private final StageStats reader;
+    private final StageStats worker;
+    private final StageStats aggregator;
+
+    PipelineStats(int readers, int workers) {
+        this.reader = new StageStats("read", readers);
+        this.worker = new StageStats("inflate+hash", workers);
+        this.aggregator = new StageStats("aggregate", 1);
+    }
+
+    /**
+     * @return the stage which opens the files and reads the compressed entries
+     */
+    public StageStats getReader() {
+        return reader;
+    }
+
+    /**
+     * @return the stage which inflates and digests the entries
+     */
+    public StageStats getWorker() {
+        return worker;
+    }
+
+    /**
+     * @return the stage which puts the entries into the container
+     */
+    public StageStats getAggregator() {
+        return aggregator;
+    }
+
+    /**
+     * @return the most utilized stage
+     */
+    public StageStats getBottleneck() {
+        StageStats bottleneck = reader;
+        if (worker.getUtilization() > bottleneck.getUtilization()) {
+            bottleneck = worker;
+        }
+        if (aggregator.getUtilization() > bottleneck.getUtilization()) {
+            bottleneck = aggregator;
+        }
+        return bottleneck;
+    }
+
+    @Override
+    public String toString() {
+        return reader + "\n" + worker + "\n" + aggregator + "\nbottleneck: "
+                + getBottleneck().getName();
+    }
+}
@@ -0,0 +1,411 @@
+package com.creative.studio.component.dependency;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and timers of scans, per stage and per jar. Every scan path
+ * records into the metrics of its {@link ScanSettings}, so the numbers add up
+ * the scans sharing these metrics since the last {@link #reset()}.
+ * <p>
+ * Stage times are the time the threads spent in the stage, which adds up to
+ * more than the elapsed time of parallel scans. The time of a jar is the time
+ * spent on it alone, from opening it to the digest of its last class.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class ScanMetrics implements ScanMetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.creative.studio.component.dependency:type=ScanMetrics";
+
+    private static final int   MAX_FAILURES = 20;
+
+    public enum Stage {
+        /**
+         * Opening the jars,and reading their central directory
+         */
+        OPEN("open"),
+        /**
+         * Loading and storing class tables of the scan cache
+         */
+        CACHE("cache"),
+        /**
+         * Reading,inflating and digesting class entries
+         */
+        DIGEST("inflate+hash"),
+        /**
+         * Putting entries into the container
+         */
+        INSERT("insert");
+
+        private String value;
+
+        Stage(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return this.value;
+        }
+    }
+
+    /**
+     * Time,entries and bytes of one jar
+     */
+    public static final class JarProfile {
+        private final String pathName;
+        private final long   nanos;
+        private final int    entries;
+        private final long   bytes;
+
+        JarProfile(String pathName, long nanos, int entries, long bytes) {
+            this.pathName = pathName;
+            this.nanos = nanos;
+            this.entries = entries;
+            this.bytes = bytes;
+        }
+
+        public String getPathName() {
+            return pathName;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d ms, %d classes, %d KB", pathName, nanos / 1000000,
+                    entries, bytes / 1024);
+        }
+    }
+
+    private static final Comparator<JarProfile> BY_TIME       = new Comparator<JarProfile>() {
+        public int compare(JarProfile p1, JarProfile p2) {
+            return Long.compare(p1.nanos, p2.nanos);
+        }
+    };
+
+    /**
+     * Metrics which record nothing,for the scans nobody watches
+     */
+    public static final ScanMetrics             NONE          = new ScanMetrics(0) {
+        @Override
+        public void record(Stage stage, long items, long bytes, long nanos) {
+        }
+
+        @Override
+        public void recordDigest(long compressedSize, long size, long nanos) {
+        }
+
+        @Override
+        public void recordJar(String pathName, long nanos, int entries, long bytes) {
+        }
+
+        @Override
+        public void recordCache(boolean hit) {
+        }
+
+        @Override
+        public void recordFailure(String pathName, Throwable cause) {
+        }
+    };
+
+    private final int                           slowestCount;
+    private final AtomicLong[]                  stageItems    = newCounters();
+    private final AtomicLong[]                  stageBytes    = newCounters();
+    private final AtomicLong[]                  stageNanos    = newCounters();
+    private final AtomicLong                    jars          = new AtomicLong();
+    private final AtomicLong                    bytesInflated = new AtomicLong();
+    private final AtomicLong                    cacheHits     = new AtomicLong();
+    private final AtomicLong                    cacheMisses   = new AtomicLong();
+    private final AtomicLong                    failures      = new AtomicLong();
+    /**
+     * Slowest jars,fastest first
+     */
+    private final PriorityQueue<JarProfile>     slowest;
+    private final Deque<String>                 lastFailures  = new ArrayDeque<String>();
+    /**
+     * Name of the registered MBean,null if not registered
+     */
+    private ObjectName                          objectName;
+
+    public ScanMetrics() {
+        this(10);
+    }
+
+    /**
+     * @param slowestCount number of the slowest jars to keep
+     */
+    public ScanMetrics(int slowestCount) {
+        this.slowestCount = slowestCount;
+        this.slowest = new PriorityQueue<JarProfile>(Math.max(slowestCount, 1), BY_TIME);
+    }
+
+    private static AtomicLong[] newCounters() {
+        AtomicLong[] counters = new AtomicLong[Stage.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new AtomicLong();
+        }
+        return counters;
+    }
+
+    /**
+     * Record the work of one step of a stage
+     *
+     * @param items jars or entries processed
+     * @param bytes bytes read
+     */
+    public void record(Stage stage, long items, long bytes, long nanos) {
+        stageItems[stage.ordinal()].addAndGet(items);
+        stageBytes[stage.ordinal()].addAndGet(bytes);
+        stageNanos[stage.ordinal()].addAndGet(nanos);
+    }
+
+    /**
+     * Record the digest of one class entry
+     *
+     * @param compressedSize bytes read from the jar
+     * @param size bytes inflated,which are digested
+     */
+    public void recordDigest(long compressedSize, long size, long nanos) {
+        record(Stage.DIGEST, 1, compressedSize, nanos);
+        bytesInflated.addAndGet(size);
+    }
+
+    /**
+     * Record a jar once scanned or loaded from the cache
+     */
+    public void recordJar(String pathName, long nanos, int entries, long bytes) {
+        jars.incrementAndGet();
+        if (slowestCount <= 0) {
+            return;
+        }
+        synchronized (slowest) {
+            if (slowest.size() < slowestCount) {
+                slowest.add(new JarProfile(pathName, nanos, entries, bytes));
+            } else if (slowest.peek().nanos < nanos) {
+                slowest.poll();
+                slowest.add(new JarProfile(pathName, nanos, entries, bytes));
+            }
+        }
+    }
+
+    public void recordCache(boolean hit) {
+        (hit ? cacheHits : cacheMisses).incrementAndGet();
+    }
+
+    /**
+     * Record a file,or the entry of a file,which could not be scanned
+     */
+    public void recordFailure(String pathName, Throwable cause) {
+        failures.incrementAndGet();
+        synchronized (lastFailures) {
+            if (lastFailures.size() == MAX_FAILURES) {
+                lastFailures.removeFirst();
+            }
+            lastFailures.addLast(pathName + ": " + cause);
+        }
+    }
+
+    public long getItems(Stage stage) {
+        return stageItems[stage.ordinal()].get();
+    }
+
+    public long getBytes(Stage stage) {
+        return stageBytes[stage.ordinal()].get();
+    }
+
+    public long getNanos(Stage stage) {
+        return stageNanos[stage.ordinal()].get();
+    }
+
+    public long getJars() {
+        return jars.get();
+    }
+
+    public long getEntries() {
+        return getItems(Stage.DIGEST);
+    }
+
+    public long getBytesRead() {
+        return getBytes(Stage.DIGEST);
+    }
+
+    public long getBytesInflated() {
+        return bytesInflated.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public double getCacheHitRate() {
+        long hits = cacheHits.get();
+        long total = hits + cacheMisses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getOpenMillis() {
+        return getNanos(Stage.OPEN) / 1000000;
+    }
+
+    public long getCacheMillis() {
+        return getNanos(Stage.CACHE) / 1000000;
+    }
+
+    public long getDigestMillis() {
+        return getNanos(Stage.DIGEST) / 1000000;
+    }
+
+    public long getInsertMillis() {
+        return getNanos(Stage.INSERT) / 1000000;
+    }
+
+    /**
+     * @return the slowest jars,slowest first
+     */
+    public List<JarProfile> getSlowest() {
+        List<JarProfile> profiles;
+        synchronized (slowest) {
+            profiles = new ArrayList<JarProfile>(slowest);
+        }
+        Collections.sort(profiles, Collections.reverseOrder(BY_TIME));
+        return profiles;
+    }
+
+    public String[] getSlowestJars() {
+        List<JarProfile> profiles = getSlowest();
+        String[] result = new String[profiles.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = profiles.get(i).toString();
+        }
+        return result;
+    }
+
+    public String[] getLastFailures() {
+        synchronized (lastFailures) {
+            return lastFailures.toArray(new String[lastFailures.size()]);
+        }
+    }
+
+    public void reset() {
+        for (Stage stage : Stage.values()) {
+            stageItems[stage.ordinal()].set(0);
+            stageBytes[stage.ordinal()].set(0);
+            stageNanos[stage.ordinal()].set(0);
+        }
+        jars.set(0);
+        bytesInflated.set(0);
+        cacheHits.set(0);
+        cacheMisses.set(0);
+        failures.set(0);
+        synchronized (slowest) {
+            slowest.clear();
+        }
+        synchronized (lastFailures) {
+            lastFailures.clear();
+        }
+    }
+
+    /**
+     * Register the metrics in the platform MBean server as
+     * {@link #OBJECT_NAME},replacing the ones registered before
+     */
+    public void register() throws JMException {
+        register(null);
+    }
+
+    /**
+     * Register the metrics in the platform MBean server as
+     * {@link #OBJECT_NAME} with the given <code>name</code> key,so the
+     * metrics of scans running at the same time,such as the modules of a
+     * parallel build,are registered side by side
+     *
+     * @param scanName the scan the metrics belong to,null for none
+     * @return the name the metrics are registered as
+     */
+    public synchronized ObjectName register(String scanName) throws JMException {
+        ObjectName name = new ObjectName(scanName == null ? OBJECT_NAME : OBJECT_NAME
+                + ",name=" + ObjectName.quote(scanName));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+        objectName = name;
+        return name;
+    }
+
+    /**
+     * Remove the metrics from the platform MBean server,if they are still
+     * registered
+     */
+    public synchronized void unregister() throws JMException {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+        objectName = null;
+    }
+
+    /**
+     * @return the summary,one line per stage and per slow jar
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d jars, %d classes, %d KB read, %d KB inflated, %d failures",
+                getJars(), getEntries(), getBytesRead() / 1024, getBytesInflated() / 1024,
+                getFailures()));
+        if (getCacheHits() + getCacheMisses() > 0) {
+            sb.append(String.format("\ncache: %d hits, %d misses, %.0f%% hit rate",
+                    getCacheHits(), getCacheMisses(), getCacheHitRate() * 100));
+        }
+        for (Stage stage : Stage.values()) {
+            sb.append(String.format("\n%s: %d items, %d ms", stage.getValue(), getItems(stage),
+                    getNanos(stage) / 1000000));
+        }
+        List<JarProfile> profiles = getSlowest();
+        if (!profiles.isEmpty()) {
+            sb.append("\nslowest jars:");
+            for (JarProfile profile : profiles) {
+                sb.append("\n \t").append(profile);
+            }
+        }
+        for (String failure : getLastFailures()) {
+            sb.append("\nfailed ").append(failure);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.creative.studio.component.dependency;
+
+/**
+ * Management interface of the {@link ScanMetrics}, registered as
+ * {@link ScanMetrics#OBJECT_NAME}, with the name of the scan if it has one
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public interface ScanMetricsMXBean {
+
+    long getJars();
+
+    long getEntries();
+
+    long getBytesRead();
+
+    long getBytesInflated();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRate();
+
+    long getFailures();
+
+    long getOpenMillis();
+
+    long getCacheMillis();
+
+    long getDigestMillis();
+
+    long getInsertMillis();
+
+    /**
+     * @return the slowest jars,slowest first
+     */
+    String[] getSlowestJars();
+
+    /**
+     * @return the last failures,with the file which failed
+     */
+    String[] getLastFailures();
+
+    void reset();
+}
@@ -0,0 +1,485 @@
+package com.creative.studio.component.dependency;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scan pipeline of three stages connected by bounded queues, so the disk and
+ * all cores are kept busy at once:
+ * <p>
+ * 1. Reader threads open the jars and copy the compressed class entries out of
+ * the central directory. Class files, nested archives, cached jars and jars
+ * the central directory can not read are processed whole by the readers.
+ * <p>
+ * 2. Worker threads inflate and digest the entries.
+ * <p>
+ * 3. The calling thread is the single writer of the container. It puts the
+ * entries in file and entry order, so the container ends up exactly as after
+ * a sequential scan, and stores the scanned jars into the scan cache.
+ * <p>
+ * A full queue blocks the stage which feeds it, which bounds the memory used
+ * by the entries in flight. See {@link #getStats()} for the stage which limits
+ * the throughput. A reader or worker which fails unexpectedly fails the scan
+ * with its exception.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class ScanPipeline {
+
+    public static final int      DEFAULT_QUEUE_DEPTH = 1024;
+
+    private final int            readers;
+    private final int            workers;
+    private final int            workQueueDepth;
+    private final int            resultQueueDepth;
+    private volatile PipelineStats stats;
+
+    /**
+     * One reader, one worker per processor and default queue depths
+     */
+    public ScanPipeline() {
+        this(1, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_DEPTH,
+                DEFAULT_QUEUE_DEPTH);
+    }
+
+    /**
+     * @param readers threads which read the files
+     * @param workers threads which inflate and digest the entries
+     * @param workQueueDepth entries read but not yet digested
+     * @param resultQueueDepth entries digested but not yet in the container
+     */
+    public ScanPipeline(int readers, int workers, int workQueueDepth, int resultQueueDepth) {
+        if (readers < 1 || workers < 1 || workQueueDepth < 1 || resultQueueDepth < 1) {
+            throw new IllegalArgumentException("Threads and queue depths must be positive");
+        }
+        this.readers = readers;
+        this.workers = workers;
+        this.workQueueDepth = workQueueDepth;
+        this.resultQueueDepth = resultQueueDepth;
+    }
+
+    /**
+     * @return the statistics of the last scan, null before the first one
+     */
+    public PipelineStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Scan the files and put the results into the container
+     */
+    public void scan(List<File> files, ComponentContainer container) throws IOException {
+        scan(files, container, ScanSettings.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #scan(List, ComponentContainer)}, but scans with the
+     * given settings
+     */
+    public void scan(List<File> files, ComponentContainer container, ScanSettings settings)
+            throws IOException {
+        PipelineStats runStats = new PipelineStats(readers, workers);
+        stats = runStats;
+        if (files.isEmpty()) {
+            return;
+        }
+        Run run = new Run(files, runStats, settings);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < readers; i++) {
+            threads.add(new Thread(run.new Reader(), "scan-reader-" + i));
+        }
+        for (int i = 0; i < workers; i++) {
+            threads.add(new Thread(run.new Worker(), "scan-worker-" + i));
+        }
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+        boolean completed = false;
+        try {
+            run.aggregate(container);
+            completed = true;
+        } catch (StageFailure e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Scan failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Scan interrupted");
+        } finally {
+            if (!completed) {
+                for (Thread thread : threads) {
+                    thread.interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * A scanned file, or an entry to digest, or the end of a worker
+     */
+    private static final class Item {
+        static final Item      PILL = new Item(-1, -1);
+
+        final int              fileIndex;
+        /**
+         * Index of the entry in the class entries of the jar,-1 for files
+         */
+        final int              entryIndex;
+        File                   file;
+        /**
+         * Whole result of files which are not split into entries
+         */
+        ComponentBatch         batch;
+        /**
+         * Number of class entries of jars which are split into entries
+         */
+        int                    entryCount;
+        CentralDirectory       directory;
+        int                    index;
+        byte[]                 compressed;
+        boolean                failed;
+        ComponentEntry         entry;
+        /**
+         * Time spent reading the file,or digesting the entry
+         */
+        long                   nanos;
+
+        Item(int fileIndex, int entryIndex) {
+            this.fileIndex = fileIndex;
+            this.entryIndex = entryIndex;
+        }
+    }
+
+    /**
+     * Unexpected failure of a reader or worker,which ends the scan
+     */
+    private static final class StageFailure extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        StageFailure(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Entries of a file received by the aggregator so far
+     */
+    private static final class FileResult {
+        final Item             fileItem;
+        final ComponentEntry[] entries;
+        int                    received;
+        long                   nanos;
+
+        FileResult(Item fileItem) {
+            this.fileItem = fileItem;
+            this.nanos = fileItem.nanos;
+            this.entries = fileItem.batch == null ? new ComponentEntry[fileItem.entryCount] : null;
+        }
+
+        boolean isComplete() {
+            return fileItem.batch != null || received == entries.length;
+        }
+    }
+
+    /**
+     * State of one scan
+     */
+    private final class Run {
+        private final List<File>                 files;
+        private final PipelineStats              runStats;
+        private final BlockingQueue<Item>        work;
+        private final BlockingQueue<Item>        results;
+        private final AtomicInteger              nextFile       = new AtomicInteger();
+        private final AtomicInteger              runningReaders = new AtomicInteger(readers);
+        /**
+         * First unexpected failure of a reader or worker
+         */
+        private final AtomicReference<Throwable> failure        = new AtomicReference<Throwable>();
+        private final boolean                    checkJars      = DependencyMediator.isCheckJars();
+        private final ScanSettings               settings;
+        private final boolean                    contentNeeded;
+
+        Run(List<File> files, PipelineStats runStats, ScanSettings settings) {
+            this.files = files;
+            this.runStats = runStats;
+            this.settings = settings;
+            this.contentNeeded = settings.isContentNeeded();
+            this.work = new ArrayBlockingQueue<Item>(workQueueDepth);
+            this.results = new ArrayBlockingQueue<Item>(resultQueueDepth);
+        }
+
+        private final class Reader implements Runnable {
+            private long waited;
+            private long items;
+            private long bytes;
+
+            public void run() {
+                long start = System.nanoTime();
+                boolean interrupted = false;
+                try {
+                    int f;
+                    while ((f = nextFile.getAndIncrement()) < files.size()) {
+                        read(f, files.get(f));
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (Throwable e) {
+                    //The workers are still ended,the aggregator then fails the scan
+                    failure.compareAndSet(null, e);
+                } finally {
+                    runStats.getReader().record(items, bytes, System.nanoTime() - start, waited);
+                    //The last reader ends the workers,after all of the work is queued
+                    if (!interrupted && runningReaders.decrementAndGet() == 0) {
+                        endWorkers();
+                    }
+                }
+            }
+
+            private void endWorkers() {
+                try {
+                    for (int i = 0; i < workers; i++) {
+                        work.put(Item.PILL);
+                    }
+                } catch (InterruptedException e) {
+                    //Scan is aborted
+                }
+            }
+
+            private void read(int f, File file) throws InterruptedException {
+                long start = System.nanoTime();
+                long startWaited = waited;
+                Item fileItem = new Item(f, -1);
+                fileItem.file = file;
+                ComponentFormat compFormat = DependencyMediator.getComponentFormat(file);
+                if (!checkJars || null == compFormat || ComponentFormat.CLASS == compFormat
+                        || NestedArchiveScanner.isNestingFormat(compFormat)) {
+                    fileItem.batch = processWhole(file);
+                    fileItem.nanos = System.nanoTime() - start;
+                    put(results, fileItem);
+                    return;
+                }
+                ComponentBatch cached = new ComponentBatch();
+                if (DependencyMediator.loadCached(file, cached, settings)) {
+                    fileItem.batch = cached;
+                    fileItem.nanos = System.nanoTime() - start;
+                    put(results, fileItem);
+                    return;
+                }
+                CentralDirectory directory = DependencyMediator.openCentralDirectory(file,
+                        settings.getMetrics());
+                if (directory == null) {
+                    fileItem.batch = processWhole(file);
+                    fileItem.nanos = System.nanoTime() - start;
+                    put(results, fileItem);
+                    return;
+                }
+                int[] classEntries = new int[directory.size()];
+                int count = 0;
+                for (int i = 0; i < directory.size(); i++) {
+                    if (directory.entryNameEndsWith(i, DependencyMediator.CLASS_SUFFIX)) {
+                        classEntries[count++] = i;
+                    }
+                }
+                fileItem.entryCount = count;
+                fileItem.directory = directory;
+                fileItem.nanos = System.nanoTime() - start;
+                //The file is announced before its entries,so the aggregator knows their number
+                put(results, fileItem);
+                try {
+                    for (int k = 0; k < count; k++) {
+                        Item item = new Item(f, k);
+                        item.directory = directory;
+                        item.index = classEntries[k];
+                        if (contentNeeded) {
+                            try {
+                                int compressedSize = (int) directory.getCompressedSize(item.index);
+                                item.compressed = new byte[compressedSize + 1];
+                                directory.readCompressed(item.index, item.compressed);
+                                bytes += compressedSize;
+                            } catch (IOException e) {
+                                settings.getMetrics().recordFailure(file.getPath(), e);
+                                item.failed = true;
+                                item.compressed = null;
+                            }
+                        }
+                        items++;
+                        put(work, item);
+                    }
+                } finally {
+                    //Workers only inflate the copied data,the mapping is no longer needed
+                    directory.close();
+                }
+                //The reads of the entries,without the waits for the workers
+                fileItem.nanos = System.nanoTime() - start - (waited - startWaited);
+            }
+
+            private ComponentBatch processWhole(File file) {
+                ComponentBatch batch = new ComponentBatch();
+                try {
+                    DependencyMediator.doProcess(file, batch, settings);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                items += batch.size();
+                bytes += file.length();
+                return batch;
+            }
+
+            private void put(BlockingQueue<Item> queue, Item item) throws InterruptedException {
+                long start = System.nanoTime();
+                queue.put(item);
+                waited += System.nanoTime() - start;
+            }
+        }
+
+        private final class Worker implements Runnable {
+            public void run() {
+                long start = System.nanoTime();
+                long waited = 0;
+                long items = 0;
+                long bytes = 0;
+                boolean interrupted = false;
+                try {
+                    while (true) {
+                        long takeStart = System.nanoTime();
+                        Item item = work.take();
+                        waited += System.nanoTime() - takeStart;
+                        if (item == Item.PILL) {
+                            return;
+                        }
+                        if (!item.failed) {
+                            long digestStart = System.nanoTime();
+                            try {
+                                item.entry = DependencyMediator.createJarEntry(item.directory,
+                                        item.index, item.compressed, settings);
+                                bytes += item.directory.getSize(item.index);
+                            } catch (Exception e) {
+                                settings.getMetrics().recordFailure(item.directory.getName(),
+                                        e);
+                            }
+                            item.nanos = System.nanoTime() - digestStart;
+                        }
+                        item.compressed = null;
+                        items++;
+                        long putStart = System.nanoTime();
+                        results.put(item);
+                        waited += System.nanoTime() - putStart;
+                    }
+                } catch (InterruptedException e) {
+                    //Scan is aborted
+                    interrupted = true;
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    //Stats are complete once the aggregator has every pill
+                    runStats.getWorker().record(items, bytes, System.nanoTime() - start, waited);
+                    if (!interrupted) {
+                        endWorker();
+                    }
+                }
+            }
+
+            private void endWorker() {
+                try {
+                    results.put(Item.PILL);
+                } catch (InterruptedException e) {
+                    //Scan is aborted
+                }
+            }
+        }
+
+        /**
+         * Put the results into the container in file and entry order, until
+         * every worker has ended
+         *
+         * @throws StageFailure once a worker ends after a reader or worker
+         *             failed unexpectedly
+         */
+        void aggregate(ComponentContainer container) throws InterruptedException, StageFailure {
+            long start = System.nanoTime();
+            long waited = 0;
+            long items = 0;
+            Map<Integer, FileResult> pending = new HashMap<Integer, FileResult>();
+            int next = 0;
+            int endedWorkers = 0;
+            try {
+                while (endedWorkers < workers) {
+                    long takeStart = System.nanoTime();
+                    Item item = results.take();
+                    waited += System.nanoTime() - takeStart;
+                    if (item == Item.PILL) {
+                        endedWorkers++;
+                        //The results of a failed stage never all arrive
+                        if (failure.get() != null) {
+                            throw new StageFailure(failure.get());
+                        }
+                        continue;
+                    }
+                    if (item.entryIndex == -1) {
+                        pending.put(item.fileIndex, new FileResult(item));
+                    } else {
+                        FileResult result = pending.get(item.fileIndex);
+                        result.entries[item.entryIndex] = item.entry;
+                        result.received++;
+                        result.nanos += item.nanos;
+                    }
+                    FileResult result;
+                    while ((result = pending.get(next)) != null && result.isComplete()) {
+                        items += write(result, container);
+                        pending.remove(next++);
+                    }
+                }
+                //Left only if a reader failed in the middle of a jar
+                for (int f = next; !pending.isEmpty(); f++) {
+                    FileResult result = pending.remove(f);
+                    if (result != null) {
+                        items += write(result, container);
+                    }
+                }
+            } finally {
+                runStats.getAggregator().record(items, 0, System.nanoTime() - start, waited);
+            }
+        }
+
+        private int write(FileResult result, ComponentContainer container) {
+            ComponentBatch batch = result.fileItem.batch;
+            if (batch == null) {
+                batch = new ComponentBatch();
+                for (ComponentEntry cEntry : result.entries) {
+                    if (cEntry != null) {
+                        batch.add(cEntry.getName(), cEntry);
+                    } else {
+                        //Failed to read or digest,so the jar is not cached
+                        batch.markFailed();
+                    }
+                }
+                if (result.isComplete()) {
+                    DependencyMediator.storeCached(result.fileItem.file, batch, settings);
+                }
+            }
+            int size = batch.size();
+            settings.getMetrics().recordJar(result.fileItem.file.getPath(), result.nanos, size,
+                    result.fileItem.file.length());
+            batch.flush(container, settings.getMetrics());
+            return size;
+        }
+    }
+}
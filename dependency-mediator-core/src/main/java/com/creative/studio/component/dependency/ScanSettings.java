@@ -0,0 +1,145 @@
+package com.creative.studio.component.dependency;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.creative.studio.component.dependency.cache.ClassTableCache;
+
+/**
+ * Options of one scan execution, such as the check of a module by the plugin,
+ * a run of the command line or a request to the daemon.
+ * <p>
+ * Settings are immutable and handed down to every stage of the scan, so the
+ * executions running at the same time in a JVM, like the modules of a
+ * parallel build, never see each other's options. The <code>with</code>
+ * methods return a copy with one option changed.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public final class ScanSettings {
+
+    /**
+     * Digest every class with MD5, without scan cache, directory filter nor
+     * metrics. Scans which report metrics get their own with
+     * {@link #withMetrics(ScanMetrics)}.
+     */
+    public static final ScanSettings DEFAULT = new ScanSettings(FingerprintMode.DIGEST,
+                                                     DigestAlgorithm.MD5, null,
+                                                     Collections.<String> emptyList(),
+                                                     Collections.<String> emptyList(),
+                                                     ScanMetrics.NONE);
+
+    private final FingerprintMode    fingerprintMode;
+    private final DigestAlgorithm    digestAlgorithm;
+    private final ClassTableCache    scanCache;
+    private final List<String>       includes;
+    private final List<String>       excludes;
+    private final ScanMetrics        metrics;
+
+    private ScanSettings(FingerprintMode fingerprintMode, DigestAlgorithm digestAlgorithm,
+                         ClassTableCache scanCache, List<String> includes,
+                         List<String> excludes, ScanMetrics metrics) {
+        this.fingerprintMode = fingerprintMode;
+        this.digestAlgorithm = digestAlgorithm;
+        this.scanCache = scanCache;
+        this.includes = includes;
+        this.excludes = excludes;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return how jar entries are fingerprinted
+     */
+    public FingerprintMode getFingerprintMode() {
+        return fingerprintMode;
+    }
+
+    /**
+     * @return the hash function of the digests
+     */
+    public DigestAlgorithm getDigestAlgorithm() {
+        return digestAlgorithm;
+    }
+
+    /**
+     * @return the persistent cache of per-jar results, null if disabled
+     */
+    public ClassTableCache getScanCache() {
+        return scanCache;
+    }
+
+    /**
+     * @return globs of the files to scan in directories, all jars and classes
+     *         if empty
+     */
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    /**
+     * @return globs of the files and directories to skip in directories
+     */
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * @return the metrics the scans record into,{@link ScanMetrics#NONE} if
+     *         they are not recorded
+     */
+    public ScanMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return whether jar entries are inflated while scanned, rather than
+     *         only when {@link DependencyMediator#resolveDuplicates} needs them
+     */
+    boolean isContentNeeded() {
+        return !fingerprintMode.isDeferred();
+    }
+
+    public ScanSettings withFingerprintMode(FingerprintMode mode) {
+        return new ScanSettings(mode, digestAlgorithm, scanCache, includes, excludes, metrics);
+    }
+
+    public ScanSettings withDigestAlgorithm(DigestAlgorithm algorithm) {
+        return new ScanSettings(fingerprintMode, algorithm, scanCache, includes, excludes,
+                metrics);
+    }
+
+    /**
+     * @param cache the persistent cache of per-jar results, null to disable it
+     */
+    public ScanSettings withScanCache(ClassTableCache cache) {
+        return new ScanSettings(fingerprintMode, digestAlgorithm, cache, includes, excludes,
+                metrics);
+    }
+
+    /**
+     * @param includeGlobs globs of the files to scan in directories, all jars
+     *            and classes if empty
+     * @param excludeGlobs globs of the files and directories to skip
+     */
+    public ScanSettings withDirectoryFilter(List<String> includeGlobs, List<String> excludeGlobs) {
+        return new ScanSettings(fingerprintMode, digestAlgorithm, scanCache,
+                Collections.unmodifiableList(new ArrayList<String>(includeGlobs)),
+                Collections.unmodifiableList(new ArrayList<String>(excludeGlobs)), metrics);
+    }
+
+    /**
+     * @param scanMetrics the metrics the scans record into
+     */
+    public ScanSettings withMetrics(ScanMetrics scanMetrics) {
+        return new ScanSettings(fingerprintMode, digestAlgorithm, scanCache, includes, excludes,
+                scanMetrics);
+    }
+
+    @Override
+    public String toString() {
+        return "ScanSettings[fingerprint=" + fingerprintMode.getValue() + ",digest="
+                + digestAlgorithm.getValue() + ",cache=" + (scanCache != null) + ",includes="
+                + includes + ",excludes=" + excludes + "]";
+    }
+}
@@ -0,0 +1,161 @@
+package com.creative.studio.component.dependency;
+
+import java.util.Arrays;
+
+/**
+ * Interns symbols, such as class names, member names and descriptors, to
+ * dense int ids from 0, so the structures built on them hold ints instead of
+ * strings, and each symbol string is kept once.
+ * <p>
+ * Ids are found through an open addressing table of id plus one, with linear
+ * probing, so no entry object or boxed integer is created per symbol. Lookups
+ * of interned symbols take no lock, only adding a symbol does.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public final class SymbolTable {
+
+    private static final int MIN_CAPACITY = 64;
+
+    /**
+     * Arrays replaced together when the table grows
+     */
+    private static final class Table {
+        /**
+         * Id plus one of the symbol in each slot,0 if the slot is empty
+         */
+        final int[]    slots;
+        final String[] symbols;
+        final int[]    hashes;
+
+        Table(int capacity) {
+            this.slots = new int[capacity * 2];
+            this.symbols = new String[capacity];
+            this.hashes = new int[capacity];
+        }
+    }
+
+    private volatile Table table;
+    private volatile int   size;
+
+    public SymbolTable() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize expected number of symbols
+     */
+    public SymbolTable(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize) {
+            capacity <<= 1;
+        }
+        this.table = new Table(capacity);
+    }
+
+    /**
+     * @return id of the symbol,which is added if it is new
+     */
+    public int intern(String symbol) {
+        int hash = hash(symbol);
+        int id = find(table, symbol, hash);
+        if (id != -1) {
+            return id;
+        }
+        synchronized (this) {
+            Table current = table;
+            id = find(current, symbol, hash);
+            if (id != -1) {
+                return id;
+            }
+            id = size;
+            if (id == current.symbols.length) {
+                current = grow(current);
+            }
+            //The symbol is stored before its slot,so readers which find the slot see it
+            current.symbols[id] = symbol;
+            current.hashes[id] = hash;
+            insert(current.slots, hash, id);
+            table = current;
+            size = id + 1;
+            return id;
+        }
+    }
+
+    /**
+     * @return id of the symbol,-1 if it was never interned
+     */
+    public int lookup(String symbol) {
+        return find(table, symbol, hash(symbol));
+    }
+
+    /**
+     * @return the symbol of the id
+     */
+    public String get(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown symbol id " + id);
+        }
+        return table.symbols[id];
+    }
+
+    /**
+     * @return number of symbols,ids are below it
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int find(Table t, String symbol, int hash) {
+        int[] slots = t.slots;
+        int mask = slots.length - 1;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == 0) {
+                return -1;
+            }
+            int id = slot - 1;
+            //A symbol being added concurrently may not be visible yet,the caller then locks
+            String candidate = t.symbols[id];
+            if (t.hashes[id] == hash && candidate != null && candidate.equals(symbol)) {
+                return id;
+            }
+        }
+    }
+
+    private static void insert(int[] slots, int hash, int id) {
+        int mask = slots.length - 1;
+        int i = hash & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = id + 1;
+    }
+
+    /**
+     * @return a table of twice the capacity,holding the same symbols
+     */
+    private static Table grow(Table current) {
+        int capacity = current.symbols.length;
+        Table grown = new Table(capacity * 2);
+        System.arraycopy(current.symbols, 0, grown.symbols, 0, capacity);
+        System.arraycopy(current.hashes, 0, grown.hashes, 0, capacity);
+        for (int id = 0; id < capacity; id++) {
+            insert(grown.slots, grown.hashes[id], id);
+        }
+        return grown;
+    }
+
+    /**
+     * Spread the string hash,whose low bits are weak for similar names
+     */
+    private static int hash(String symbol) {
+        int h = symbol.hashCode() * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "SymbolTable" + Arrays.asList(Arrays.copyOf(table.symbols, size));
+    }
+}
@@ -0,0 +1,140 @@
+package com.creative.studio.component.dependency;
+
+/**
+ * Streaming xxHash64 {@link Hasher} with seed 0
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ * @see <a href="https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md">xxHash
+ *      specification</a>
+ */
+final class XxHash64 implements Hasher {
+
+    private static final long PRIME1 = 0x9e3779b185ebca87L;
+    private static final long PRIME2 = 0xc2b2ae3d27d4eb4fL;
+    private static final long PRIME3 = 0x165667b19e3779f9L;
+    private static final long PRIME4 = 0x85ebca77c2b2ae63L;
+    private static final long PRIME5 = 0x27d4eb2f165667c5L;
+
+    private long              v1;
+    private long              v2;
+    private long              v3;
+    private long              v4;
+    private long              totalLength;
+    /**
+     * Bytes not yet consumed by a 32 bytes stripe
+     */
+    private final byte[]      memory = new byte[32];
+    private int               memorySize;
+
+    XxHash64() {
+        reset();
+    }
+
+    private void reset() {
+        v1 = PRIME1 + PRIME2;
+        v2 = PRIME2;
+        v3 = 0;
+        v4 = -PRIME1;
+        totalLength = 0;
+        memorySize = 0;
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+        totalLength += length;
+        int i = offset;
+        int end = offset + length;
+        if (memorySize + length < 32) {
+            System.arraycopy(bytes, i, memory, memorySize, length);
+            memorySize += length;
+            return;
+        }
+        if (memorySize > 0) {
+            int fill = 32 - memorySize;
+            System.arraycopy(bytes, i, memory, memorySize, fill);
+            v1 = round(v1, readLong(memory, 0));
+            v2 = round(v2, readLong(memory, 8));
+            v3 = round(v3, readLong(memory, 16));
+            v4 = round(v4, readLong(memory, 24));
+            i += fill;
+            memorySize = 0;
+        }
+        long a1 = v1, a2 = v2, a3 = v3, a4 = v4;
+        for (; i + 32 <= end; i += 32) {
+            a1 = round(a1, readLong(bytes, i));
+            a2 = round(a2, readLong(bytes, i + 8));
+            a3 = round(a3, readLong(bytes, i + 16));
+            a4 = round(a4, readLong(bytes, i + 24));
+        }
+        v1 = a1;
+        v2 = a2;
+        v3 = a3;
+        v4 = a4;
+        if (i < end) {
+            memorySize = end - i;
+            System.arraycopy(bytes, i, memory, 0, memorySize);
+        }
+    }
+
+    @Override
+    public byte[] digest() {
+        long h;
+        if (totalLength >= 32) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12)
+                    + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = PRIME5;
+        }
+        h += totalLength;
+        int i = 0;
+        for (; i + 8 <= memorySize; i += 8) {
+            h ^= round(0, readLong(memory, i));
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+        }
+        if (i + 4 <= memorySize) {
+            h ^= (readInt(memory, i) & 0xffffffffL) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            i += 4;
+        }
+        for (; i < memorySize; i++) {
+            h ^= (memory[i] & 0xff) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+        }
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        reset();
+
+        byte[] digest = new byte[8];
+        for (int k = 0; k < 8; k++) {
+            digest[k] = (byte) (h >>> (56 - 8 * k));
+        }
+        return digest;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * PRIME1 + PRIME4;
+    }
+
+    private static long readLong(byte[] bytes, int i) {
+        return (readInt(bytes, i) & 0xffffffffL) | ((long) readInt(bytes, i + 4) << 32);
+    }
+
+    private static int readInt(byte[] bytes, int i) {
+        return (bytes[i] & 0xff) | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff) << 16
+                | (bytes[i + 3] & 0xff) << 24;
+    }
+}
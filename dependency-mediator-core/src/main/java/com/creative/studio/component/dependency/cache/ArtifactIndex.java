@@ -0,0 +1,277 @@
+package com.creative.studio.component.dependency.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+
+/**
+ * Content-addressed index of jar class tables, shared by every build using the
+ * same local repository.
+ * <p>
+ * Class tables are keyed by the SHA-1 of the jar, stored as
+ * <code>.dependency-mediator/index/ab/abcdef....idx</code> under the local
+ * repository, so a lookup is a single file read whatever the index size. The
+ * <code>.sha1</code> file Maven installs beside a jar is used instead of
+ * hashing it when it is not older than the jar.
+ * <p>
+ * Writers of an artifact are serialized by an exclusive lock on a lock file,
+ * which is deleted once written, and publish the index file with an atomic
+ * move, so readers need no lock and never see a partial file. A writer checks
+ * the index file again once it holds the lock, and never replaces a class
+ * table by one which serves fewer fingerprint modes, such as a digested table
+ * by the one of a lazy scan.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class ArtifactIndex implements ClassTableCache {
+
+    private static final int                    MAGIC      = 0x444d4149;
+    private static final int                    VERSION    = 2;
+    private static final Charset                US_ASCII   = Charset.forName("US-ASCII");
+    private static final int                    STRIPES    = 64;
+    /**
+     * In-JVM locks of artifacts by checksum, shared by every index since file
+     * locks are held per JVM
+     */
+    private static final Object[]               LOCKS      = new Object[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    private final File                          directory;
+    /**
+     * Jar path, length and last modified time to its SHA-1, so each jar is
+     * hashed once per JVM
+     */
+    private final ConcurrentMap<String, String> checksums  = new ConcurrentHashMap<String, String>();
+
+    /**
+     * @param localRepository base directory of the local repository
+     */
+    public ArtifactIndex(File localRepository) {
+        this.directory = new File(localRepository, ".dependency-mediator" + File.separator
+                + "index");
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public List<ComponentEntry> load(File jar, FingerprintMode mode, DigestAlgorithm algorithm) {
+        try {
+            List<ComponentEntry> entries = read(getIndexFile(checksum(jar)), jar.getPath(),
+                    algorithm);
+            return entries != null && ClassTableCodec.isUsable(entries, mode) ? entries : null;
+        } catch (IOException e) {
+            //Unreadable index file is the same as absent
+            return null;
+        }
+    }
+
+    @Override
+    public void store(File jar, List<ComponentEntry> entries, DigestAlgorithm algorithm) {
+        try {
+            String checksum = checksum(jar);
+            File indexFile = getIndexFile(checksum);
+            File parent = indexFile.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+                return;
+            }
+            synchronized (LOCKS[(checksum.hashCode() & 0x7fffffff) % STRIPES]) {
+                Path lockPath = new File(parent, checksum + ".lock").toPath();
+                while (!store(lockPath, indexFile, jar.getPath(), entries, algorithm)) {
+                    //The lock file was deleted by the writer before,lock the new one
+                }
+            }
+        } catch (IOException e) {
+            //Indexing is best effort
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write the index file under the lock of the lock file,unless the index
+     * file already serves every fingerprint mode the entries do
+     *
+     * @return false if the lock file was deleted by the writer holding it
+     *         before,so it has to be locked again
+     */
+    private boolean store(Path lockPath, File indexFile, String jarPath,
+                          List<ComponentEntry> entries, DigestAlgorithm algorithm)
+            throws IOException {
+        RandomAccessFile lockFile = new RandomAccessFile(lockPath.toFile(), "rw");
+        try {
+            Object fileKey = getFileKey(lockPath);
+            FileChannel channel = lockFile.getChannel();
+            FileLock lock = channel.lock();
+            try {
+                if (fileKey == null || !fileKey.equals(getFileKey(lockPath))) {
+                    return false;
+                }
+                List<ComponentEntry> existing;
+                try {
+                    existing = read(indexFile, jarPath, algorithm);
+                } catch (IOException e) {
+                    //Unreadable index file is replaced
+                    existing = null;
+                }
+                if (existing == null || !covers(existing, entries)) {
+                    write(indexFile, entries, algorithm);
+                }
+                try {
+                    //Deleted while locked,so a writer waiting for it locks a new one
+                    Files.deleteIfExists(lockPath);
+                } catch (IOException e) {
+                    //File systems which do not delete open files,the next writer reuses it
+                }
+                return true;
+            } finally {
+                lock.release();
+            }
+        } finally {
+            lockFile.close();
+        }
+    }
+
+    /**
+     * @return the key of the file,its path if the file system has no keys,or
+     *         null if it is gone
+     */
+    private static Object getFileKey(Path path) throws IOException {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            return attrs.fileKey() != null ? attrs.fileKey() : path;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the class table serves every fingerprint mode the other
+     *         one does
+     */
+    private static boolean covers(List<ComponentEntry> entries, List<ComponentEntry> other) {
+        for (FingerprintMode mode : FingerprintMode.values()) {
+            if (ClassTableCodec.isUsable(other, mode) && !ClassTableCodec.isUsable(entries, mode)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the class table of the index file,null if there is none
+     */
+    private static List<ComponentEntry> read(File indexFile, String jarPath,
+                                             DigestAlgorithm algorithm) throws IOException {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(
+                indexFile)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            return ClassTableCodec.read(in, jarPath, algorithm);
+        } finally {
+            in.close();
+        }
+    }
+
+    private void write(File indexFile, List<ComponentEntry> entries, DigestAlgorithm algorithm)
+            throws IOException {
+        File tempFile = File.createTempFile("index", ".tmp", indexFile.getParentFile());
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(tempFile)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                ClassTableCodec.write(out, entries, algorithm);
+            } finally {
+                out.close();
+            }
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private File getIndexFile(String checksum) {
+        return new File(new File(directory, checksum.substring(0, 2)), checksum + ".idx");
+    }
+
+    /**
+     * @return SHA-1 of the jar in lower case hex
+     */
+    String checksum(File jar) throws IOException {
+        String key = jar.getCanonicalPath() + ":" + jar.length() + ":" + jar.lastModified();
+        String checksum = checksums.get(key);
+        if (checksum == null) {
+            checksum = readChecksumFile(jar);
+            if (checksum == null) {
+                checksum = ScanCache.toHex(ScanCache.digest(jar, newDigest()));
+            }
+            checksums.put(key, checksum);
+        }
+        return checksum;
+    }
+
+    /**
+     * @return content of the <code>.sha1</code> file beside the jar, or null if
+     *         it is absent, stale or malformed
+     */
+    private static String readChecksumFile(File jar) throws IOException {
+        File checksumFile = new File(jar.getPath() + ".sha1");
+        if (!checksumFile.isFile() || checksumFile.lastModified() < jar.lastModified()) {
+            return null;
+        }
+        byte[] bytes = Files.readAllBytes(checksumFile.toPath());
+        //Some tools append the file name after the checksum
+        String content = new String(bytes, US_ASCII).trim();
+        int end = 0;
+        while (end < content.length() && Character.digit(content.charAt(end), 16) != -1) {
+            end++;
+        }
+        return end == 40 ? content.substring(0, 40).toLowerCase() : null;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
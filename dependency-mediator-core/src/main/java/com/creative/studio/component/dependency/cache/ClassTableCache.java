@@ -0,0 +1,34 @@
+package com.creative.studio.component.dependency.cache;
+
+import java.io.File;
+import java.util.List;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+
+/**
+ * Cache of the class table of jars, which is the class entries with their
+ * fingerprints
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public interface ClassTableCache {
+
+    /**
+     * @param mode the fingerprint mode of the scan
+     * @param algorithm the hash function of the scan,digests of another one
+     *            are dropped
+     * @return the cached class entries of the jar, or null if the jar was not
+     *         cached, has changed, or some entries lack the fingerprint the
+     *         mode compares by
+     */
+    List<ComponentEntry> load(File jar, FingerprintMode mode, DigestAlgorithm algorithm);
+
+    /**
+     * Cache the class entries of the jar
+     *
+     * @param algorithm the hash function the entries were digested with
+     */
+    void store(File jar, List<ComponentEntry> entries, DigestAlgorithm algorithm);
+}
@@ -0,0 +1,108 @@
+package com.creative.studio.component.dependency.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.DependencyMediator;
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+
+/**
+ * Binary format of the class table of one jar, which is the class entries with
+ * their fingerprints
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+final class ClassTableCodec {
+
+    private static final byte HAS_CRC    = 1;
+    private static final byte HAS_DIGEST = 2;
+
+    static void write(DataOutputStream out, List<ComponentEntry> entries,
+                      DigestAlgorithm algorithm) throws IOException {
+        //Digests are only reused with the same hash function
+        out.writeUTF(algorithm.getValue());
+        out.writeInt(entries.size());
+        for (ComponentEntry cEntry : entries) {
+            out.writeUTF(cEntry.getEntryName());
+            byte flags = 0;
+            if (cEntry.getCrc() != -1) {
+                flags |= HAS_CRC;
+            }
+            if (cEntry.isDigested()) {
+                flags |= HAS_DIGEST;
+            }
+            out.writeByte(flags);
+            if ((flags & HAS_CRC) != 0) {
+                out.writeInt((int) cEntry.getCrc());
+                out.writeInt((int) cEntry.getSize());
+            }
+            if ((flags & HAS_DIGEST) != 0) {
+                byte[] digest = cEntry.getDigest();
+                out.writeByte(digest.length);
+                out.write(digest);
+            }
+        }
+    }
+
+    /**
+     * @param jarName path of the jar the entries belong to
+     * @param algorithm the hash function of the scan,digests of another one
+     *            are dropped
+     */
+    static List<ComponentEntry> read(DataInputStream in, String jarName, DigestAlgorithm algorithm)
+            throws IOException {
+        boolean sameAlgorithm = algorithm.getValue().equals(in.readUTF());
+        int count = in.readInt();
+        List<ComponentEntry> entries = new ArrayList<ComponentEntry>(count);
+        for (int i = 0; i < count; i++) {
+            String entryName = in.readUTF();
+            String keyName = entryName.substring(0,
+                    entryName.length() - DependencyMediator.CLASS_SUFFIX.length()).replace("/",
+                    ".");
+            ComponentEntry cEntry = new ComponentEntry(keyName, jarName, entryName);
+            byte flags = in.readByte();
+            if ((flags & HAS_CRC) != 0) {
+                cEntry.setCrc(in.readInt() & 0xffffffffL);
+                cEntry.setSize(in.readInt());
+            }
+            if ((flags & HAS_DIGEST) != 0) {
+                byte[] digest = new byte[in.readUnsignedByte()];
+                in.readFully(digest);
+                if (sameAlgorithm) {
+                    cEntry.setDigest(digest);
+                }
+            }
+            entries.add(cEntry);
+        }
+        return entries;
+    }
+
+    /**
+     * Class tables are shared by the scans of every mode,so a table stored by
+     * a scan of another mode may lack the fingerprints this one compares by
+     *
+     * @return whether every entry has a digest in {@link FingerprintMode#DIGEST}
+     *         mode,or a CRC-32 or digest in {@link FingerprintMode#CRC} mode.
+     *         Lazy scans digest the duplicates they find,so any table does.
+     */
+    static boolean isUsable(List<ComponentEntry> entries, FingerprintMode mode) {
+        if (FingerprintMode.LAZY == mode) {
+            return true;
+        }
+        for (ComponentEntry cEntry : entries) {
+            if (!cEntry.isDigested() && (FingerprintMode.DIGEST == mode || cEntry.getCrc() == -1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ClassTableCodec() {
+        // Unused
+    }
+}
@@ -0,0 +1,172 @@
+package com.creative.studio.component.dependency.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+
+/**
+ * Persistent cache of per-jar scan results, which are the class names plus
+ * their fingerprints.
+ * <p>
+ * Every jar has its own cache file, keyed by its canonical path, length and
+ * last modified time, and optionally by the digest of the whole jar. Files are
+ * written to a temporary file first and moved into place, so concurrent builds
+ * never read a partial file.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class ScanCache implements ClassTableCache {
+
+    private static final int     MAGIC   = 0x444d5343;
+    private static final int     VERSION = 2;
+    private static final Charset UTF_8   = Charset.forName("UTF-8");
+
+    private final File           directory;
+    private final boolean        verifyContent;
+
+    /**
+     * @param directory where cache files are stored, such as
+     *            <code>target/</code> or <code>~/.m2</code>
+     * @param verifyContent whether to also key the cache by the digest of the
+     *            whole jar, which reads the jar but never inflates it
+     */
+    public ScanCache(File directory, boolean verifyContent) {
+        this.directory = directory;
+        this.verifyContent = verifyContent;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public List<ComponentEntry> load(File jar, FingerprintMode mode, DigestAlgorithm algorithm) {
+        try {
+            String canonicalPath = jar.getCanonicalPath();
+            File cacheFile = getCacheFile(canonicalPath);
+            if (!cacheFile.isFile()) {
+                return null;
+            }
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(
+                    cacheFile)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION
+                        || !canonicalPath.equals(in.readUTF()) || in.readLong() != jar.length()
+                        || in.readLong() != jar.lastModified()) {
+                    return null;
+                }
+                byte[] contentDigest = new byte[in.readUnsignedByte()];
+                in.readFully(contentDigest);
+                if (verifyContent && !Arrays.equals(contentDigest, digest(jar))) {
+                    return null;
+                }
+                List<ComponentEntry> entries = ClassTableCodec.read(in, jar.getPath(), algorithm);
+                if (!ClassTableCodec.isUsable(entries, mode)) {
+                    return null;
+                }
+                return entries;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            //Unreadable cache file is the same as absent
+            return null;
+        }
+    }
+
+    @Override
+    public void store(File jar, List<ComponentEntry> entries, DigestAlgorithm algorithm) {
+        File tempFile = null;
+        try {
+            String canonicalPath = jar.getCanonicalPath();
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                return;
+            }
+            tempFile = File.createTempFile("scan", ".tmp", directory);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(tempFile)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(canonicalPath);
+                out.writeLong(jar.length());
+                out.writeLong(jar.lastModified());
+                byte[] contentDigest = verifyContent ? digest(jar) : new byte[0];
+                out.writeByte(contentDigest.length);
+                out.write(contentDigest);
+                ClassTableCodec.write(out, entries, algorithm);
+            } finally {
+                out.close();
+            }
+            Files.move(tempFile.toPath(), getCacheFile(canonicalPath).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tempFile = null;
+        } catch (IOException e) {
+            //Caching is best effort
+            e.printStackTrace();
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private File getCacheFile(String canonicalPath) throws IOException {
+        return new File(directory, toHex(digest(canonicalPath.getBytes(UTF_8))) + ".idx");
+    }
+
+    private static byte[] digest(File file) throws IOException {
+        return digest(file, newDigest());
+    }
+
+    static byte[] digest(File file, MessageDigest md) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                md.update(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        return md.digest();
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        return newDigest().digest(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package com.creative.studio.component.dependency.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.creative.studio.component.dependency.ComponentContainer;
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.ConflictEvaluator;
+import com.creative.studio.component.dependency.ConflictEvaluator.IndexedJar;
+import com.creative.studio.component.dependency.DependencyMediator;
+import com.creative.studio.component.dependency.ScanSettings;
+
+/**
+ * In-memory class tables of the jars scanned in one build session, shared by
+ * the checks of all its modules, so a jar on the classpath of many modules is
+ * only scanned once. The class names of each jar are also indexed by the
+ * {@link ConflictEvaluator} of the session, which finds the conflicts of a
+ * module from the jars of its classpath.
+ * <p>
+ * Each jar is scanned by the first thread asking for it, while the others
+ * asking at the same time wait for its result, so it holds under parallel
+ * module builds too. Class tables are keyed by the fingerprint mode and
+ * digest algorithm of the scan too, so modules checked with other settings
+ * never share them. The class entries are shared by the modules and must not
+ * be modified, but digests resolved lazily, which are the same whoever
+ * resolves them.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class SessionIndex {
+
+    private static final Object                                           lock      = new Object();
+    private static String                                                 currentSessionId;
+    private static SessionIndex                                           current;
+
+    /**
+     * Jar path, length, last modified time and fingerprint options to its
+     * class table
+     */
+    private final ConcurrentMap<String, FutureTask<IndexedJar>>           tables    = new ConcurrentHashMap<String, FutureTask<IndexedJar>>();
+    private final ConflictEvaluator                                       evaluator = new ConflictEvaluator();
+    private final AtomicInteger                                           hits      = new AtomicInteger();
+    private final AtomicInteger                                           misses    = new AtomicInteger();
+
+    /**
+     * @return the index of the session,the one of a previous session is
+     *         dropped
+     */
+    public static SessionIndex forSession(String sessionId) {
+        synchronized (lock) {
+            if (current == null || !sessionId.equals(currentSessionId)) {
+                current = new SessionIndex();
+                currentSessionId = sessionId;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * @return the class entries of the jar,scanned by
+     *         {@link DependencyMediator#readClassTable(File, ScanSettings)} if
+     *         the session has not seen it yet with the same fingerprint
+     *         options
+     */
+    public List<ComponentEntry> get(File jar, ScanSettings settings) throws IOException {
+        return getIndexed(jar, settings).getEntries();
+    }
+
+    /**
+     * @return the class entries of the jar,indexed by the evaluator of the
+     *         session
+     */
+    public IndexedJar getIndexed(final File jar, final ScanSettings settings) throws IOException {
+        String key = jar.getCanonicalPath() + '|' + jar.length() + '|' + jar.lastModified() + '|'
+                + settings.getFingerprintMode() + '|' + settings.getDigestAlgorithm();
+        FutureTask<IndexedJar> task = tables.get(key);
+        if (task == null) {
+            FutureTask<IndexedJar> created = new FutureTask<IndexedJar>(
+                    new Callable<IndexedJar>() {
+                        public IndexedJar call() throws IOException {
+                            return evaluator.index(jar.getPath(),
+                                    DependencyMediator.readClassTable(jar, settings));
+                        }
+                    });
+            task = tables.putIfAbsent(key, created);
+            if (task == null) {
+                task = created;
+                misses.incrementAndGet();
+                created.run();
+            } else {
+                hits.incrementAndGet();
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + jar, e);
+        } catch (ExecutionException e) {
+            //Failures are not kept,the next module tries again
+            tables.remove(key, task);
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                    : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Find the conflicting classes of the classpath,from the class tables of
+     * its jars. Classes directories are scanned and indexed every time,since
+     * they are the ones which change between checks.
+     *
+     * @param classpath jars and classes directories,in classpath order
+     * @param settings the settings of the check
+     * @return the conflicting classes sorted by name,see
+     *         {@link ConflictEvaluator#getConflicts(List, ScanSettings)}
+     */
+    public Map<String, List<ComponentEntry>> getConflicts(List<File> classpath,
+                                                          ScanSettings settings)
+            throws IOException {
+        List<IndexedJar> jars = new ArrayList<IndexedJar>();
+        for (File file : classpath) {
+            if (file.isFile() && DependencyMediator.JAR_FILE_PATTERN.matcher(file.getName())
+                    .matches()) {
+                jars.add(getIndexed(file, settings));
+            } else {
+                ComponentContainer container = new ComponentContainer();
+                DependencyMediator.process(file, container, settings);
+                List<ComponentEntry> entries = new ArrayList<ComponentEntry>();
+                for (String name : container.keySet()) {
+                    entries.addAll(container.get(name));
+                }
+                jars.add(evaluator.index(file.getPath(), entries));
+            }
+        }
+        return evaluator.getConflicts(jars, settings);
+    }
+
+    public ConflictEvaluator getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * @return number of jars whose class table was reused
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of jars scanned
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of jars indexed
+     */
+    public int size() {
+        return tables.size();
+    }
+}
@@ -0,0 +1,44 @@
+package com.creative.studio.component.dependency.cache;
+
+import java.io.File;
+import java.util.List;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+
+/**
+ * Looks up a fast cache first, such as the per-project {@link ScanCache}, and
+ * then a shared one, such as the {@link ArtifactIndex}. Hits of the shared
+ * cache are copied into the fast one.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class TieredCache implements ClassTableCache {
+
+    private final ClassTableCache first;
+    private final ClassTableCache second;
+
+    public TieredCache(ClassTableCache first, ClassTableCache second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public List<ComponentEntry> load(File jar, FingerprintMode mode, DigestAlgorithm algorithm) {
+        List<ComponentEntry> entries = first.load(jar, mode, algorithm);
+        if (entries == null) {
+            entries = second.load(jar, mode, algorithm);
+            if (entries != null) {
+                first.store(jar, entries, algorithm);
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void store(File jar, List<ComponentEntry> entries, DigestAlgorithm algorithm) {
+        first.store(jar, entries, algorithm);
+        second.store(jar, entries, algorithm);
+    }
+}
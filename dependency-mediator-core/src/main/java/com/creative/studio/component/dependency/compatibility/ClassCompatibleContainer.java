@@ -1,28 +1,165 @@
 package com.creative.studio.component.dependency.compatibility;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
 /**
+ * Signatures of the versions of each class name, in classpath order
+ *
  * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
  */
 public class ClassCompatibleContainer {
 
-    private Map<String, List<Map<String, String>>> container = new TreeMap<String, List<Map<String, String>>>();
+    /**
+     * Keys of the versions of {@link #getContainer()}
+     */
+    public static final String NAME       = "name";
+    public static final String PATH_NAME  = "pathName";
+    public static final String SUPER_NAME = "superName";
+    public static final String INTERFACES = "interfaces";
+
+    private Map<String, List<ClassSignature>> container = new TreeMap<String, List<ClassSignature>>();
 
     /**
-     * @return the container
+     * Extract the signature of the class and add it after the versions
+     * already added
+     *
+     * @param pathName where this version of the class was found
+     * @return the signature
      */
-    public Map<String, List<Map<String, String>>> getContainer() {
+    public ClassSignature add(String pathName, byte[] classBytes) throws IOException {
+        return add(pathName, newClassReader(pathName, classBytes));
+    }
+
+    /**
+     * Same as {@link #add(String, byte[])},reading the class from the stream
+     */
+    public ClassSignature add(String pathName, InputStream is) throws IOException {
+        try {
+            return add(pathName, new ClassReader(is));
+        } catch (RuntimeException e) {
+            throw badClassFile(pathName, e);
+        }
+    }
+
+    private ClassSignature add(String pathName, ClassReader classReader) throws IOException {
+        CompatibleDetectingVisitor visitor = new CompatibleDetectingVisitor(pathName);
+        try {
+            classReader.accept(visitor, CompatibleDetectingVisitor.PARSING_OPTIONS);
+        } catch (RuntimeException e) {
+            throw badClassFile(pathName, e);
+        }
+        ClassSignature signature = visitor.getSignature();
+        List<ClassSignature> versions = container.get(signature.getClassName());
+        if (versions == null) {
+            versions = new ArrayList<ClassSignature>();
+            container.put(signature.getClassName(), versions);
+        }
+        versions.add(signature);
+        return signature;
+    }
+
+    private static ClassReader newClassReader(String pathName, byte[] classBytes)
+            throws IOException {
+        try {
+            return new ClassReader(classBytes);
+        } catch (RuntimeException e) {
+            //Malformed,or newer than the class versions ASM knows
+            throw badClassFile(pathName, e);
+        }
+    }
+
+    private static IOException badClassFile(String pathName, Exception e) {
+        IOException ioException = new IOException("Bad class file " + pathName);
+        ioException.initCause(e);
+        return ioException;
+    }
+
+    /**
+     * @return the versions of the class,or null
+     */
+    public List<ClassSignature> get(String className) {
+        return container.get(className);
+    }
+
+    /**
+     * @return the versions of each class name
+     */
+    public Map<String, List<ClassSignature>> getSignatures() {
         return container;
     }
 
     /**
-     * @param container the container to set
+     * @param signatures the versions of each class name
      */
+    public void setSignatures(Map<String, List<ClassSignature>> signatures) {
+        this.container = signatures;
+    }
+
+    /**
+     * @return a copy of the versions of each class name,each one as the
+     *         {@link #NAME}, {@link #PATH_NAME}, {@link #SUPER_NAME} and
+     *         {@link #INTERFACES} of its signature
+     * @deprecated the members of the classes are left out,use
+     *             {@link #getSignatures()}
+     */
+    @Deprecated
+    public Map<String, List<Map<String, String>>> getContainer() {
+        Map<String, List<Map<String, String>>> legacy = new TreeMap<String, List<Map<String, String>>>();
+        for (Map.Entry<String, List<ClassSignature>> entry : container.entrySet()) {
+            List<Map<String, String>> versions = new ArrayList<Map<String, String>>();
+            for (ClassSignature signature : entry.getValue()) {
+                Map<String, String> version = new LinkedHashMap<String, String>();
+                version.put(NAME, signature.getName());
+                version.put(PATH_NAME, signature.getPathName());
+                version.put(SUPER_NAME, signature.getSuperName());
+                version.put(INTERFACES, join(signature.getInterfaces()));
+                versions.add(version);
+            }
+            legacy.put(entry.getKey(), versions);
+        }
+        return legacy;
+    }
+
+    /**
+     * @param container the versions of each class name,as returned by
+     *            {@link #getContainer()}
+     * @deprecated the classes are then compared without members,use
+     *             {@link #setSignatures(Map)}
+     */
+    @Deprecated
     public void setContainer(Map<String, List<Map<String, String>>> container) {
-        this.container = container;
+        Map<String, List<ClassSignature>> signatures = new TreeMap<String, List<ClassSignature>>();
+        for (Map.Entry<String, List<Map<String, String>>> entry : container.entrySet()) {
+            List<ClassSignature> versions = new ArrayList<ClassSignature>();
+            for (Map<String, String> version : entry.getValue()) {
+                String interfaces = version.get(INTERFACES);
+                versions.add(new ClassSignature(version.get(NAME), version.get(PATH_NAME),
+                        Opcodes.ACC_PUBLIC, version.get(SUPER_NAME), interfaces == null
+                                || interfaces.isEmpty() ? null : interfaces.split(",")));
+            }
+            signatures.put(entry.getKey(), versions);
+        }
+        this.container = signatures;
+    }
+
+    private static String join(List<String> names) {
+        StringBuilder sb = new StringBuilder();
+        for (String name : names) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(name);
+        }
+        return sb.toString();
     }
 
 }
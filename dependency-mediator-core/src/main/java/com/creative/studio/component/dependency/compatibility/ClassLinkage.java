@@ -0,0 +1,109 @@
+package com.creative.studio.component.dependency.compatibility;
+
+import java.util.Arrays;
+
+/**
+ * Declared members and outgoing references of a class,as needed to resolve
+ * references to it and from it. Class names and member keys are ids of the
+ * {@link com.creative.studio.component.dependency.SymbolTable} of the check.
+ * <p>
+ * A reference is packed into a long, the owner id in the high int, and in the
+ * low int {@link #NONE} for a class reference, or the member id shifted left
+ * by one, with the low bit set for a method.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+final class ClassLinkage {
+
+    static final int            NONE          = -1;
+    private static final long[] NO_REFERENCES = new long[0];
+
+    final int                   name;
+    /**
+     * Id of the super class,{@link #NONE} for Object and opaque classes
+     */
+    final int                   superName;
+    final int[]                 interfaces;
+    final boolean               isInterface;
+    /**
+     * Whether the class exists but can not be parsed,so references to its
+     * members are not checked
+     */
+    final boolean               opaque;
+    /**
+     * Ids of the fields and methods of every access,keyed like
+     * {@link ClassSignature},sorted
+     */
+    final int[]                 members;
+    private long[]              references;
+
+    /**
+     * @param members sorted ids of the declared members
+     * @param references distinct packed references,in the order they were
+     *            first found
+     */
+    ClassLinkage(int name, int superName, int[] interfaces, boolean isInterface, int[] members,
+                 long[] references) {
+        this(name, superName, interfaces, isInterface, false, members, references);
+    }
+
+    private ClassLinkage(int name, int superName, int[] interfaces, boolean isInterface,
+                         boolean opaque, int[] members, long[] references) {
+        this.name = name;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.isInterface = isInterface;
+        this.opaque = opaque;
+        this.members = members;
+        this.references = references;
+    }
+
+    static ClassLinkage opaque(int name) {
+        return new ClassLinkage(name, NONE, new int[0], false, true, new int[0], NO_REFERENCES);
+    }
+
+    boolean declares(int member) {
+        return Arrays.binarySearch(members, member) >= 0;
+    }
+
+    /**
+     * @return the distinct packed references,in the order they were first
+     *         found
+     */
+    long[] getReferences() {
+        return references;
+    }
+
+    /**
+     * Drop the references of a class shadowed by an earlier one,which is
+     * never loaded
+     */
+    void clearReferences() {
+        references = NO_REFERENCES;
+    }
+
+    static long classReference(int owner) {
+        return ((long) owner << 32) | (NONE & 0xffffffffL);
+    }
+
+    static long memberReference(int owner, int member, boolean method) {
+        return ((long) owner << 32) | ((member << 1 | (method ? 1 : 0)) & 0xffffffffL);
+    }
+
+    static int owner(long reference) {
+        return (int) (reference >>> 32);
+    }
+
+    /**
+     * @return id of the member,{@link #NONE} for a class reference
+     */
+    static int member(long reference) {
+        int low = (int) reference;
+        return low == NONE ? NONE : low >>> 1;
+    }
+
+    static boolean isMethod(long reference) {
+        int low = (int) reference;
+        return low != NONE && (low & 1) != 0;
+    }
+}
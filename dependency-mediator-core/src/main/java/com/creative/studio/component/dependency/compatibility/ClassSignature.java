@@ -0,0 +1,146 @@
+package com.creative.studio.component.dependency.compatibility;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.Opcodes;
+
+/**
+ * API surface of one version of a class: its modifiers, direct supertypes and
+ * public and protected members. Private and package-private members can not
+ * be linked from other packages, so they are left out.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public final class ClassSignature {
+
+    /**
+     * A field or method, keyed by name and descriptor
+     */
+    public static final class Member {
+        private final String name;
+        private final String desc;
+        private final int    access;
+        /**
+         * Constant value of static final fields, null otherwise
+         */
+        private final Object value;
+
+        Member(String name, String desc, int access, Object value) {
+            this.name = name;
+            this.desc = desc;
+            this.access = access;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDesc() {
+            return desc;
+        }
+
+        public int getAccess() {
+            return access;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public boolean is(int flag) {
+            return (access & flag) != 0;
+        }
+    }
+
+    private final String              name;
+    private final String              pathName;
+    private final int                 access;
+    private final String              superName;
+    private final List<String>        interfaces;
+    private final Map<String, Member> fields  = new LinkedHashMap<String, Member>();
+    private final Map<String, Member> methods = new LinkedHashMap<String, Member>();
+
+    /**
+     * @param name internal name of the class
+     * @param pathName where this version was found
+     */
+    ClassSignature(String name, String pathName, int access, String superName,
+                   String[] interfaces) {
+        this.name = name;
+        this.pathName = pathName;
+        this.access = access;
+        this.superName = superName;
+        this.interfaces = interfaces == null ? Collections.<String> emptyList() : Arrays
+                .asList(interfaces);
+    }
+
+    void addField(String fieldName, String desc, int fieldAccess, Object value) {
+        fields.put(fieldKey(fieldName, desc), new Member(fieldName, desc, fieldAccess, value));
+    }
+
+    void addMethod(String methodName, String desc, int methodAccess) {
+        methods.put(methodKey(methodName, desc), new Member(methodName, desc, methodAccess, null));
+    }
+
+    static String fieldKey(String fieldName, String desc) {
+        return fieldName + ":" + desc;
+    }
+
+    static String methodKey(String methodName, String desc) {
+        return methodName + desc;
+    }
+
+    /**
+     * @return the binary name,with dots
+     */
+    public String getClassName() {
+        return name.replace('/', '.');
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPathName() {
+        return pathName;
+    }
+
+    public int getAccess() {
+        return access;
+    }
+
+    public boolean is(int flag) {
+        return (access & flag) != 0;
+    }
+
+    public boolean isInterface() {
+        return is(Opcodes.ACC_INTERFACE);
+    }
+
+    public String getSuperName() {
+        return superName;
+    }
+
+    public List<String> getInterfaces() {
+        return interfaces;
+    }
+
+    /**
+     * @return the fields keyed by <code>name:descriptor</code>
+     */
+    public Map<String, Member> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return the methods keyed by <code>name(descriptor)</code>
+     */
+    public Map<String, Member> getMethods() {
+        return methods;
+    }
+}
@@ -0,0 +1,142 @@
+package com.creative.studio.component.dependency.compatibility;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.objectweb.asm.Opcodes;
+
+import com.creative.studio.component.dependency.compatibility.ClassSignature.Member;
+import com.creative.studio.component.dependency.compatibility.Incompatibility.Kind;
+
+/**
+ * Binary compatibility check of the versions of conflicting classes, following
+ * JLS chapter 13. The first version of a class on the classpath is the one
+ * loaded, so each other version is checked as the version callers were
+ * compiled against, with the first one at runtime.
+ * <p>
+ * Only the declarations of each class are compared. A member moved to a
+ * superclass is reported as removed,which errs on the safe side.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class CompatibilityChecker {
+
+    /**
+     * @return the incompatibilities keyed by class name,classes without any
+     *         are left out
+     */
+    public Map<String, List<Incompatibility>> check(ClassCompatibleContainer container) {
+        Map<String, List<Incompatibility>> result = new LinkedHashMap<String, List<Incompatibility>>();
+        for (Entry<String, List<ClassSignature>> entry : container.getSignatures().entrySet()) {
+            List<ClassSignature> versions = entry.getValue();
+            List<Incompatibility> incompatibilities = new ArrayList<Incompatibility>();
+            for (int i = 1; i < versions.size(); i++) {
+                incompatibilities.addAll(check(versions.get(i), versions.get(0)));
+            }
+            if (!incompatibilities.isEmpty()) {
+                result.put(entry.getKey(), incompatibilities);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param compiledAgainst the version callers were compiled against
+     * @param runtime the version loaded at runtime
+     * @return the changes from the first version to the second
+     */
+    public List<Incompatibility> check(ClassSignature compiledAgainst, ClassSignature runtime) {
+        List<Incompatibility> result = new ArrayList<Incompatibility>();
+        if (compiledAgainst.is(Opcodes.ACC_PUBLIC) && !runtime.is(Opcodes.ACC_PUBLIC)) {
+            result.add(new Incompatibility(Kind.CLASS_LESS_ACCESSIBLE, null, compiledAgainst,
+                    runtime));
+        }
+        if (compiledAgainst.isInterface() != runtime.isInterface()) {
+            //Members of a class and an interface are not comparable
+            result.add(new Incompatibility(Kind.CLASS_KIND_CHANGED, null, compiledAgainst, runtime));
+            return result;
+        }
+        if (!compiledAgainst.isInterface()) {
+            if (!compiledAgainst.is(Opcodes.ACC_ABSTRACT) && runtime.is(Opcodes.ACC_ABSTRACT)) {
+                result.add(new Incompatibility(Kind.CLASS_NOW_ABSTRACT, null, compiledAgainst,
+                        runtime));
+            }
+            if (!compiledAgainst.is(Opcodes.ACC_FINAL) && runtime.is(Opcodes.ACC_FINAL)) {
+                result.add(new Incompatibility(Kind.CLASS_NOW_FINAL, null, compiledAgainst,
+                        runtime));
+            }
+            String superName = compiledAgainst.getSuperName();
+            if (superName != null && !superName.equals(runtime.getSuperName())) {
+                result.add(new Incompatibility(Kind.SUPERCLASS_CHANGED, superName,
+                        compiledAgainst, runtime));
+            }
+        }
+        for (String iface : compiledAgainst.getInterfaces()) {
+            if (!runtime.getInterfaces().contains(iface)) {
+                result.add(new Incompatibility(Kind.INTERFACE_REMOVED, iface, compiledAgainst,
+                        runtime));
+            }
+        }
+        checkFields(compiledAgainst, runtime, result);
+        checkMethods(compiledAgainst, runtime, result);
+        return result;
+    }
+
+    private void checkFields(ClassSignature compiledAgainst, ClassSignature runtime,
+                             List<Incompatibility> result) {
+        for (Entry<String, Member> entry : compiledAgainst.getFields().entrySet()) {
+            Member before = entry.getValue();
+            Member after = runtime.getFields().get(entry.getKey());
+            Kind kind = null;
+            if (after == null) {
+                kind = Kind.FIELD_REMOVED;
+            } else if (before.is(Opcodes.ACC_STATIC) != after.is(Opcodes.ACC_STATIC)) {
+                kind = Kind.FIELD_STATIC_CHANGED;
+            } else if (before.is(Opcodes.ACC_PUBLIC) && !after.is(Opcodes.ACC_PUBLIC)) {
+                kind = Kind.FIELD_LESS_ACCESSIBLE;
+            } else if (!before.is(Opcodes.ACC_FINAL) && after.is(Opcodes.ACC_FINAL)) {
+                kind = Kind.FIELD_NOW_FINAL;
+            } else if (before.getValue() != null && !before.getValue().equals(after.getValue())) {
+                kind = Kind.CONSTANT_CHANGED;
+            }
+            if (kind != null) {
+                result.add(new Incompatibility(kind, entry.getKey(), compiledAgainst, runtime));
+            }
+        }
+    }
+
+    private void checkMethods(ClassSignature compiledAgainst, ClassSignature runtime,
+                              List<Incompatibility> result) {
+        for (Entry<String, Member> entry : compiledAgainst.getMethods().entrySet()) {
+            Member before = entry.getValue();
+            Member after = runtime.getMethods().get(entry.getKey());
+            Kind kind = null;
+            if (after == null) {
+                kind = Kind.METHOD_REMOVED;
+            } else if (before.is(Opcodes.ACC_STATIC) != after.is(Opcodes.ACC_STATIC)) {
+                kind = Kind.METHOD_STATIC_CHANGED;
+            } else if (before.is(Opcodes.ACC_PUBLIC) && !after.is(Opcodes.ACC_PUBLIC)) {
+                kind = Kind.METHOD_LESS_ACCESSIBLE;
+            } else if (!before.is(Opcodes.ACC_ABSTRACT) && after.is(Opcodes.ACC_ABSTRACT)) {
+                kind = Kind.METHOD_NOW_ABSTRACT;
+            } else if (!before.is(Opcodes.ACC_FINAL) && after.is(Opcodes.ACC_FINAL)
+                    && !compiledAgainst.is(Opcodes.ACC_FINAL)) {
+                //Methods of final classes can not be overridden anyway
+                kind = Kind.METHOD_NOW_FINAL;
+            }
+            if (kind != null) {
+                result.add(new Incompatibility(kind, entry.getKey(), compiledAgainst, runtime));
+            }
+        }
+        for (Entry<String, Member> entry : runtime.getMethods().entrySet()) {
+            if (entry.getValue().is(Opcodes.ACC_ABSTRACT)
+                    && !compiledAgainst.getMethods().containsKey(entry.getKey())) {
+                result.add(new Incompatibility(Kind.ABSTRACT_METHOD_ADDED, entry.getKey(),
+                        compiledAgainst, runtime));
+            }
+        }
+    }
+}
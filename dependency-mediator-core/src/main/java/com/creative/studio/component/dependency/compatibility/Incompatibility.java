@@ -0,0 +1,130 @@
+package com.creative.studio.component.dependency.compatibility;
+
+/**
+ * A change between two versions of a class which breaks, or may break, code
+ * compiled against one version when it runs with the other
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class Incompatibility {
+
+    /**
+     * Kinds of changes,with the section of JLS chapter 13 describing them and
+     * the error the linker throws. Kinds without an error are binary
+     * compatible, but change the behavior of code compiled against the other
+     * version.
+     */
+    public enum Kind {
+        CLASS_LESS_ACCESSIBLE("class is no longer public", "13.4.3", "IllegalAccessError"),
+        CLASS_KIND_CHANGED("class changed to interface or back", "13.4.1",
+                "IncompatibleClassChangeError"),
+        CLASS_NOW_ABSTRACT("class made abstract", "13.4.1", "InstantiationError"),
+        CLASS_NOW_FINAL("class made final", "13.4.2", "VerifyError"),
+        SUPERCLASS_CHANGED("direct superclass changed", "13.4.4", null),
+        INTERFACE_REMOVED("direct superinterface removed", "13.4.4",
+                "IncompatibleClassChangeError"),
+        FIELD_REMOVED("field removed or no longer public or protected", "13.4.8",
+                "NoSuchFieldError"),
+        FIELD_LESS_ACCESSIBLE("field changed from public to protected", "13.4.7",
+                "IllegalAccessError"),
+        FIELD_NOW_FINAL("field made final", "13.4.9", "IllegalAccessError"),
+        FIELD_STATIC_CHANGED("field changed between static and instance", "13.4.10",
+                "IncompatibleClassChangeError"),
+        CONSTANT_CHANGED("constant value changed,callers keep the inlined value", "13.4.9",
+                null),
+        METHOD_REMOVED("method removed or no longer public or protected", "13.4.12",
+                "NoSuchMethodError"),
+        METHOD_LESS_ACCESSIBLE("method changed from public to protected", "13.4.7",
+                "IllegalAccessError"),
+        METHOD_NOW_ABSTRACT("method made abstract", "13.4.16", "AbstractMethodError"),
+        METHOD_NOW_FINAL("method made final", "13.4.17", "VerifyError"),
+        METHOD_STATIC_CHANGED("method changed between static and instance", "13.4.19",
+                "IncompatibleClassChangeError"),
+        ABSTRACT_METHOD_ADDED("abstract method added,old implementations lack it", "13.5.3",
+                null);
+
+        private final String description;
+        private final String section;
+        private final String error;
+
+        private Kind(String description, String section, String error) {
+            this.description = description;
+            this.section = section;
+            this.error = error;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return the section of JLS chapter 13
+         */
+        public String getSection() {
+            return section;
+        }
+
+        /**
+         * @return the linkage error,or null if the change is binary compatible
+         */
+        public String getError() {
+            return error;
+        }
+
+        public boolean isBinaryIncompatible() {
+            return error != null;
+        }
+    }
+
+    private final Kind           kind;
+    /**
+     * The field or method,null for changes of the class itself
+     */
+    private final String         member;
+    /**
+     * The version callers were compiled against
+     */
+    private final ClassSignature compiledAgainst;
+    /**
+     * The version loaded at runtime
+     */
+    private final ClassSignature runtime;
+
+    public Incompatibility(Kind kind, String member, ClassSignature compiledAgainst,
+                           ClassSignature runtime) {
+        this.kind = kind;
+        this.member = member;
+        this.compiledAgainst = compiledAgainst;
+        this.runtime = runtime;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getMember() {
+        return member;
+    }
+
+    public ClassSignature getCompiledAgainst() {
+        return compiledAgainst;
+    }
+
+    public ClassSignature getRuntime() {
+        return runtime;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(runtime.getClassName());
+        if (member != null) {
+            sb.append('#').append(member);
+        }
+        sb.append(": ").append(kind.getDescription()).append(" (JLS ").append(kind.getSection());
+        if (kind.isBinaryIncompatible()) {
+            sb.append(", ").append(kind.getError());
+        }
+        return sb.append(") in ").append(runtime.getPathName()).append(" compared to ")
+                .append(compiledAgainst.getPathName()).toString();
+    }
+}
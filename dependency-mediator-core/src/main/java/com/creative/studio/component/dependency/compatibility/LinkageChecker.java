@@ -0,0 +1,535 @@
+package com.creative.studio.component.dependency.compatibility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Type;
+
+import com.creative.studio.component.dependency.CentralDirectory;
+import com.creative.studio.component.dependency.DirectoryWalker;
+import com.creative.studio.component.dependency.SymbolTable;
+import com.creative.studio.component.dependency.compatibility.LinkageReference.Kind;
+
+/**
+ * Finds the references which would throw NoClassDefFoundError,
+ * NoSuchFieldError or NoSuchMethodError on a classpath, before it runs:
+ * <p>
+ * 1. The declared members and the references of every class are extracted,
+ * one task per jar or directory.
+ * <p>
+ * 2. The classes are indexed in classpath order. Like the class loader, the
+ * platform classes come first, and the first class of a name on the classpath
+ * shadows the later ones, whose references are dropped.
+ * <p>
+ * 3. The references of the remaining classes are resolved, again one task per
+ * jar or directory. Fields and methods are looked up in the owner and its
+ * supertypes, like the JVM does (JVMS 5.4.3).
+ * <p>
+ * Platform classes are the ones of the JVM running the check, unless a boot
+ * classpath of the release the classpath targets is given. Platform classes
+ * of the running JVM which ASM can not parse are read by reflection. References
+ * to the members of a classpath class,which has a supertype that can not be
+ * parsed, are reported as unknown,unless the member is found in a class that
+ * can. Access checks are not done.
+ * <p>
+ * Class names and member keys are interned to ids of a {@link SymbolTable},
+ * so the classes and their references are held as int and long arrays, and
+ * only the unresolved references become objects.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class LinkageChecker {
+
+    private static final ClassLinkage                 MISSING         = ClassLinkage.opaque(ClassLinkage.NONE);
+    private static final String                       META_INF        = "META-INF/";
+    private static final String                       CLASS_SUFFIX    = ".class";
+    private static final String                       MODULE_INFO     = "module-info.class";
+
+    private final ForkJoinPool                        pool;
+    private final ClassLoader                         platformLoader;
+    /**
+     * Jars of the platform classes,empty for the ones of the running JVM
+     */
+    private final List<File>                          bootClasspath;
+    /**
+     * Reads the boot classpath during a check,null otherwise
+     */
+    private URLClassLoader                            bootLoader;
+    private final SymbolTable                         symbols         = new SymbolTable(1 << 16);
+    private final int                                 methodHandle;
+    private final int                                 varHandle;
+    private final ConcurrentMap<Integer, ClassLinkage> platformClasses = new ConcurrentHashMap<Integer, ClassLinkage>();
+    /**
+     * Resolution of a packed member reference
+     */
+    private final ConcurrentMap<Long, Resolution>     resolvedMembers = new ConcurrentHashMap<Long, Resolution>();
+    /**
+     * Classpath classes by name id,null where there is none
+     */
+    private ClassLinkage[]                            index;
+
+    /**
+     * Whether a reference resolves,or could not be checked
+     */
+    private enum Resolution {
+        RESOLVED,
+        UNRESOLVED,
+        UNKNOWN
+    }
+
+    /**
+     * @param pool the pool where the jars are processed
+     */
+    public LinkageChecker(ForkJoinPool pool) {
+        this(pool, Collections.<File> emptyList());
+    }
+
+    /**
+     * @param pool the pool where the jars are processed
+     * @param bootClasspath jars of the platform classes of the release the
+     *            classpath targets,such as the rt.jar of its JDK,or none for
+     *            the platform classes of the running JVM
+     */
+    public LinkageChecker(ForkJoinPool pool, List<File> bootClasspath) {
+        this.pool = pool;
+        this.bootClasspath = bootClasspath;
+        //Parent of the application class loader,which sees the platform classes only
+        ClassLoader parent = ClassLoader.getSystemClassLoader().getParent();
+        this.platformLoader = parent != null ? parent : new ClassLoader(null) {
+        };
+        this.methodHandle = symbols.intern("java/lang/invoke/MethodHandle");
+        this.varHandle = symbols.intern("java/lang/invoke/VarHandle");
+    }
+
+    /**
+     * @param classpath jars, class directories and class files, in classpath
+     *            order
+     * @return the unresolved references, and the unknown ones,see
+     *         {@link LinkageReference#isUnknown()},in classpath order,each
+     *         one once per jar or directory
+     */
+    public List<LinkageReference> check(List<File> classpath) throws IOException {
+        if (bootClasspath.isEmpty()) {
+            return doCheck(classpath);
+        }
+        URL[] urls = new URL[bootClasspath.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = bootClasspath.get(i).toURI().toURL();
+        }
+        bootLoader = new URLClassLoader(urls, null);
+        try {
+            return doCheck(classpath);
+        } finally {
+            bootLoader.close();
+            bootLoader = null;
+        }
+    }
+
+    private List<LinkageReference> doCheck(List<File> classpath) throws IOException {
+        List<Integer> jars = new ArrayList<Integer>();
+        for (int i = 0; i < classpath.size(); i++) {
+            jars.add(i);
+        }
+        final List<File> files = classpath;
+        final List<List<ClassLinkage>> classes = invokeAll(jars,
+                new Phase<List<ClassLinkage>>() {
+                    public List<ClassLinkage> run(int jar) {
+                        try {
+                            return extract(files.get(jar));
+                        } catch (IOException e) {
+                            //Unreadable jars are left out,like the scan does
+                            e.printStackTrace();
+                            return new ArrayList<ClassLinkage>();
+                        }
+                    }
+                });
+        ClassLinkage[] classIndex = new ClassLinkage[symbols.size()];
+        for (List<ClassLinkage> jarClasses : classes) {
+            for (ClassLinkage linkage : jarClasses) {
+                if (classIndex[linkage.name] != null
+                        || findPlatformClass(linkage.name) != MISSING) {
+                    linkage.clearReferences();
+                } else {
+                    classIndex[linkage.name] = linkage;
+                }
+            }
+        }
+        index = classIndex;
+        resolvedMembers.clear();
+        List<Collection<LinkageReference>> unresolved = invokeAll(jars,
+                new Phase<Collection<LinkageReference>>() {
+                    public Collection<LinkageReference> run(int jar) {
+                        return resolve(files.get(jar).getPath(), classes.get(jar));
+                    }
+                });
+        List<LinkageReference> result = new ArrayList<LinkageReference>();
+        for (Collection<LinkageReference> jarUnresolved : unresolved) {
+            result.addAll(jarUnresolved);
+        }
+        return result;
+    }
+
+    /**
+     * Work of a phase on the jar or directory of the given classpath index
+     */
+    private interface Phase<T> {
+        T run(int jar);
+    }
+
+    private <T> List<T> invokeAll(List<Integer> jars, final Phase<T> phase) throws IOException {
+        List<Callable<T>> tasks = new ArrayList<Callable<T>>();
+        for (final Integer jar : jars) {
+            tasks.add(new Callable<T>() {
+                public T call() {
+                    return phase.run(jar);
+                }
+            });
+        }
+        List<T> results = new ArrayList<T>();
+        for (Future<T> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Linkage check interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private List<ClassLinkage> extract(File file) throws IOException {
+        List<ClassLinkage> classes = new ArrayList<ClassLinkage>();
+        LinkageVisitor visitor = new LinkageVisitor(symbols);
+        if (file.isDirectory()) {
+            for (File classFile : new DirectoryWalker(file).walk()) {
+                String path = classFile.getPath();
+                if (path.endsWith(CLASS_SUFFIX)) {
+                    String relative = file.toPath().relativize(classFile.toPath()).toString();
+                    classes.add(parse(relative.replace(File.separatorChar, '/'),
+                            readFully(new FileInputStream(classFile)), visitor));
+                }
+            }
+            return classes;
+        }
+        if (file.getName().endsWith(CLASS_SUFFIX)) {
+            classes.add(parse(file.getName(), readFully(new FileInputStream(file)), visitor));
+            return classes;
+        }
+        CentralDirectory directory;
+        try {
+            directory = CentralDirectory.open(file);
+        } catch (IOException e) {
+            return extractJarFile(file, visitor);
+        }
+        try {
+            for (int i = 0; i < directory.size(); i++) {
+                if (isClassEntry(directory, i)) {
+                    classes.add(parse(directory.getEntryName(i), directory.read(i), visitor));
+                }
+            }
+        } finally {
+            directory.close();
+        }
+        return classes;
+    }
+
+    private List<ClassLinkage> extractJarFile(File file, LinkageVisitor visitor)
+            throws IOException {
+        List<ClassLinkage> classes = new ArrayList<ClassLinkage>();
+        JarFile jarFile = new JarFile(file);
+        try {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry jarEntry = entries.nextElement();
+                String entryName = jarEntry.getName();
+                if (entryName.endsWith(CLASS_SUFFIX) && !entryName.startsWith(META_INF)
+                        && !entryName.equals(MODULE_INFO)) {
+                    classes.add(parse(entryName, readFully(jarFile.getInputStream(jarEntry)),
+                            visitor));
+                }
+            }
+        } finally {
+            jarFile.close();
+        }
+        return classes;
+    }
+
+    /**
+     * Versioned classes of multi-release jars and module descriptors are not
+     * loaded from the classpath
+     */
+    private static boolean isClassEntry(CentralDirectory directory, int index) {
+        if (!directory.entryNameEndsWith(index, CLASS_SUFFIX)) {
+            return false;
+        }
+        String entryName = directory.getEntryName(index);
+        return !entryName.startsWith(META_INF) && !entryName.equals(MODULE_INFO);
+    }
+
+    private ClassLinkage parse(String entryName, byte[] bytes, LinkageVisitor visitor) {
+        try {
+            new ClassReader(bytes).accept(visitor, LinkageVisitor.PARSING_OPTIONS);
+            return visitor.getLinkage();
+        } catch (RuntimeException e) {
+            //Malformed,or newer than the class versions ASM knows
+            return ClassLinkage.opaque(symbols.intern(entryName.substring(0,
+                    entryName.length() - CLASS_SUFFIX.length())));
+        }
+    }
+
+    private Collection<LinkageReference> resolve(String pathName, List<ClassLinkage> classes) {
+        Set<Long> seen = new HashSet<Long>();
+        List<LinkageReference> unresolved = new ArrayList<LinkageReference>();
+        for (ClassLinkage linkage : classes) {
+            for (long reference : linkage.getReferences()) {
+                Resolution resolution = resolve(reference);
+                if (resolution != Resolution.RESOLVED && seen.add(reference)) {
+                    LinkageReference unresolvedReference = toReference(reference, linkage.name,
+                            resolution == Resolution.UNKNOWN);
+                    unresolvedReference.setPathName(pathName);
+                    unresolved.add(unresolvedReference);
+                }
+            }
+        }
+        return unresolved;
+    }
+
+    private LinkageReference toReference(long reference, int fromClass, boolean unknown) {
+        String owner = symbols.get(ClassLinkage.owner(reference));
+        int member = ClassLinkage.member(reference);
+        if (member == ClassLinkage.NONE) {
+            return new LinkageReference(Kind.CLASS, owner, null, null, symbols.get(fromClass),
+                    false);
+        }
+        String memberKey = symbols.get(member);
+        //Splits the key made by ClassSignature.methodKey or fieldKey
+        boolean method = ClassLinkage.isMethod(reference);
+        int split = memberKey.indexOf(method ? '(' : ':');
+        return new LinkageReference(method ? Kind.METHOD : Kind.FIELD, owner, memberKey.substring(
+                0, split), memberKey.substring(method ? split : split + 1), symbols.get(fromClass),
+                unknown);
+    }
+
+    private Resolution resolve(long reference) {
+        if (ClassLinkage.member(reference) == ClassLinkage.NONE) {
+            return findClass(ClassLinkage.owner(reference)) != MISSING ? Resolution.RESOLVED
+                    : Resolution.UNRESOLVED;
+        }
+        Resolution resolution = resolvedMembers.get(reference);
+        if (resolution == null) {
+            resolution = findMember(reference);
+            resolvedMembers.put(reference, resolution);
+        }
+        return resolution;
+    }
+
+    /**
+     * Look the member up in the owner,then in its supertypes
+     */
+    private Resolution findMember(long reference) {
+        int member = ClassLinkage.member(reference);
+        Deque<Integer> pending = new ArrayDeque<Integer>();
+        Set<Integer> visited = new HashSet<Integer>();
+        pending.add(ClassLinkage.owner(reference));
+        boolean unknown = false;
+        while (!pending.isEmpty()) {
+            int name = pending.poll();
+            if (!visited.add(name)) {
+                continue;
+            }
+            ClassLinkage linkage = findClass(name);
+            if (linkage == MISSING) {
+                //The owner fails to load,which is reported by the class references
+                return Resolution.RESOLVED;
+            }
+            if (linkage.opaque) {
+                //Its members are not known,the other supertypes may still declare it
+                unknown = true;
+                continue;
+            }
+            if (linkage.declares(member)
+                    || (ClassLinkage.isMethod(reference) && isSignaturePolymorphic(linkage,
+                            member))) {
+                return Resolution.RESOLVED;
+            }
+            if (linkage.superName != ClassLinkage.NONE) {
+                pending.add(linkage.superName);
+            }
+            for (int iface : linkage.interfaces) {
+                pending.add(iface);
+            }
+        }
+        return unknown ? Resolution.UNKNOWN : Resolution.UNRESOLVED;
+    }
+
+    /**
+     * Methods like MethodHandle.invoke accept any descriptor,see JVMS 2.9
+     */
+    private boolean isSignaturePolymorphic(ClassLinkage linkage, int member) {
+        if (linkage.name != methodHandle && linkage.name != varHandle) {
+            return false;
+        }
+        String methodKey = symbols.get(member);
+        String prefix = methodKey.substring(0, methodKey.indexOf('(')) + "([Ljava/lang/Object;)";
+        for (int declared : linkage.members) {
+            if (symbols.get(declared).startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ClassLinkage findClass(int name) {
+        ClassLinkage linkage = findPlatformClass(name);
+        if (linkage == MISSING && name < index.length && index[name] != null) {
+            linkage = index[name];
+        }
+        return linkage;
+    }
+
+    private ClassLinkage findPlatformClass(int name) {
+        ClassLinkage linkage = platformClasses.get(name);
+        if (linkage != null) {
+            return linkage;
+        }
+        InputStream is = openPlatformClass(symbols.get(name) + CLASS_SUFFIX);
+        if (is == null) {
+            linkage = MISSING;
+        } else {
+            try {
+                ClassReader classReader = new ClassReader(readFully(is));
+                LinkageVisitor visitor = new LinkageVisitor(symbols);
+                //Only the members of platform classes are needed
+                classReader.accept(visitor, ClassReader.SKIP_CODE | LinkageVisitor.PARSING_OPTIONS);
+                linkage = visitor.getLinkage();
+                linkage.clearReferences();
+            } catch (IOException e) {
+                linkage = reflectPlatformClass(name);
+            } catch (RuntimeException e) {
+                //Newer than the class versions ASM knows
+                linkage = reflectPlatformClass(name);
+            }
+        }
+        ClassLinkage previous = platformClasses.putIfAbsent(name, linkage);
+        return previous == null ? linkage : previous;
+    }
+
+    /**
+     * @return the class file of the platform class,or null if there is none
+     */
+    private InputStream openPlatformClass(String resourceName) {
+        if (bootLoader == null) {
+            return platformLoader.getResourceAsStream(resourceName);
+        }
+        //Not delegated,the bootstrap loader would find the classes of the running JVM
+        URL url = bootLoader.findResource(resourceName);
+        try {
+            return url == null ? null : url.openStream();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The running JVM only has the platform classes of its own release
+     */
+    private ClassLinkage reflectPlatformClass(int name) {
+        return bootLoader == null ? reflect(name) : ClassLinkage.opaque(name);
+    }
+
+    /**
+     * Read the members of a platform class by reflection,without initializing
+     * it
+     */
+    ClassLinkage reflect(int name) {
+        Class<?> type;
+        try {
+            type = Class.forName(symbols.get(name).replace('/', '.'), false, platformLoader);
+        } catch (ClassNotFoundException e) {
+            return ClassLinkage.opaque(name);
+        } catch (LinkageError e) {
+            return ClassLinkage.opaque(name);
+        }
+        try {
+            Field[] fields = type.getDeclaredFields();
+            Method[] methods = type.getDeclaredMethods();
+            Constructor<?>[] constructors = type.getDeclaredConstructors();
+            int[] members = new int[fields.length + methods.length + constructors.length];
+            int n = 0;
+            for (Field field : fields) {
+                members[n++] = symbols.intern(ClassSignature.fieldKey(field.getName(),
+                        Type.getDescriptor(field.getType())));
+            }
+            for (Method method : methods) {
+                members[n++] = symbols.intern(ClassSignature.methodKey(method.getName(),
+                        Type.getMethodDescriptor(method)));
+            }
+            for (Constructor<?> constructor : constructors) {
+                members[n++] = symbols.intern(ClassSignature.methodKey("<init>",
+                        Type.getConstructorDescriptor(constructor)));
+            }
+            Arrays.sort(members);
+            Class<?>[] types = type.getInterfaces();
+            int[] interfaces = new int[types.length];
+            for (int i = 0; i < types.length; i++) {
+                interfaces[i] = symbols.intern(Type.getInternalName(types[i]));
+            }
+            Class<?> superType = type.getSuperclass();
+            return new ClassLinkage(name, superType == null ? ClassLinkage.NONE
+                    : symbols.intern(Type.getInternalName(superType)), interfaces,
+                    type.isInterface(), members, new long[0]);
+        } catch (LinkageError e) {
+            //A member type is missing
+            return ClassLinkage.opaque(name);
+        } catch (SecurityException e) {
+            return ClassLinkage.opaque(name);
+        }
+    }
+
+    SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                bytes.write(buffer, 0, n);
+            }
+            return bytes.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+}
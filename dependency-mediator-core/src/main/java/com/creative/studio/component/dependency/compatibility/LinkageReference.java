@@ -0,0 +1,142 @@
+package com.creative.studio.component.dependency.compatibility;
+
+/**
+ * A symbolic reference of a class to another class, or to a field or method
+ * of it, which the JVM resolves when the referencing code first runs
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public final class LinkageReference {
+
+    /**
+     * Kinds of references,with the error thrown when they do not resolve
+     */
+    public enum Kind {
+        CLASS("NoClassDefFoundError"),
+        FIELD("NoSuchFieldError"),
+        METHOD("NoSuchMethodError");
+
+        private final String error;
+
+        private Kind(String error) {
+            this.error = error;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    private final Kind    kind;
+    /**
+     * Internal name of the referenced class,or of the owner of the member
+     */
+    private final String  owner;
+    private final String  name;
+    private final String  desc;
+    /**
+     * Internal name of the referencing class
+     */
+    private final String  fromClass;
+    /**
+     * Whether the member could not be looked up,since a supertype of its
+     * owner can not be parsed
+     */
+    private final boolean unknown;
+    /**
+     * Jar or directory of the referencing class,set when it is resolved
+     */
+    private String        pathName;
+
+    LinkageReference(Kind kind, String owner, String name, String desc, String fromClass,
+                     boolean unknown) {
+        this.kind = kind;
+        this.owner = owner;
+        this.name = name;
+        this.desc = desc;
+        this.fromClass = fromClass;
+        this.unknown = unknown;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return the member name,null for class references
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the member descriptor,null for class references
+     */
+    public String getDesc() {
+        return desc;
+    }
+
+    public String getFromClass() {
+        return fromClass;
+    }
+
+    /**
+     * @return whether the reference may or may not resolve,it is not known
+     */
+    public boolean isUnknown() {
+        return unknown;
+    }
+
+    public String getPathName() {
+        return pathName;
+    }
+
+    void setPathName(String pathName) {
+        this.pathName = pathName;
+    }
+
+    /**
+     * References are equal if they refer to the same thing,from anywhere
+     */
+    @Override
+    public int hashCode() {
+        int result = kind.hashCode() * 31 + owner.hashCode();
+        result = result * 31 + (name == null ? 0 : name.hashCode());
+        return result * 31 + (desc == null ? 0 : desc.hashCode());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LinkageReference)) {
+            return false;
+        }
+        LinkageReference other = (LinkageReference) obj;
+        return kind == other.kind && owner.equals(other.owner)
+                && (name == null ? other.name == null : name.equals(other.name))
+                && (desc == null ? other.desc == null : desc.equals(other.desc));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(owner.replace('/', '.'));
+        if (kind == Kind.FIELD) {
+            sb.append('#').append(name).append(':').append(desc);
+        } else if (kind == Kind.METHOD) {
+            sb.append('#').append(name).append(desc);
+        }
+        sb.append(unknown ? " (unknown,possible " : " (").append(kind.getError())
+                .append(") referenced by ")
+                .append(fromClass.replace('/', '.'));
+        if (pathName != null) {
+            sb.append(" in ").append(pathName);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,210 @@
+package com.creative.studio.component.dependency.compatibility;
+
+import java.util.Arrays;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import com.creative.studio.component.dependency.SymbolTable;
+
+/**
+ * Collects the {@link ClassLinkage} of a class: the members it declares and
+ * the classes, fields and methods its code refers to. Method bodies are
+ * needed, but debug information and stack map frames are not, so the class
+ * should be read with {@link #PARSING_OPTIONS}.
+ * <p>
+ * The buffers are reused from class to class,so a visitor is used by one
+ * thread at a time.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+final class LinkageVisitor extends ClassVisitor {
+    static final int            PARSING_OPTIONS = ClassReader.SKIP_DEBUG
+                                                        | ClassReader.SKIP_FRAMES;
+
+    private final MethodVisitor methodVisitor   = new ReferenceMethodVisitor();
+    private final SymbolTable   symbols;
+    private int                 name;
+    private int                 superName;
+    private int[]               interfaces;
+    private boolean             isInterface;
+    private int[]               members         = new int[64];
+    private int                 memberCount;
+    private long[]              references      = new long[256];
+    private int                 referenceCount;
+    /**
+     * Open addressing set of the complement of the references found,0 if the
+     * slot is empty
+     */
+    private long[]              seen            = new long[512];
+
+    LinkageVisitor(SymbolTable symbols) {
+        super(Opcodes.ASM9);
+        this.symbols = symbols;
+    }
+
+    /**
+     * @return the linkage of the last visited class
+     */
+    ClassLinkage getLinkage() {
+        int[] sortedMembers = Arrays.copyOf(members, memberCount);
+        Arrays.sort(sortedMembers);
+        return new ClassLinkage(name, superName, interfaces, isInterface, sortedMembers,
+                Arrays.copyOf(references, referenceCount));
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName,
+                      String[] interfaces) {
+        this.name = symbols.intern(name);
+        this.superName = superName == null ? ClassLinkage.NONE : symbols.intern(superName);
+        this.interfaces = new int[interfaces == null ? 0 : interfaces.length];
+        for (int i = 0; i < this.interfaces.length; i++) {
+            this.interfaces[i] = symbols.intern(interfaces[i]);
+        }
+        this.isInterface = (access & Opcodes.ACC_INTERFACE) != 0;
+        memberCount = 0;
+        referenceCount = 0;
+        Arrays.fill(seen, 0L);
+        //Supertypes are loaded with the class
+        if (superName != null) {
+            addClass(superName);
+        }
+        if (interfaces != null) {
+            for (String iface : interfaces) {
+                addClass(iface);
+            }
+        }
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String desc, String signature,
+                                   Object value) {
+        addMember(symbols.intern(ClassSignature.fieldKey(name, desc)));
+        return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc, String signature,
+                                     String[] exceptions) {
+        addMember(symbols.intern(ClassSignature.methodKey(name, desc)));
+        return methodVisitor;
+    }
+
+    private void addMember(int member) {
+        if (memberCount == members.length) {
+            members = Arrays.copyOf(members, memberCount * 2);
+        }
+        members[memberCount++] = member;
+    }
+
+    /**
+     * Types in descriptors are not resolved by the linker,only classes which
+     * are instantiated, cast to, or own a member are
+     */
+    private void addClass(String internalName) {
+        if (internalName.charAt(0) == '[') {
+            Type elementType = Type.getType(internalName).getElementType();
+            if (elementType.getSort() != Type.OBJECT) {
+                return;
+            }
+            internalName = elementType.getInternalName();
+        }
+        int owner = symbols.intern(internalName);
+        if (owner != name) {
+            addReference(ClassLinkage.classReference(owner));
+        }
+    }
+
+    private void addReference(long reference) {
+        //Owner ids are not negative,so the complement is never 0
+        if (!add(seen, ~reference)) {
+            return;
+        }
+        if (referenceCount == references.length) {
+            references = Arrays.copyOf(references, referenceCount * 2);
+        }
+        references[referenceCount++] = reference;
+        //Keep the set at most half full
+        if (referenceCount * 2 > seen.length) {
+            seen = new long[seen.length * 2];
+            for (int i = 0; i < referenceCount; i++) {
+                add(seen, ~references[i]);
+            }
+        }
+    }
+
+    /**
+     * @return whether the key was not in the set yet
+     */
+    private static boolean add(long[] set, long key) {
+        int mask = set.length - 1;
+        int h = (int) (key ^ (key >>> 32)) * 0x9e3779b9;
+        int i = (h ^ (h >>> 16)) & mask;
+        while (set[i] != 0) {
+            if (set[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        set[i] = key;
+        return true;
+    }
+
+    private final class ReferenceMethodVisitor extends MethodVisitor {
+        private ReferenceMethodVisitor() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            addClass(type);
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String desc) {
+            addMemberReference(owner, ClassSignature.fieldKey(name, desc), false);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String desc, boolean itf) {
+            addMemberReference(owner, ClassSignature.methodKey(name, desc), true);
+        }
+
+        @Override
+        public void visitLdcInsn(Object cst) {
+            if (cst instanceof Type) {
+                Type type = (Type) cst;
+                if (type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY) {
+                    addClass(type.getInternalName());
+                }
+            }
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String desc, int dims) {
+            addClass(desc);
+        }
+
+        @Override
+        public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+            if (type != null) {
+                addClass(type);
+            }
+        }
+
+        private void addMemberReference(String owner, String memberKey, boolean method) {
+            addClass(owner);
+            //Members of arrays are the ones of Object
+            if (owner.charAt(0) != '[') {
+                addReference(ClassLinkage.memberReference(symbols.intern(owner),
+                        symbols.intern(memberKey), method));
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.creative.studio.component.dependency.daemon;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+import com.creative.studio.component.dependency.SystemPropertyUtils;
+
+/**
+ * Client of a {@link MediatorDaemon}, found through its daemon file
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class MediatorClient {
+
+    private final File daemonFile;
+    private final int  timeout;
+
+    /**
+     * @param timeout milliseconds to wait for the daemon,zero for ever
+     */
+    public MediatorClient(File daemonFile, int timeout) {
+        this.daemonFile = daemonFile;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return whether a daemon answers
+     */
+    public boolean isRunning() {
+        try {
+            return "PONG".equals(request("PING"));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check the classpath and copy the records of the response to the stream
+     *
+     * @param compatible whether to check the compatibility of the conflicting
+     *            classes as well
+     * @return number of records
+     */
+    public int check(List<File> classpath, boolean compatible, OutputStream out)
+            throws IOException {
+        return check(classpath, compatible, null, null, out);
+    }
+
+    /**
+     * Same as {@link #check(List, boolean, OutputStream)}, but scans the jars
+     * with the given fingerprint options
+     *
+     * @param mode how the jars are fingerprinted,null for the one of the
+     *            daemon
+     * @param algorithm the hash function of the digests,null for the one of
+     *            the daemon
+     */
+    public int check(List<File> classpath, boolean compatible, FingerprintMode mode,
+                     DigestAlgorithm algorithm, OutputStream out) throws IOException {
+        StringBuilder sb = new StringBuilder(compatible ? "CHECK compatible" : "CHECK");
+        if (mode != null) {
+            sb.append(" fingerprint=").append(mode.getValue());
+        }
+        if (algorithm != null) {
+            sb.append(" digest=").append(algorithm.getValue());
+        }
+        for (File file : classpath) {
+            sb.append('\n').append(file.getAbsolutePath());
+        }
+        //An empty line ends the classpath
+        sb.append("\n\n");
+        Socket socket = connect(sb.toString());
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), "UTF-8"));
+            Writer writer = new OutputStreamWriter(out, "UTF-8");
+            int records = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("ERROR")) {
+                    throw new IOException(line);
+                }
+                writer.write(line);
+                writer.write('\n');
+                records++;
+            }
+            writer.flush();
+            return records;
+        } finally {
+            socket.close();
+        }
+    }
+
+    public String stats() throws IOException {
+        return request("STATS");
+    }
+
+    public void stop() throws IOException {
+        request("STOP");
+    }
+
+    /**
+     * @return the whole response
+     */
+    private String request(String command) throws IOException {
+        Socket socket = connect(command + "\n");
+        try {
+            StringBuilder sb = new StringBuilder();
+            InputStream in = socket.getInputStream();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("ERROR")) {
+                    throw new IOException(line);
+                }
+                sb.append(sb.length() == 0 ? "" : "\n").append(line);
+            }
+            return sb.toString();
+        } finally {
+            socket.close();
+        }
+    }
+
+    private Socket connect(String request) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(
+                daemonFile), "UTF-8"));
+        int port;
+        String token;
+        try {
+            port = Integer.parseInt(reader.readLine());
+            token = reader.readLine();
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid daemon file " + daemonFile, e);
+        } finally {
+            reader.close();
+        }
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        try {
+            socket.setSoTimeout(timeout);
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), "UTF-8");
+            writer.write(token + "\n" + request);
+            writer.flush();
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Check the classpath given as arguments,each of them a path or a list of
+     * paths, with the daemon,or run one of its commands with -Dcommand. The
+     * fingerprint mode and digest algorithm of the check are taken from
+     * -Dfingerprint and -Ddigest,the ones of the daemon if absent.
+     */
+    public static void main(String args[]) {
+        String daemonFile = SystemPropertyUtils.get("daemonFile");
+        MediatorClient client = new MediatorClient(daemonFile == null ? MediatorDaemon.DEFAULT_DAEMON_FILE
+                : new File(daemonFile), SystemPropertyUtils.getInt("daemonTimeout", 0));
+        String command = SystemPropertyUtils.get("command", "check");
+        try {
+            if ("stats".equals(command)) {
+                System.out.println(client.stats());
+            } else if ("stop".equals(command)) {
+                client.stop();
+            } else {
+                List<File> classpath = new ArrayList<File>();
+                for (String arg : args) {
+                    for (String path : arg.split(File.pathSeparator)) {
+                        if (!path.isEmpty()) {
+                            classpath.add(new File(path));
+                        }
+                    }
+                }
+                String mode = SystemPropertyUtils.get("fingerprint");
+                String algorithm = SystemPropertyUtils.get("digest");
+                client.check(classpath, SystemPropertyUtils.getBoolean("checkCompatible", false),
+                        mode == null ? null : FingerprintMode.fromString(mode),
+                        algorithm == null ? null : DigestAlgorithm.fromString(algorithm),
+                        System.out);
+            }
+        } catch (IOException e) {
+            System.err.println("No dependency mediator daemon answered: " + e.getMessage()
+                    + ",start one with -Ddaemon=true");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.creative.studio.component.dependency.daemon;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.creative.studio.component.dependency.ComponentContainer;
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.DependencyMediator;
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+import com.creative.studio.component.dependency.ScanSettings;
+import com.creative.studio.component.dependency.cache.SessionIndex;
+import com.creative.studio.component.dependency.report.ReportFormat;
+import com.creative.studio.component.dependency.report.ReportWriter;
+
+/**
+ * Resident checker, which keeps the class tables of the jars it has seen in a
+ * {@link SessionIndex}, so checking a classpath again only costs the jars
+ * which changed and the classes directories.
+ * <p>
+ * The daemon only listens on the loopback address. Its port and a random
+ * token, readable by its user only, are written to the daemon file, and every
+ * request starts with the token. A connection carries one request of UTF-8
+ * lines:
+ *
+ * <pre>
+ * token
+ * CHECK [compatible] [fingerprint=lazy|crc|digest] [digest=md5|...]
+ *                       followed by the classpath,one entry per line,and an empty line
+ * STATS | PING | STOP
+ * </pre>
+ *
+ * A check is scanned with the settings of the daemon, but the fingerprint
+ * mode and digest algorithm it asks for. The response of a check is its
+ * conflicts, and incompatibilities when asked for, as
+ * {@link ReportFormat#NDJSON} records. Other responses are plain lines, and
+ * failures a line starting with <code>ERROR</code>. The connection is closed
+ * at the end of the response.
+ * <p>
+ * Once the index holds more class tables than allowed, it is replaced by an
+ * empty one, which drops the interned class names with the tables. Checks
+ * still running finish with the index they started with.
+ * <p>
+ * The daemon is reached through {@link MediatorClient} and its command line
+ * only. The plugin checks in the build JVM, with a session index of its own.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class MediatorDaemon implements Closeable {
+
+    public static final File      DEFAULT_DAEMON_FILE = new File(System.getProperty("user.home"),
+                                                              ".dependency-mediator/daemon");
+
+    /**
+     * Time a client has to send its request
+     */
+    private static final int      REQUEST_TIMEOUT     = 30000;
+    private static final String   FINGERPRINT_OPTION  = "fingerprint=";
+    private static final String   DIGEST_OPTION       = "digest=";
+
+    private final ServerSocket    server;
+    private final File            daemonFile;
+    private final String          token;
+    private final int             maxJars;
+    private volatile SessionIndex index               = new SessionIndex();
+    private final ScanSettings    settings;
+    private final ExecutorService workers;
+
+    /**
+     * @param port the loopback port,zero for any free port
+     * @param daemonFile where the port and token are written
+     * @param threads number of requests served at the same time
+     * @param maxJars number of class tables above which they are all dropped
+     * @param settings the settings checks are scanned with,but the options
+     *            of the request
+     */
+    public MediatorDaemon(int port, File daemonFile, int threads, int maxJars,
+                          ScanSettings settings) throws IOException {
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.daemonFile = daemonFile;
+        this.token = newToken();
+        this.maxJars = maxJars;
+        this.settings = settings;
+        this.workers = Executors.newFixedThreadPool(threads);
+        try {
+            writeDaemonFile();
+        } catch (IOException e) {
+            server.close();
+            workers.shutdown();
+            throw e;
+        }
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Serve requests until the daemon is stopped
+     */
+    public void run() {
+        try {
+            while (!server.isClosed()) {
+                final Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketException e) {
+                    //Closed by a stop request
+                    break;
+                } catch (IOException e) {
+                    //Only this connection is lost,its client gets an error
+                    continue;
+                }
+                workers.execute(new Runnable() {
+                    public void run() {
+                        handle(socket);
+                    }
+                });
+            }
+        } finally {
+            close();
+        }
+    }
+
+    public void close() {
+        try {
+            server.close();
+        } catch (IOException e) {
+            //Stopping anyway
+        }
+        workers.shutdown();
+        daemonFile.delete();
+    }
+
+    private void handle(Socket socket) {
+        try {
+            socket.setSoTimeout(REQUEST_TIMEOUT);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), "UTF-8"));
+            OutputStream out = socket.getOutputStream();
+            String line = reader.readLine();
+            if (!token.equals(line)) {
+                writeLines(out, "ERROR invalid token");
+                return;
+            }
+            String command = reader.readLine();
+            if (command == null) {
+                return;
+            }
+            String[] options = command.split(" +");
+            if ("CHECK".equals(options[0])) {
+                ScanSettings checkSettings = settings;
+                boolean compatible = false;
+                for (int i = 1; i < options.length; i++) {
+                    if ("compatible".equals(options[i])) {
+                        compatible = true;
+                        continue;
+                    }
+                    checkSettings = withOption(checkSettings, options[i]);
+                    if (checkSettings == null) {
+                        writeLines(out, "ERROR unknown option " + options[i]);
+                        return;
+                    }
+                }
+                List<File> classpath = new ArrayList<File>();
+                while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                    classpath.add(new File(line));
+                }
+                check(classpath, compatible, out, checkSettings);
+            } else if ("STATS".equals(command)) {
+                SessionIndex current = index;
+                writeLines(out, String.format("%d jars, %d scanned, %d reused", current.size(),
+                        current.getMisses(), current.getHits()), settings.getMetrics()
+                        .toString());
+            } else if ("PING".equals(command)) {
+                writeLines(out, "PONG");
+            } else if ("STOP".equals(command)) {
+                writeLines(out, "STOPPED");
+                server.close();
+            } else {
+                writeLines(out, "ERROR unknown command " + command);
+            }
+        } catch (Exception e) {
+            try {
+                writeLines(socket.getOutputStream(), "ERROR " + e);
+            } catch (IOException ignore) {
+                //The client is gone
+            }
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //Already closed
+            }
+        }
+    }
+
+    /**
+     * @return the settings with the fingerprint mode or digest algorithm of
+     *         the option,or null if the option is unknown
+     */
+    private static ScanSettings withOption(ScanSettings settings, String option) {
+        if (option.startsWith(FINGERPRINT_OPTION)) {
+            FingerprintMode mode = FingerprintMode.fromString(option
+                    .substring(FINGERPRINT_OPTION.length()));
+            return mode == null ? null : settings.withFingerprintMode(mode);
+        }
+        if (option.startsWith(DIGEST_OPTION)) {
+            DigestAlgorithm algorithm = DigestAlgorithm.fromString(option.substring(DIGEST_OPTION
+                    .length()));
+            return algorithm == null ? null : settings.withDigestAlgorithm(algorithm);
+        }
+        return null;
+    }
+
+    private void check(List<File> classpath, boolean compatible, OutputStream out,
+                       ScanSettings checkSettings) throws IOException {
+        SessionIndex current = index;
+        Map<String, List<ComponentEntry>> conflicts = current.getConflicts(classpath,
+                checkSettings);
+        if (current.size() > maxJars) {
+            synchronized (this) {
+                //A new evaluator too,whose symbol table does not hold the dropped names
+                if (index == current) {
+                    index = new SessionIndex();
+                }
+            }
+        }
+        ReportWriter writer = ReportFormat.NDJSON.open(out);
+        try {
+            ComponentContainer container = new ComponentContainer();
+            for (Entry<String, List<ComponentEntry>> entry : conflicts.entrySet()) {
+                writer.writeConflict(entry.getKey(), entry.getValue());
+                for (ComponentEntry cEntry : entry.getValue()) {
+                    container.put(entry.getKey(), cEntry);
+                }
+            }
+            if (compatible && !conflicts.isEmpty()) {
+                DependencyMediator.report(
+                        DependencyMediator.processCompatible(container, checkSettings), writer);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void writeLines(OutputStream out, String... lines) throws IOException {
+        Writer writer = new OutputStreamWriter(out, "UTF-8");
+        for (String line : lines) {
+            writer.write(line);
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Write the port and the token for the clients,readable by the user only
+     */
+    private void writeDaemonFile() throws IOException {
+        File directory = daemonFile.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File tempFile = File.createTempFile("daemon", ".tmp", directory);
+        try {
+            tempFile.setReadable(false, false);
+            tempFile.setReadable(true, true);
+            Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), "UTF-8");
+            try {
+                writer.write(getPort() + "\n" + token + "\n");
+            } finally {
+                writer.close();
+            }
+            Files.move(tempFile.toPath(), daemonFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
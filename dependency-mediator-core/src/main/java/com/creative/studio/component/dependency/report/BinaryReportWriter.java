@@ -0,0 +1,129 @@
+package com.creative.studio.component.dependency.report;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.compatibility.Incompatibility;
+import com.creative.studio.component.dependency.compatibility.LinkageReference;
+
+/**
+ * Writes the records in a compact binary format. The stream starts with the
+ * magic <code>0x444d5250</code> and the version, followed by records, each a
+ * tag byte and its fields, and ends with the tag 0:
+ *
+ * <pre>
+ * 1 conflict        class, path count as varint, paths
+ * 2 incompatibility class, kind, member, runtime path, compiled against path
+ * 3 unresolved      kind, owner, name, desc, from class, path
+ * 4 unknown         same as unresolved,for a reference which could not be checked
+ * </pre>
+ *
+ * Strings are varints: 0 for null, the id plus one of a string written before,
+ * or else -1 followed by the modified UTF-8 of a new string, which takes the
+ * next id. So the jar paths repeated by most records are only written once.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+class BinaryReportWriter implements ReportWriter {
+
+    static final int                   MAGIC           = 0x444d5250;
+    static final int                   VERSION         = 1;
+    static final int                   END             = 0;
+    static final int                   CONFLICT        = 1;
+    static final int                   INCOMPATIBILITY = 2;
+    static final int                   UNRESOLVED      = 3;
+    static final int                   UNKNOWN         = 4;
+
+    private final DataOutputStream     out;
+    private final Map<String, Integer> strings         = new HashMap<String, Integer>();
+    private boolean                    started;
+
+    BinaryReportWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    @Override
+    public void writeConflict(String className, List<ComponentEntry> entries) throws IOException {
+        begin(CONFLICT);
+        writeString(className);
+        writeVarint(entries.size());
+        for (ComponentEntry cEntry : entries) {
+            writeString(cEntry.getPathName());
+        }
+        out.flush();
+    }
+
+    @Override
+    public void writeIncompatibility(String className, Incompatibility incompatibility)
+            throws IOException {
+        begin(INCOMPATIBILITY);
+        writeString(className);
+        writeString(incompatibility.getKind().name());
+        writeString(incompatibility.getMember());
+        writeString(incompatibility.getRuntime().getPathName());
+        writeString(incompatibility.getCompiledAgainst().getPathName());
+        out.flush();
+    }
+
+    @Override
+    public void writeUnresolved(LinkageReference reference) throws IOException {
+        begin(reference.isUnknown() ? UNKNOWN : UNRESOLVED);
+        writeString(reference.getKind().name());
+        writeString(reference.getOwner());
+        writeString(reference.getName());
+        writeString(reference.getDesc());
+        writeString(reference.getFromClass());
+        writeString(reference.getPathName());
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            begin(END);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void begin(int tag) throws IOException {
+        if (!started) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            started = true;
+        }
+        out.writeByte(tag);
+    }
+
+    private void writeString(String s) throws IOException {
+        if (s == null) {
+            writeVarint(0);
+            return;
+        }
+        Integer id = strings.get(s);
+        if (id != null) {
+            writeVarint(id + 1);
+        } else {
+            strings.put(s, strings.size());
+            writeVarint(-1);
+            out.writeUTF(s);
+        }
+    }
+
+    /**
+     * Unsigned LEB128,so -1 takes five bytes
+     */
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
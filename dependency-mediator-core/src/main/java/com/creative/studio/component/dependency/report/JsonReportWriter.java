@@ -0,0 +1,159 @@
+package com.creative.studio.component.dependency.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.compatibility.Incompatibility;
+import com.creative.studio.component.dependency.compatibility.LinkageReference;
+
+/**
+ * Writes each record as a JSON object, either one per line, or as the
+ * elements of a JSON array. Records look like:
+ *
+ * <pre>
+ * {"type":"conflict","class":"a.B","paths":["x.jar:a/B.class","y.jar:a/B.class"]}
+ * {"type":"incompatibility","class":"a.B","kind":"METHOD_REMOVED","error":"NoSuchMethodError",
+ *  "member":"run()V","runtime":"x.jar:a/B.class","compiledAgainst":"y.jar:a/B.class"}
+ * {"type":"unresolved","kind":"METHOD","error":"NoSuchMethodError","owner":"a.B",
+ *  "name":"run","desc":"()V","from":"a.C","path":"z.jar"}
+ * </pre>
+ *
+ * References which could not be checked have the type <code>unknown</code>.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+class JsonReportWriter implements ReportWriter {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Writer         out;
+    private final boolean        lines;
+    private int                  count;
+
+    /**
+     * @param lines whether to write one record per line,instead of an array
+     */
+    JsonReportWriter(OutputStream out, boolean lines) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+        this.lines = lines;
+    }
+
+    @Override
+    public void writeConflict(String className, List<ComponentEntry> entries) throws IOException {
+        StringBuilder sb = begin("conflict");
+        field(sb, "class", className);
+        sb.append(",\"paths\":[");
+        for (int i = 0; i < entries.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            string(sb, entries.get(i).getPathName());
+        }
+        sb.append(']');
+        end(sb);
+    }
+
+    @Override
+    public void writeIncompatibility(String className, Incompatibility incompatibility)
+            throws IOException {
+        StringBuilder sb = begin("incompatibility");
+        field(sb, "class", className);
+        field(sb, "kind", incompatibility.getKind().name());
+        field(sb, "error", incompatibility.getKind().getError());
+        field(sb, "member", incompatibility.getMember());
+        field(sb, "runtime", incompatibility.getRuntime().getPathName());
+        field(sb, "compiledAgainst", incompatibility.getCompiledAgainst().getPathName());
+        end(sb);
+    }
+
+    @Override
+    public void writeUnresolved(LinkageReference reference) throws IOException {
+        StringBuilder sb = begin(reference.isUnknown() ? "unknown" : "unresolved");
+        field(sb, "kind", reference.getKind().name());
+        field(sb, "error", reference.getKind().getError());
+        field(sb, "owner", reference.getOwner().replace('/', '.'));
+        field(sb, "name", reference.getName());
+        field(sb, "desc", reference.getDesc());
+        field(sb, "from", reference.getFromClass().replace('/', '.'));
+        field(sb, "path", reference.getPathName());
+        end(sb);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!lines) {
+                out.write(count == 0 ? "[]\n" : "\n]\n");
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private StringBuilder begin(String type) {
+        StringBuilder sb = new StringBuilder(128);
+        if (!lines) {
+            sb.append(count == 0 ? "[\n" : ",\n");
+        }
+        sb.append("{\"type\":");
+        string(sb, type);
+        return sb;
+    }
+
+    private void end(StringBuilder sb) throws IOException {
+        sb.append('}');
+        if (lines) {
+            sb.append('\n');
+        }
+        out.write(sb.toString());
+        out.flush();
+        count++;
+    }
+
+    /**
+     * Null values are left out
+     */
+    private static void field(StringBuilder sb, String name, String value) {
+        if (value != null) {
+            sb.append(",\"").append(name).append("\":");
+            string(sb, value);
+        }
+    }
+
+    private static void string(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
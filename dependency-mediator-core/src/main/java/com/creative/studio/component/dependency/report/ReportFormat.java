@@ -0,0 +1,59 @@
+package com.creative.studio.component.dependency.report;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Machine readable formats of the check results
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public enum ReportFormat {
+    /**
+     * One JSON array of records
+     */
+    JSON("json"),
+    /**
+     * One JSON record per line
+     */
+    NDJSON("ndjson"),
+    /**
+     * Tagged binary records,with each string written once
+     */
+    BINARY("binary");
+
+    private String value;
+
+    ReportFormat(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * @return the file extension of the format
+     */
+    public String getExtension() {
+        return this == BINARY ? "bin" : value;
+    }
+
+    public ReportWriter open(OutputStream out) {
+        return this == BINARY ? new BinaryReportWriter(out) : new JsonReportWriter(out,
+                this == NDJSON);
+    }
+
+    private static Map<String, ReportFormat> stringToEnum = new HashMap<String, ReportFormat>();
+
+    static {
+        for (ReportFormat format : values()) {
+            stringToEnum.put(format.getValue(), format);
+        }
+    }
+
+    public static ReportFormat fromString(String value) {
+        return stringToEnum.get(value.toLowerCase());
+    }
+}
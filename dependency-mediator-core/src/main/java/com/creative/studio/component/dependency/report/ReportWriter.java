@@ -0,0 +1,38 @@
+package com.creative.studio.component.dependency.report;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.compatibility.Incompatibility;
+import com.creative.studio.component.dependency.compatibility.LinkageReference;
+
+/**
+ * Writes the results of a check as records, one at a time, so a reader can
+ * process them while the report is still being written. Each record is
+ * flushed as soon as it is written.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public interface ReportWriter extends Closeable {
+
+    /**
+     * @param entries the different versions of the class,in classpath order
+     */
+    void writeConflict(String className, List<ComponentEntry> entries) throws IOException;
+
+    void writeIncompatibility(String className, Incompatibility incompatibility)
+            throws IOException;
+
+    /**
+     * @param reference an unresolved reference,or an unknown one,see
+     *            {@link LinkageReference#isUnknown()}
+     */
+    void writeUnresolved(LinkageReference reference) throws IOException;
+
+    /**
+     * End the report and close the stream
+     */
+    void close() throws IOException;
+}
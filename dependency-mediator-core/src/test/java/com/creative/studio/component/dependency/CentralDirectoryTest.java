@@ -0,0 +1,261 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CentralDirectoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readStoredAndDeflatedEntries() throws IOException {
+        byte[] deflated = new byte[4096];
+        for (int i = 0; i < deflated.length; i++) {
+            deflated[i] = (byte) (i % 7);
+        }
+        byte[] stored = "stored content".getBytes("UTF-8");
+
+        File jar = folder.newFile("test.jar");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            out.putNextEntry(new ZipEntry("com/test/A.class"));
+            out.write(deflated);
+            out.closeEntry();
+
+            ZipEntry storedEntry = new ZipEntry("com/test/B.txt");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(stored.length);
+            storedEntry.setCrc(crc(stored));
+            out.putNextEntry(storedEntry);
+            out.write(stored);
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+
+        CentralDirectory directory = CentralDirectory.open(jar);
+        assertEquals(2, directory.size());
+        assertEquals("com/test/A.class", directory.getEntryName(0));
+        assertTrue(directory.entryNameEndsWith(0, ".class"));
+        assertFalse(directory.entryNameEndsWith(1, ".class"));
+        assertEquals(crc(deflated), directory.getCrc(0));
+        assertEquals(deflated.length, directory.getSize(0));
+        assertArrayEquals(deflated, directory.read(0));
+        assertArrayEquals(stored, directory.read(1));
+        assertEquals(1, directory.indexOf("com/test/B.txt"));
+        assertEquals(-1, directory.indexOf("com/test/C.class"));
+
+        directory.close();
+        try {
+            directory.read(0);
+            fail("Read after close");
+        } catch (ZipException e) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void rejectCorruptedEntries() throws IOException {
+        File jar = writeStoredJar("stored content");
+        //Same size,so only the CRC-32 tells
+        replace(jar, "stored", "STORED");
+        CentralDirectory directory = CentralDirectory.open(jar);
+        try {
+            directory.read(0);
+            fail("Invalid CRC-32 is not detected");
+        } catch (ZipException e) {
+            assertTrue(e.getMessage().contains("CRC-32"));
+        } finally {
+            directory.close();
+        }
+    }
+
+    @Test
+    public void rejectEncryptedEntries() throws IOException {
+        File jar = writeStoredJar("stored content");
+        RandomAccessFile raf = new RandomAccessFile(jar, "rw");
+        try {
+            int cen = indexOf(jar, new byte[] { 0x50, 0x4b, 0x01, 0x02 });
+            raf.seek(cen + 8);
+            raf.write(1);
+        } finally {
+            raf.close();
+        }
+        CentralDirectory directory = CentralDirectory.open(jar);
+        try {
+            directory.read(0);
+            fail("Encrypted entry is read");
+        } catch (ZipException e) {
+            assertTrue(e.getMessage().contains("Encrypted"));
+        } finally {
+            directory.close();
+        }
+    }
+
+    @Test
+    public void rejectUnsupportedArchives() throws IOException {
+        File jar = writeStoredJar("stored content");
+        RandomAccessFile raf = new RandomAccessFile(jar, "rw");
+        try {
+            //Central directory offset of a ZIP64 archive
+            int eocd = indexOf(jar, new byte[] { 0x50, 0x4b, 0x05, 0x06 });
+            raf.seek(eocd + 16);
+            raf.writeInt(0xffffffff);
+        } finally {
+            raf.close();
+        }
+        assertOpenFails(jar);
+
+        File truncated = writeStoredJar("stored content");
+        raf = new RandomAccessFile(truncated, "rw");
+        try {
+            raf.setLength(raf.length() - 10);
+        } finally {
+            raf.close();
+        }
+        assertOpenFails(truncated);
+
+        File overlong = writeStoredJar("stored content");
+        raf = new RandomAccessFile(overlong, "rw");
+        try {
+            //Name length running past the end of central directory
+            int cen = indexOf(overlong, new byte[] { 0x50, 0x4b, 0x01, 0x02 });
+            raf.seek(cen + 28);
+            raf.write(new byte[] { (byte) 0xff, (byte) 0xff });
+        } finally {
+            raf.close();
+        }
+        assertOpenFails(overlong);
+
+        File garbage = folder.newFile("garbage.jar");
+        FileOutputStream out = new FileOutputStream(garbage);
+        try {
+            out.write(new byte[64]);
+        } finally {
+            out.close();
+        }
+        assertOpenFails(garbage);
+    }
+
+    @Test
+    public void closeWhileReading() throws Exception {
+        final CentralDirectory directory = CentralDirectory.open(writeStoredJar("stored content"));
+        final CountDownLatch reading = new CountDownLatch(4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws IOException {
+                        reading.countDown();
+                        int reads = 0;
+                        while (true) {
+                            try {
+                                directory.read(0);
+                                reads++;
+                            } catch (ZipException e) {
+                                //Only reads after close fail
+                                assertTrue(e.getMessage().contains("closed"));
+                                return reads;
+                            }
+                        }
+                    }
+                }));
+            }
+            reading.await();
+            directory.close();
+            for (Future<Integer> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void assertOpenFails(File jar) throws IOException {
+        try {
+            CentralDirectory.open(jar).close();
+            fail("Opened " + jar);
+        } catch (ZipException e) {
+            //Expected,callers fall back to JarFile
+        }
+    }
+
+    private File writeStoredJar(String content) throws IOException {
+        byte[] stored = content.getBytes("UTF-8");
+        File jar = folder.newFile();
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            ZipEntry storedEntry = new ZipEntry("com/test/A.class");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(stored.length);
+            storedEntry.setCrc(crc(stored));
+            out.putNextEntry(storedEntry);
+            out.write(stored);
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        return jar;
+    }
+
+    private static void replace(File file, String target, String replacement) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(indexOf(file, target.getBytes("UTF-8")));
+            raf.write(replacement.getBytes("UTF-8"));
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static int indexOf(File file, byte[] target) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            raf.readFully(bytes);
+        } finally {
+            raf.close();
+        }
+        for (int i = 0; i + target.length <= bytes.length; i++) {
+            int j = 0;
+            while (j < target.length && bytes[i + j] == target[j]) {
+                j++;
+            }
+            if (j == target.length) {
+                return i;
+            }
+        }
+        throw new AssertionError("Not found");
+    }
+
+    private static long crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+}
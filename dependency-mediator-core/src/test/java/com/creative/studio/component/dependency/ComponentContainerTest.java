@@ -0,0 +1,237 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ComponentContainerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void putKeepsDifferentDigestsOnly() {
+        ComponentContainer container = new ComponentContainer();
+        assertTrue(container.put("a.A", newEntry("a.A", "x.jar", 1)));
+        assertFalse(container.put("a.A", newEntry("a.A", "y.jar", 1)));
+        assertTrue(container.put("a.A", newEntry("a.A", "z.jar", 2)));
+        assertTrue(container.put("a.B", newEntry("a.B", "x.jar", 1)));
+
+        Map<String, List<ComponentEntry>> conflicts = container.getConflicts();
+        assertEquals(1, conflicts.size());
+        assertEquals("x.jar:a.A", conflicts.get("a.A").get(0).getPathName());
+        assertEquals("z.jar:a.A", conflicts.get("a.A").get(1).getPathName());
+        assertEquals(1, container.get("a.B").size());
+    }
+
+    @Test
+    public void replaceEntries() {
+        ComponentContainer container = new ComponentContainer();
+        ComponentEntry x = newEntry("a.A", "x.jar", 1);
+        ComponentEntry y = newEntry("a.A", "y.jar", 2);
+        ComponentEntry z = newEntry("a.A", "z.jar", 1);
+        container.put("a.A", x);
+
+        //Equal entries are dropped like put does
+        assertEquals(1, container.replace("a.A", Arrays.asList(y, x, z)).size());
+        assertEquals(Arrays.asList(y, x), container.get("a.A"));
+        assertEquals(2, container.getConflicts().get("a.A").size());
+        assertEquals(2, container.replace("a.A", Arrays.asList(x, z)).size());
+        assertEquals(Collections.singletonList(x), container.get("a.A"));
+        assertTrue(container.getConflicts().isEmpty());
+        container.replace("a.A", Collections.<ComponentEntry> emptyList());
+        assertFalse(container.contains("a.A"));
+
+        container.put("a.B", x);
+        container.put("a.B", y);
+        assertEquals(2, container.remove("a.B").size());
+        assertTrue(container.getConflicts().isEmpty());
+        assertEquals(0, container.size());
+    }
+
+    @Test
+    public void replaceIsAtomicForReaders() throws InterruptedException {
+        final ComponentContainer container = new ComponentContainer();
+        final List<ComponentEntry> one = Collections.singletonList(newEntry("a.A", "x.jar", 1));
+        final List<ComponentEntry> two = Arrays.asList(newEntry("a.A", "x.jar", 1),
+                newEntry("a.A", "y.jar", 2));
+        container.replace("a.A", one);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 100000; i++) {
+                    container.replace("a.A", i % 2 == 0 ? two : one);
+                }
+            }
+        };
+        writer.start();
+        try {
+            while (writer.isAlive()) {
+                //Never seen without entries while they are replaced
+                assertFalse(container.get("a.A").isEmpty());
+                List<ComponentEntry> conflict = container.getConflicts().get("a.A");
+                assertTrue(conflict == null || conflict.size() == 2);
+            }
+        } catch (Throwable e) {
+            failure.set(e);
+        }
+        writer.join();
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void crcEntriesAreDigestedBeforeCollapse() throws IOException {
+        //Jars which do not exist,comparing never reads them
+        ComponentContainer container = new ComponentContainer();
+        assertTrue(container.put("a.A", newCrcEntry("a.A", "x.jar", "same")));
+        assertTrue(container.put("a.A", newCrcEntry("a.A", "y.jar", "same")));
+        assertEquals(2, container.get("a.A").size());
+
+        container = new ComponentContainer();
+        container.put("a.A", newCrcEntry("a.A", writeJar("x.jar", "same"), "same"));
+        container.put("a.A", newCrcEntry("a.A", writeJar("y.jar", "same"), "same"));
+        container.put("a.A", newCrcEntry("a.A", writeJar("z.jar", "other"), "other"));
+        DependencyMediator.resolveDuplicates(container, ScanSettings.DEFAULT);
+        List<ComponentEntry> entries = container.getConflicts().get("a.A");
+        assertEquals(2, entries.size());
+        assertTrue(entries.get(0).isDigested());
+        //Told apart by CRC-32 alone
+        assertFalse(entries.get(1).isDigested());
+    }
+
+    @Test
+    public void concurrentPut() throws InterruptedException {
+        final ComponentContainer container = new ComponentContainer();
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int digest = t % 4;
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 1000; i++) {
+                        container.put("c" + i, newEntry("c" + i, "jar" + digest, digest));
+                    }
+                }
+            };
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(1000, container.size());
+        for (List<ComponentEntry> entries : container.getConflicts().values()) {
+            assertEquals(4, entries.size());
+        }
+        assertEquals(1000, container.getConflicts().size());
+    }
+
+    @Test
+    public void concurrentPutAndRemove() throws InterruptedException {
+        final ComponentContainer container = new ComponentContainer();
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] workers = new Thread[4];
+        for (int t = 0; t < workers.length; t++) {
+            final int digest = t;
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    try {
+                        for (int i = 0; i < 20000; i++) {
+                            String name = "c" + (i % 16);
+                            if (digest == 0 && i % 3 == 0) {
+                                container.remove(name);
+                            } else {
+                                container.put(name, newEntry(name, "jar" + digest, digest));
+                            }
+                            //Stale names of removed conflicts are never reported
+                            for (List<ComponentEntry> entries : container.getConflicts()
+                                    .values()) {
+                                assertTrue(entries.size() > 1);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            };
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertNull(failure.get());
+        container.collapse();
+        for (String name : container.keySet()) {
+            assertEquals(container.get(name).size() > 1, container.getConflicts()
+                    .containsKey(name));
+        }
+    }
+
+    private String writeJar(String jarName, String content) throws IOException {
+        File jar = folder.newFile(jarName);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            out.putNextEntry(new ZipEntry("a/A.class"));
+            out.write(content.getBytes("UTF-8"));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        return jar.getPath();
+    }
+
+    private static ComponentEntry newCrcEntry(String name, String jarName, String content)
+            throws IOException {
+        byte[] bytes = content.getBytes("UTF-8");
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ComponentEntry cEntry = new ComponentEntry(name, jarName, name.replace('.', '/')
+                + DependencyMediator.CLASS_SUFFIX);
+        cEntry.setCrc(crc.getValue());
+        cEntry.setSize(bytes.length);
+        return cEntry;
+    }
+
+    private static ComponentEntry newEntry(String name, String jarName, int digest) {
+        ComponentEntry cEntry = new ComponentEntry();
+        cEntry.setName(name);
+        cEntry.setJarName(jarName);
+        cEntry.setPathName(jarName + ":" + name);
+        cEntry.setDigest(new byte[] { (byte) digest });
+        return cEntry;
+    }
+}
@@ -0,0 +1,120 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConflictEvaluatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void bitmapOperations() {
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            //Sparse and dense chunks,across several chunk keys
+            BitSet a = randomSet(random, round % 2 == 0 ? 100 : 20000);
+            BitSet b = randomSet(random, round % 3 == 0 ? 30000 : 500);
+            ClassBitmap x = ClassBitmap.of(toArray(a));
+            ClassBitmap y = ClassBitmap.of(toArray(b));
+
+            BitSet or = (BitSet) a.clone();
+            or.or(b);
+            BitSet and = (BitSet) a.clone();
+            and.and(b);
+            assertTrue(Arrays.equals(toArray(or), x.or(y).toArray()));
+            assertTrue(Arrays.equals(toArray(and), x.and(y).toArray()));
+            assertEquals(and.cardinality(), y.and(x).cardinality());
+            int probe = random.nextInt(1 << 18);
+            assertEquals(a.get(probe), x.contains(probe));
+        }
+    }
+
+    @Test
+    public void sameConflictsAsContainer() throws IOException {
+        File root = folder.newFolder("lib");
+        List<File> jars = new ArrayList<File>();
+        for (int j = 0; j < 5; j++) {
+            File jar = new File(root, "lib" + j + ".jar");
+            ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+            try {
+                //Jars overlap on some classes,which differ in every other jar
+                for (int i = j * 10; i < j * 10 + 30; i++) {
+                    out.putNextEntry(new ZipEntry("com/test/C" + i + ".class"));
+                    out.write(("class " + i + (i % 2 == 1 ? "-" + j % 2 : "")).getBytes("UTF-8"));
+                    out.closeEntry();
+                }
+            } finally {
+                out.close();
+            }
+            jars.add(jar);
+        }
+
+        for (FingerprintMode mode : FingerprintMode.values()) {
+            assertSameConflictsAsContainer(jars, ScanSettings.DEFAULT.withFingerprintMode(mode));
+        }
+    }
+
+    private static void assertSameConflictsAsContainer(List<File> jars, ScanSettings settings)
+            throws IOException {
+        ComponentContainer container = new ComponentContainer();
+        ConflictEvaluator evaluator = new ConflictEvaluator();
+        List<ConflictEvaluator.IndexedJar> classpath = new ArrayList<ConflictEvaluator.IndexedJar>();
+        for (File jar : jars) {
+            DependencyMediator.processJarFile(jar, true, container, settings);
+            classpath.add(evaluator.index(jar.getPath(),
+                    DependencyMediator.readClassTable(jar, settings)));
+        }
+        DependencyMediator.resolveDuplicates(container, settings);
+
+        Map<String, List<ComponentEntry>> conflicts = evaluator.getConflicts(classpath, settings);
+        assertEquals(25, container.getConflicts().size());
+        assertEquals(container.getConflicts().keySet(), conflicts.keySet());
+        for (Map.Entry<String, List<ComponentEntry>> entry : conflicts.entrySet()) {
+            assertEquals(paths(container.get(entry.getKey())), paths(entry.getValue()));
+        }
+        //Jars next to each other differ on the odd classes they share
+        assertEquals(10, evaluator.getConflicts(classpath.subList(0, 2), settings).size());
+    }
+
+    private static BitSet randomSet(Random random, int count) {
+        BitSet set = new BitSet();
+        for (int i = 0; i < count; i++) {
+            set.set(random.nextInt(1 << 18));
+        }
+        return set;
+    }
+
+    private static int[] toArray(BitSet set) {
+        int[] ids = new int[set.cardinality()];
+        int n = 0;
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+            ids[n++] = i;
+        }
+        return ids;
+    }
+
+    private static List<String> paths(List<ComponentEntry> entries) {
+        List<String> paths = new ArrayList<String>();
+        for (ComponentEntry cEntry : entries) {
+            paths.add(cEntry.getPathName());
+        }
+        return paths;
+    }
+}
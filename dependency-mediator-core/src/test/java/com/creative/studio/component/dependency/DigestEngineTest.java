@@ -0,0 +1,116 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DigestEngineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void knownDigests() throws IOException {
+        DigestEngine engine = DigestEngine.get();
+        assertEquals("e3069283", digest(DigestAlgorithm.CRC32C, "123456789"));
+        assertEquals("ef46db3751d8e999", digest(DigestAlgorithm.XXHASH64, ""));
+        assertEquals("44bc2cf5ad770999", digest(DigestAlgorithm.XXHASH64, "abc"));
+        assertEquals("900150983cd24fb0d6963f7d28e17f72", digest(DigestAlgorithm.MD5, "abc"));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                digest(DigestAlgorithm.SHA256, "abc"));
+
+        //Hashers are reset after every digest
+        assertEquals("e3069283", digest(DigestAlgorithm.CRC32C, "123456789"));
+        assertEquals(engine, DigestEngine.get());
+    }
+
+    @Test
+    public void streamedLargeInput() throws IOException {
+        byte[] data = data();
+        DigestEngine engine = DigestEngine.get();
+        assertEquals("c333c0bff6f9efdb",
+                hex(engine.digest(DigestAlgorithm.XXHASH64, new ChunkedInputStream(data))));
+        assertEquals("d351be60",
+                hex(engine.digest(DigestAlgorithm.CRC32C, new ChunkedInputStream(data))));
+        for (DigestAlgorithm algorithm : DigestAlgorithm.values()) {
+            assertEquals(algorithm.getValue(), hex(engine.digest(algorithm, data, 0, data.length)),
+                    hex(engine.digest(algorithm, new ChunkedInputStream(data))));
+        }
+    }
+
+    @Test
+    public void centralDirectoryEntries() throws IOException {
+        byte[] data = data();
+        File jar = folder.newFile("test.jar");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            out.putNextEntry(new ZipEntry("com/test/A.class"));
+            out.write(data);
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        CentralDirectory directory = CentralDirectory.open(jar);
+        DigestEngine engine = DigestEngine.get();
+        for (DigestAlgorithm algorithm : DigestAlgorithm.values()) {
+            assertEquals(algorithm.getValue(), hex(engine.digest(algorithm, data, 0, data.length)),
+                    hex(engine.digest(algorithm, directory, 0)));
+        }
+    }
+
+    private static String digest(DigestAlgorithm algorithm, String text) throws IOException {
+        byte[] bytes = text.getBytes("UTF-8");
+        return hex(DigestEngine.get().digest(algorithm, bytes, 0, bytes.length));
+    }
+
+    /**
+     * @return more than a pooled buffer of data
+     */
+    private static byte[] data() {
+        byte[] data = new byte[100003];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31 + 7);
+        }
+        return data;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the data in odd sized chunks, like inflater streams do
+     */
+    private static final class ChunkedInputStream extends ByteArrayInputStream {
+
+        private int chunk = 1;
+
+        ChunkedInputStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            chunk = chunk % 97 + 13;
+            return super.read(b, off, Math.min(len, chunk));
+        }
+
+        @Override
+        public int read(byte[] b) throws IOException {
+            return read(b, 0, b.length);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryWalkerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws IOException {
+        for (String path : new String[] { "a/lib/one.jar", "a/lib/one-sources.jar",
+                "a/classes/com/A.class", "a/classes/com/A$1.class", "b/two.JAR", "b/readme.txt",
+                "skip/three.jar" }) {
+            File file = new File(folder.getRoot(), path);
+            file.getParentFile().mkdirs();
+            file.createNewFile();
+        }
+    }
+
+    @Test
+    public void walkAllJarsAndClasses() throws IOException {
+        assertWalk(new DirectoryWalker(folder.getRoot()), "a/classes/com/A$1.class",
+                "a/classes/com/A.class", "a/lib/one-sources.jar", "a/lib/one.jar", "b/two.JAR",
+                "skip/three.jar");
+    }
+
+    @Test
+    public void walkWithGlobs() throws IOException {
+        assertWalk(new DirectoryWalker(folder.getRoot(), Arrays.asList("**/*.jar", "**/*.JAR"),
+                Arrays.asList("skip", "**/*-sources.jar")), "a/lib/one.jar", "b/two.JAR");
+    }
+
+    @Test
+    public void processDirectoryOrder() throws IOException {
+        List<File> files = DependencyMediator.processDirectory(folder.getRoot());
+        List<String> names = new ArrayList<String>();
+        for (File file : files) {
+            names.add(file.getName());
+        }
+        //Outer classes come before inner classes
+        assertEquals(Arrays.asList("A.class", "one.jar", "two.JAR", "A$1.class", "three.jar",
+                "one-sources.jar"), names);
+    }
+
+    private void assertWalk(DirectoryWalker walker, String... expected) throws IOException {
+        Set<String> sequential = new TreeSet<String>();
+        for (File file : walker.walk()) {
+            sequential.add(relativize(file));
+        }
+        final Set<String> parallel = new ConcurrentSkipListSet<String>();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            walker.walk(pool, new DirectoryWalker.Listener() {
+                public void onFile(File file) {
+                    parallel.add(relativize(file));
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        List<String> expectedList = new ArrayList<String>(Arrays.asList(expected));
+        Collections.sort(expectedList);
+        assertEquals(expectedList, new ArrayList<String>(sequential));
+        assertEquals(expectedList, new ArrayList<String>(parallel));
+    }
+
+    private String relativize(File file) {
+        return folder.getRoot().toPath().relativize(file.toPath()).toString()
+                .replace(File.separatorChar, '/');
+    }
+}
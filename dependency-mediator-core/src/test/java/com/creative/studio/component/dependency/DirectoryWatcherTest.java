@@ -0,0 +1,151 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryWatcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void changesAreAppliedLikeAFullScan() throws Exception {
+        changesAreAppliedLikeAFullScan(ScanSettings.DEFAULT);
+    }
+
+    @Test
+    public void lazyChangesAreAppliedLikeAFullScan() throws Exception {
+        changesAreAppliedLikeAFullScan(ScanSettings.DEFAULT
+                .withFingerprintMode(FingerprintMode.LAZY));
+    }
+
+    private void changesAreAppliedLikeAFullScan(ScanSettings settings) throws Exception {
+        File root = folder.newFolder("app");
+        File lib = new File(root, "WEB-INF/lib");
+        lib.mkdirs();
+        writeJar(new File(lib, "one.jar"), 0, 10, "one");
+        writeJar(new File(lib, "two.jar"), 5, 15, "two");
+
+        ComponentContainer container = new ComponentContainer();
+        DirectoryWatcher watcher = new DirectoryWatcher(root, container, 20, settings);
+        try {
+            watcher.start();
+            assertSameAsFullScan(root, container, settings);
+            assertEquals(5, container.getConflicts().size());
+
+            //Same classes as one.jar,so only its conflicts with two.jar change
+            writeJar(new File(lib, "two.jar"), 5, 15, "one");
+            Map<String, List<ComponentEntry>> changes = await(watcher, root, container, settings);
+            assertEquals(5, changes.size());
+            assertTrue(changes.get("com.test.C5").isEmpty());
+            assertTrue(container.getConflicts().isEmpty());
+
+            File extra = new File(root, "extra/lib");
+            extra.mkdirs();
+            writeJar(new File(extra, "three.jar"), 0, 3, "three");
+            changes = await(watcher, root, container, settings);
+            assertEquals(3, changes.size());
+            assertEquals(2, changes.get("com.test.C0").size());
+
+            assertTrue(new File(lib, "one.jar").delete());
+            await(watcher, root, container, settings);
+            assertEquals(2, watcher.size());
+
+            deleteTree(new File(root, "extra"));
+            await(watcher, root, container, settings);
+            assertEquals(1, watcher.size());
+            assertTrue(container.getConflicts().isEmpty());
+        } finally {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Poll until the container is the same as after a full scan
+     *
+     * @return the changes of the polls,the last one of each name
+     */
+    private static Map<String, List<ComponentEntry>> await(DirectoryWatcher watcher, File root,
+                                                           ComponentContainer container,
+                                                           ScanSettings settings)
+            throws Exception {
+        Map<String, List<ComponentEntry>> changes = new TreeMap<String, List<ComponentEntry>>();
+        long deadline = System.currentTimeMillis() + 30000;
+        while (System.currentTimeMillis() < deadline) {
+            changes.putAll(watcher.poll(500, TimeUnit.MILLISECONDS));
+            if (isSameAsFullScan(root, container, settings)) {
+                //Late events of the same change make no further changes
+                changes.putAll(watcher.poll(100, TimeUnit.MILLISECONDS));
+                return changes;
+            }
+        }
+        assertSameAsFullScan(root, container, settings);
+        return changes;
+    }
+
+    private static void assertSameAsFullScan(File root, ComponentContainer container,
+                                             ScanSettings settings) throws IOException {
+        assertEquals(snapshot(scan(root, settings)), snapshot(container));
+    }
+
+    private static boolean isSameAsFullScan(File root, ComponentContainer container,
+                                            ScanSettings settings) throws IOException {
+        return snapshot(scan(root, settings)).equals(snapshot(container));
+    }
+
+    private static ComponentContainer scan(File root, ScanSettings settings) throws IOException {
+        ComponentContainer container = new ComponentContainer();
+        DependencyMediator.process(root, container, settings);
+        return container;
+    }
+
+    private static Map<String, List<String>> snapshot(ComponentContainer container) {
+        Map<String, List<String>> snapshot = new TreeMap<String, List<String>>();
+        for (String name : container.keySet()) {
+            List<String> paths = new ArrayList<String>();
+            for (ComponentEntry cEntry : container.get(name)) {
+                paths.add(cEntry.getPathName());
+            }
+            snapshot.put(name, paths);
+        }
+        return snapshot;
+    }
+
+    private static void writeJar(File jar, int from, int to, String content) throws IOException {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            for (int i = from; i < to; i++) {
+                out.putNextEntry(new ZipEntry("com/test/C" + i + ".class"));
+                out.write(("class " + i + content).getBytes("UTF-8"));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void deleteTree(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                deleteTree(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,157 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.creative.studio.component.dependency.cache.ScanCache;
+
+public class FingerprintModeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sameConflictsInEveryMode() throws IOException {
+        File root = jars();
+        Map<String, List<String>> expected = conflicts(root, ScanSettings.DEFAULT);
+        //Odd classes have three contents in four jars,even ones are identical copies
+        assertEquals(10, expected.size());
+        assertEquals(3, expected.get("com.test.C1").size());
+        assertFalse(expected.containsKey("com.test.C0"));
+        for (FingerprintMode mode : FingerprintMode.values()) {
+            assertEquals(mode.getValue(), expected,
+                    conflicts(root, ScanSettings.DEFAULT.withFingerprintMode(mode)));
+        }
+
+        //Classes of a single jar are never digested by a lazy scan
+        ComponentContainer container = new ComponentContainer();
+        DependencyMediator.process(root, container,
+                ScanSettings.DEFAULT.withFingerprintMode(FingerprintMode.LAZY));
+        assertFalse(container.get("com.test.Only0").get(0).isDigested());
+        assertTrue(container.get("com.test.C0").get(0).isDigested());
+    }
+
+    @Test
+    public void sameConflictsFromScanCache() throws IOException {
+        File root = jars();
+        Map<String, List<String>> expected = conflicts(root, ScanSettings.DEFAULT);
+        ScanCache cache = new ScanCache(folder.newFolder("cache"), false);
+        ScanSettings lazy = ScanSettings.DEFAULT.withFingerprintMode(FingerprintMode.LAZY)
+                .withScanCache(cache);
+
+        //Class tables of a lazy scan,which are not digested
+        ScanSettings settings = lazy.withMetrics(new ScanMetrics());
+        assertEquals(expected, conflicts(root, settings));
+        assertEquals(4, settings.getMetrics().getCacheMisses());
+        settings = lazy.withMetrics(new ScanMetrics());
+        assertEquals(expected, conflicts(root, settings));
+        assertEquals(4, settings.getMetrics().getCacheHits());
+
+        //Digested class tables of some jars,undigested ones of the others
+        settings = ScanSettings.DEFAULT.withScanCache(cache).withMetrics(new ScanMetrics());
+        DependencyMediator.processJarFile(new File(root, "lib0.jar"), true,
+                new ComponentContainer(), settings);
+        DependencyMediator.processJarFile(new File(root, "lib3.jar"), true,
+                new ComponentContainer(), settings);
+        assertEquals(2, settings.getMetrics().getCacheMisses());
+        settings = lazy.withMetrics(new ScanMetrics());
+        assertEquals(expected, conflicts(root, settings));
+        assertEquals(4, settings.getMetrics().getCacheHits());
+        for (FingerprintMode mode : FingerprintMode.values()) {
+            assertEquals(mode.getValue(), expected,
+                    conflicts(root, lazy.withFingerprintMode(mode)));
+        }
+    }
+
+    @Test
+    public void leaveOutEntriesWhichFailToDigest() throws IOException {
+        File root = folder.newFolder("lib");
+        ScanSettings settings = ScanSettings.DEFAULT.withMetrics(new ScanMetrics());
+        ComponentContainer container = new ComponentContainer();
+        for (String name : new String[] { "a.jar", "b.jar" }) {
+            File jar = new File(root, name);
+            ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+            try {
+                for (int i = 0; i < 2; i++) {
+                    out.putNextEntry(new ZipEntry("com/test/C" + i + ".class"));
+                    out.write(("class " + i).getBytes("UTF-8"));
+                    out.closeEntry();
+                }
+            } finally {
+                out.close();
+            }
+            if ("b.jar".equals(name)) {
+                //Reserved block type,so the data of the entry can not be inflated
+                byte[] bytes = Files.readAllBytes(jar.toPath());
+                String entryName = "com/test/C1.class";
+                bytes[new String(bytes, "ISO-8859-1").indexOf(entryName) + entryName.length()] = -1;
+                Files.write(jar.toPath(), bytes);
+            }
+            //Through JarFile,as archives the central directory reader does not support
+            ComponentBatch batch = new ComponentBatch();
+            DependencyMediator.scanJarFile(jar, true, batch, settings);
+            assertEquals("b.jar".equals(name), batch.isFailed());
+            batch.flush(container, settings.getMetrics());
+        }
+        assertEquals(1, settings.getMetrics().getFailures());
+        assertEquals("a.jar", new File(container.get("com.test.C1").get(0).getJarName())
+                .getName());
+        assertTrue(container.getConflicts().isEmpty());
+    }
+
+    /**
+     * @return the component names in conflict with the paths of their entries
+     */
+    private static Map<String, List<String>> conflicts(File root, ScanSettings settings)
+            throws IOException {
+        ComponentContainer container = new ComponentContainer();
+        DependencyMediator.process(root, container, settings);
+        Map<String, List<String>> conflicts = new LinkedHashMap<String, List<String>>();
+        for (Map.Entry<String, List<ComponentEntry>> entry : container.getConflicts().entrySet()) {
+            List<String> paths = new ArrayList<String>();
+            for (ComponentEntry cEntry : entry.getValue()) {
+                paths.add(cEntry.getPathName());
+            }
+            conflicts.put(entry.getKey(), paths);
+        }
+        return conflicts;
+    }
+
+    private File jars() throws IOException {
+        File root = folder.newFolder("lib");
+        for (int j = 0; j < 4; j++) {
+            ZipOutputStream out = new ZipOutputStream(new FileOutputStream(new File(root, "lib" + j
+                    + ".jar")));
+            try {
+                for (int i = 0; i < 20; i++) {
+                    out.putNextEntry(new ZipEntry("com/test/C" + i + ".class"));
+                    //Same size,so only the content tells the odd classes apart
+                    out.write(("class " + i + (i % 2 == 1 ? "-" + j % 3 : "")).getBytes("UTF-8"));
+                    out.closeEntry();
+                }
+                out.putNextEntry(new ZipEntry("com/test/Only" + j + ".class"));
+                out.write(("only " + j).getBytes("UTF-8"));
+                out.closeEntry();
+            } finally {
+                out.close();
+            }
+        }
+        return root;
+    }
+}
@@ -0,0 +1,68 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NestedArchiveScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void scanJarsNestedInWar() throws IOException {
+        byte[] lib = zip(new String[] { "com/test/A.class", "com/test/B.class" }, new byte[][] {
+                "a".getBytes("UTF-8"), "b1".getBytes("UTF-8") });
+        byte[] other = zip(new String[] { "com/test/B.class" },
+                new byte[][] { "b2".getBytes("UTF-8") });
+
+        File war = folder.newFile("test.war");
+        OutputStream out = new FileOutputStream(war);
+        try {
+            out.write(zip(new String[] { "WEB-INF/classes/com/test/A.class",
+                    "WEB-INF/lib/lib.jar", "WEB-INF/lib/other.jar" },
+                    new byte[][] { "a".getBytes("UTF-8"), lib, other }));
+        } finally {
+            out.close();
+        }
+
+        ComponentContainer container = new ComponentContainer();
+        DependencyMediator.process(war, container);
+
+        //Same content of A is not a conflict,different content of B is
+        assertEquals(1, container.get("com.test.A").size());
+        assertEquals(1, container.getConflicts().size());
+        List<ComponentEntry> entries = container.get("com.test.B");
+        assertEquals(2, entries.size());
+        assertEquals(war.getPath() + "!/WEB-INF/lib/lib.jar:com/test/B.class", entries.get(0)
+                .getPathName());
+        assertTrue(entries.get(1).getPathName().contains("!/WEB-INF/lib/other.jar:"));
+    }
+
+    private static byte[] zip(String[] names, byte[][] contents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ZipOutputStream out = new ZipOutputStream(bytes);
+        try {
+            for (int i = 0; i < names.length; i++) {
+                out.putNextEntry(new ZipEntry(names[i]));
+                out.write(contents[i]);
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,112 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.creative.studio.component.dependency.cache.ScanCache;
+
+public class ParallelScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void sameConflictsAsSequentialScan() throws IOException {
+        File root = jars();
+        for (FingerprintMode mode : FingerprintMode.values()) {
+            ScanSettings settings = ScanSettings.DEFAULT.withFingerprintMode(mode);
+            ComponentContainer sequential = new ComponentContainer();
+            DependencyMediator.process(root, sequential, settings);
+            ComponentContainer parallel = new ComponentContainer();
+            DependencyMediator.process(root, pool, parallel, settings);
+
+            assertEquals(mode.getValue(), 20, sequential.getConflicts().size());
+            assertEquals(mode.getValue(), paths(sequential), paths(parallel));
+            assertEquals(mode.getValue(), sequential.keySet(), parallel.keySet());
+        }
+    }
+
+    @Test
+    public void countEveryJarOnce() throws IOException {
+        File root = jars();
+        ScanCache cache = new ScanCache(folder.newFolder("cache"), false);
+        ScanSettings settings = ScanSettings.DEFAULT.withScanCache(cache).withMetrics(
+                new ScanMetrics());
+        DependencyMediator.process(root, pool, new ComponentContainer(), settings);
+        ScanMetrics metrics = settings.getMetrics();
+        //Including the archive the central directory reader fails on
+        assertEquals(6, metrics.getCacheMisses());
+        assertEquals(6, metrics.getJars());
+        assertEquals(1, metrics.getFailures());
+
+        settings = settings.withMetrics(new ScanMetrics());
+        DependencyMediator.process(root, pool, new ComponentContainer(), settings);
+        //The archive which failed was not cached,so it is read again
+        assertEquals(5, settings.getMetrics().getCacheHits());
+        assertEquals(1, settings.getMetrics().getCacheMisses());
+    }
+
+    private static Map<String, List<String>> paths(ComponentContainer container) {
+        Map<String, List<String>> paths = new LinkedHashMap<String, List<String>>();
+        for (Map.Entry<String, List<ComponentEntry>> entry : container.getConflicts().entrySet()) {
+            List<String> entryPaths = new ArrayList<String>();
+            for (ComponentEntry cEntry : entry.getValue()) {
+                entryPaths.add(cEntry.getPathName());
+            }
+            paths.put(entry.getKey(), entryPaths);
+        }
+        return paths;
+    }
+
+    /**
+     * @return directory of jars sharing classes,one of them large enough to
+     *         be split into entry tasks,and an archive which is not a zip
+     */
+    private File jars() throws IOException {
+        File root = folder.newFolder("lib");
+        for (int j = 0; j < 5; j++) {
+            int classes = j == 0 ? ParallelScanner.ENTRY_SPLIT_THRESHOLD * 2 + 1 : 40;
+            ZipOutputStream out = new ZipOutputStream(new FileOutputStream(new File(root, "lib" + j
+                    + ".jar")));
+            try {
+                for (int i = 0; i < classes; i++) {
+                    out.putNextEntry(new ZipEntry("com/test/C" + i + ".class"));
+                    //Every other jar has different content for the odd classes
+                    out.write(("class " + i + (i % 2 == 1 ? "-" + j % 2 : "")).getBytes("UTF-8"));
+                    out.closeEntry();
+                }
+            } finally {
+                out.close();
+            }
+        }
+        FileOutputStream out = new FileOutputStream(new File(root, "zz.jar"));
+        try {
+            out.write(new byte[64]);
+        } finally {
+            out.close();
+        }
+        return root;
+    }
+}
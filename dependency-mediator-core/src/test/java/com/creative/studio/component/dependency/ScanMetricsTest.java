@@ -0,0 +1,112 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ScanMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsJarsStagesAndFailures() throws IOException {
+        ScanMetrics metrics = new ScanMetrics(2);
+        ScanSettings settings = ScanSettings.DEFAULT.withMetrics(metrics);
+        ComponentContainer container = new ComponentContainer();
+        for (int i = 1; i <= 3; i++) {
+            File jar = folder.newFile("lib" + i + ".jar");
+            ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+            try {
+                for (int j = 0; j < i * 10; j++) {
+                    out.putNextEntry(new ZipEntry("a/C" + j + ".class"));
+                    out.write(("class " + j).getBytes("UTF-8"));
+                    out.closeEntry();
+                }
+            } finally {
+                out.close();
+            }
+            DependencyMediator.processJarFile(jar, true, container, settings);
+        }
+        File corrupt = folder.newFile("corrupt.jar");
+        FileOutputStream out = new FileOutputStream(corrupt);
+        try {
+            out.write("not a jar".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        DependencyMediator.processJarFile(corrupt, true, container, settings);
+
+        assertEquals(4, metrics.getJars());
+        assertEquals(60, metrics.getEntries());
+        assertEquals(60, metrics.getItems(ScanMetrics.Stage.INSERT));
+        assertEquals(4, metrics.getItems(ScanMetrics.Stage.OPEN));
+        assertTrue(metrics.getBytesInflated() > 0);
+        //Only the slowest two are kept
+        assertEquals(2, metrics.getSlowestJars().length);
+        assertTrue(metrics.getSlowest().get(0).getNanos() >= metrics.getSlowest().get(1)
+                .getNanos());
+        assertEquals(1, metrics.getFailures());
+        assertTrue(metrics.getLastFailures()[0].startsWith(corrupt.getPath()));
+
+        metrics.reset();
+        assertEquals(0, metrics.getJars());
+        assertEquals(0, metrics.getSlowestJars().length);
+    }
+
+    @Test
+    public void registerTheMetricsOfEachScan() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ScanMetrics metrics1 = new ScanMetrics();
+        ScanMetrics metrics2 = new ScanMetrics();
+        ObjectName name1 = metrics1.register("com.test:a:jar:1.0");
+        ObjectName name2 = metrics2.register("com.test:b:jar:1.0");
+        try {
+            assertTrue(server.isRegistered(name1));
+            assertTrue(server.isRegistered(name2));
+        } finally {
+            metrics1.unregister();
+        }
+        assertFalse(server.isRegistered(name1));
+        assertTrue(server.isRegistered(name2));
+        metrics2.unregister();
+        metrics2.unregister();
+        assertFalse(server.isRegistered(name2));
+    }
+
+    @Test
+    public void defaultSettingsRecordNothing() throws IOException {
+        File corrupt = folder.newFile("corrupt.jar");
+        FileOutputStream out = new FileOutputStream(corrupt);
+        try {
+            out.write("not a jar".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        ComponentContainer container = new ComponentContainer();
+        DependencyMediator.processJarFile(corrupt, true, container, ScanSettings.DEFAULT);
+        DependencyMediator.processJarFile(corrupt, true, container,
+                ScanSettings.DEFAULT.withFingerprintMode(FingerprintMode.LAZY));
+
+        //Unrelated scans do not add up in metrics nobody reads
+        assertSame(ScanMetrics.NONE, ScanSettings.DEFAULT.getMetrics());
+        assertEquals(0, ScanMetrics.NONE.getJars());
+        assertEquals(0, ScanMetrics.NONE.getFailures());
+    }
+}
@@ -0,0 +1,93 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ScanPipelineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sameResultAsSequentialScan() throws IOException {
+        File root = jars();
+
+        ComponentContainer sequential = new ComponentContainer();
+        DependencyMediator.process(root, sequential);
+        //Tiny queues,so every stage blocks on the next one
+        ScanPipeline pipeline = new ScanPipeline(2, 3, 2, 1);
+        ComponentContainer pipelined = new ComponentContainer();
+        DependencyMediator.process(root, pipeline, pipelined);
+
+        assertEquals(20, sequential.getConflicts().size());
+        assertEquals(sequential.keySet(), pipelined.keySet());
+        for (String key : sequential.keySet()) {
+            assertEquals(paths(sequential.get(key)), paths(pipelined.get(key)));
+        }
+        assertEquals(240, pipeline.getStats().getWorker().getItems());
+        assertEquals(240, pipeline.getStats().getAggregator().getItems());
+    }
+
+    @Test(timeout = 30000)
+    public void failTheScanWhenAWorkerDies() throws IOException {
+        File root = jars();
+        //Escapes the handling of entries which can not be read
+        ScanSettings settings = ScanSettings.DEFAULT.withMetrics(new ScanMetrics() {
+            @Override
+            public void recordDigest(long compressedSize, long size, long nanos) {
+                throw new StackOverflowError("Bad class file");
+            }
+        });
+        try {
+            DependencyMediator.process(root, new ScanPipeline(1, 2, 2, 1),
+                    new ComponentContainer(), settings);
+            fail("Worker failure is ignored");
+        } catch (StackOverflowError e) {
+            assertEquals("Bad class file", e.getMessage());
+        }
+    }
+
+    /**
+     * @return directory of jars sharing classes
+     */
+    private File jars() throws IOException {
+        File root = folder.newFolder("lib");
+        for (int j = 0; j < 6; j++) {
+            ZipOutputStream out = new ZipOutputStream(new FileOutputStream(new File(root, "lib" + j
+                    + ".jar")));
+            try {
+                for (int i = 0; i < 40; i++) {
+                    out.putNextEntry(new ZipEntry("com/test/C" + i + ".class"));
+                    //Every other jar has different content for the odd classes
+                    out.write(("class " + i + (i % 2 == 1 ? "-" + j % 2 : "")).getBytes("UTF-8"));
+                    out.closeEntry();
+                }
+                out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+                out.closeEntry();
+            } finally {
+                out.close();
+            }
+        }
+        return root;
+    }
+
+    private static List<String> paths(List<ComponentEntry> entries) {
+        List<String> paths = new ArrayList<String>();
+        for (ComponentEntry cEntry : entries) {
+            paths.add(cEntry.getPathName());
+        }
+        return paths;
+    }
+}
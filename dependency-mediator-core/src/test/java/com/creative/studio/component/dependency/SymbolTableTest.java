@@ -0,0 +1,46 @@
+package com.creative.studio.component.dependency;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class SymbolTableTest {
+
+    @Test
+    public void concurrentIntern() throws Exception {
+        final SymbolTable symbols = new SymbolTable();
+        final int count = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int t = 0; t < futures.length; t++) {
+                final int offset = t * 5000;
+                futures[t] = executor.submit(new Callable<Void>() {
+                    public Void call() {
+                        //Every thread interns every symbol,starting at a different one
+                        for (int i = 0; i < count; i++) {
+                            String symbol = "com/test/C" + (i + offset) % count;
+                            assertEquals(symbol, symbols.get(symbols.intern(symbol)));
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(count, symbols.size());
+        for (int id = 0; id < count; id++) {
+            assertEquals(id, symbols.lookup(symbols.get(id)));
+        }
+        assertEquals(-1, symbols.lookup("com/test/D"));
+    }
+}
@@ -0,0 +1,165 @@
+package com.creative.studio.component.dependency.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.DependencyMediator;
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+
+public class ArtifactIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shareClassTablesBySha1() throws IOException {
+        File repository = folder.newFolder("repository");
+        ArtifactIndex index = new ArtifactIndex(repository);
+        File jar = jar("a.jar", "one");
+        index.store(jar, table(jar, true), DigestAlgorithm.MD5);
+
+        //Same content elsewhere,such as another module's copy
+        File copy = new File(folder.getRoot(), "b.jar");
+        Files.copy(jar.toPath(), copy.toPath());
+        List<ComponentEntry> entries = index.load(copy, FingerprintMode.DIGEST,
+                DigestAlgorithm.MD5);
+        assertEquals(3, entries.size());
+        assertEquals(copy.getPath(), entries.get(0).getJarName());
+        String checksum = index.checksum(jar);
+        assertTrue(new File(index.getDirectory(), checksum.substring(0, 2) + "/" + checksum
+                + ".idx").isFile());
+
+        //The checksum Maven installs beside a jar is trusted
+        File other = jar("c.jar", "other");
+        File checksumFile = new File(other.getPath() + ".sha1");
+        FileOutputStream out = new FileOutputStream(checksumFile);
+        try {
+            out.write((checksum + "  c.jar\n").getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+        assertNotNull(index.load(other, FingerprintMode.DIGEST, DigestAlgorithm.MD5));
+        assertNull(index.load(jar("d.jar", "other"), FingerprintMode.LAZY, DigestAlgorithm.MD5));
+        assertEquals(0, listFiles(index.getDirectory(), ".lock").size());
+    }
+
+    @Test
+    public void neverReplaceByFewerFingerprints() throws IOException {
+        ArtifactIndex index = new ArtifactIndex(folder.newFolder("repository"));
+        File jar = jar("a.jar", "one");
+        index.store(jar, table(jar, false), DigestAlgorithm.MD5);
+        assertNull(index.load(jar, FingerprintMode.DIGEST, DigestAlgorithm.MD5));
+
+        index.store(jar, table(jar, true), DigestAlgorithm.MD5);
+        assertNotNull(index.load(jar, FingerprintMode.DIGEST, DigestAlgorithm.MD5));
+        //A lazy scan of the same artifact keeps the digests
+        index.store(jar, table(jar, false), DigestAlgorithm.MD5);
+        assertNotNull(index.load(jar, FingerprintMode.DIGEST, DigestAlgorithm.MD5));
+
+        //Digests of another hash function serve nothing but lazy scans
+        index.store(jar, table(jar, true), DigestAlgorithm.SHA256);
+        assertNotNull(index.load(jar, FingerprintMode.DIGEST, DigestAlgorithm.SHA256));
+        assertNull(index.load(jar, FingerprintMode.DIGEST, DigestAlgorithm.MD5));
+    }
+
+    @Test
+    public void concurrentWritersKeepTheDigestedTable() throws Exception {
+        final File repository = folder.newFolder("repository");
+        final File jar = jar("a.jar", "one");
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < 8; t++) {
+                final boolean digested = t % 4 == 0;
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        //Separate indexes,like separate builds sharing the repository
+                        ArtifactIndex index = new ArtifactIndex(repository);
+                        start.await();
+                        for (int i = 0; i < 50; i++) {
+                            index.store(jar, table(jar, digested), DigestAlgorithm.MD5);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        ArtifactIndex index = new ArtifactIndex(repository);
+        assertNotNull(index.load(jar, FingerprintMode.DIGEST, DigestAlgorithm.MD5));
+        assertEquals(1, listFiles(index.getDirectory(), ".idx").size());
+        assertEquals(0, listFiles(index.getDirectory(), ".lock").size());
+        assertEquals(0, listFiles(index.getDirectory(), ".tmp").size());
+    }
+
+    private static List<ComponentEntry> table(File jar, boolean digested) {
+        List<ComponentEntry> entries = new ArrayList<ComponentEntry>();
+        for (int i = 0; i < 3; i++) {
+            ComponentEntry cEntry = new ComponentEntry("com.test.C" + i, jar.getPath(),
+                    "com/test/C" + i + DependencyMediator.CLASS_SUFFIX);
+            if (digested) {
+                cEntry.setDigest(new byte[] { 1, 2, 3, (byte) i });
+            }
+            entries.add(cEntry);
+        }
+        return entries;
+    }
+
+    private static List<File> listFiles(File dir, String suffix) {
+        List<File> result = new ArrayList<File>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    result.addAll(listFiles(file, suffix));
+                } else if (file.getName().endsWith(suffix)) {
+                    result.add(file);
+                }
+            }
+        }
+        return result;
+    }
+
+    private File jar(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            for (int i = 0; i < 3; i++) {
+                out.putNextEntry(new ZipEntry("com/test/C" + i + ".class"));
+                out.write(("class " + i + content).getBytes("UTF-8"));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,90 @@
+package com.creative.studio.component.dependency.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.DependencyMediator;
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+
+public class ClassTableCodecTest {
+
+    @Test
+    public void roundTrip() throws IOException {
+        List<ComponentEntry> entries = Arrays.asList(entry(0, 0xffffffffL, null),
+                entry(1, -1, new byte[] { 1, 2 }), entry(2, 3, new byte[32]));
+        List<ComponentEntry> loaded = roundTrip(entries, DigestAlgorithm.SHA256,
+                DigestAlgorithm.SHA256);
+        assertEquals(entries.size(), loaded.size());
+        for (int i = 0; i < entries.size(); i++) {
+            ComponentEntry expected = entries.get(i);
+            ComponentEntry cEntry = loaded.get(i);
+            assertEquals("com.test.C" + i, cEntry.getName());
+            assertEquals("b.jar", cEntry.getJarName());
+            assertEquals(expected.getEntryName(), cEntry.getEntryName());
+            assertEquals(expected.getCrc(), cEntry.getCrc());
+            assertEquals(expected.getSize(), cEntry.getSize());
+            assertArrayEquals(expected.getDigest(), cEntry.getDigest());
+        }
+
+        //Digests of another hash function are dropped,the CRC-32 is kept
+        loaded = roundTrip(entries, DigestAlgorithm.SHA256, DigestAlgorithm.MD5);
+        assertEquals(entries.size(), loaded.size());
+        assertNull(loaded.get(1).getDigest());
+        assertNull(loaded.get(2).getDigest());
+        assertEquals(3, loaded.get(2).getCrc());
+    }
+
+    @Test
+    public void usableByMode() {
+        List<ComponentEntry> lazy = Collections.singletonList(entry(0, -1, null));
+        List<ComponentEntry> crc = Arrays.asList(entry(0, 1, null), entry(1, -1, new byte[1]));
+        List<ComponentEntry> digest = Collections.singletonList(entry(0, -1, new byte[1]));
+        assertTrue(ClassTableCodec.isUsable(lazy, FingerprintMode.LAZY));
+        assertFalse(ClassTableCodec.isUsable(lazy, FingerprintMode.CRC));
+        assertFalse(ClassTableCodec.isUsable(lazy, FingerprintMode.DIGEST));
+        assertTrue(ClassTableCodec.isUsable(crc, FingerprintMode.LAZY));
+        assertTrue(ClassTableCodec.isUsable(crc, FingerprintMode.CRC));
+        assertFalse(ClassTableCodec.isUsable(crc, FingerprintMode.DIGEST));
+        for (FingerprintMode mode : FingerprintMode.values()) {
+            assertTrue(ClassTableCodec.isUsable(digest, mode));
+        }
+    }
+
+    private static List<ComponentEntry> roundTrip(List<ComponentEntry> entries,
+                                                  DigestAlgorithm written, DigestAlgorithm read)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        ClassTableCodec.write(out, entries, written);
+        out.close();
+        return ClassTableCodec.read(new DataInputStream(new ByteArrayInputStream(
+                bytes.toByteArray())), "b.jar", read);
+    }
+
+    private static ComponentEntry entry(int i, long crc, byte[] digest) {
+        ComponentEntry cEntry = new ComponentEntry("com.test.C" + i, "a.jar", "com/test/C" + i
+                + DependencyMediator.CLASS_SUFFIX);
+        if (crc != -1) {
+            cEntry.setCrc(crc);
+            cEntry.setSize(i * 100);
+        }
+        cEntry.setDigest(digest);
+        return cEntry;
+    }
+}
@@ -0,0 +1,225 @@
+package com.creative.studio.component.dependency.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.creative.studio.component.dependency.ComponentContainer;
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.DependencyMediator;
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+import com.creative.studio.component.dependency.ScanMetrics;
+import com.creative.studio.component.dependency.ScanPipeline;
+import com.creative.studio.component.dependency.ScanSettings;
+
+public class ScanCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripClassTable() throws IOException {
+        File jar = jar("a.jar", 3, "one");
+        ScanCache cache = new ScanCache(folder.newFolder("cache"), true);
+        byte[] md5 = new byte[16];
+        byte[] sha256 = new byte[32];
+        for (int i = 0; i < sha256.length; i++) {
+            sha256[i] = (byte) (0xff - i);
+            if (i < md5.length) {
+                md5[i] = (byte) i;
+            }
+        }
+        List<ComponentEntry> entries = Arrays.asList(entry(jar, 0, -1, md5),
+                entry(jar, 1, 0xfedcba98L, null), entry(jar, 2, 7, sha256));
+        cache.store(jar, entries, DigestAlgorithm.MD5);
+
+        List<ComponentEntry> loaded = cache.load(jar, FingerprintMode.CRC, DigestAlgorithm.MD5);
+        assertEquals(entries.size(), loaded.size());
+        for (int i = 0; i < entries.size(); i++) {
+            ComponentEntry expected = entries.get(i);
+            ComponentEntry cEntry = loaded.get(i);
+            assertEquals(expected.getName(), cEntry.getName());
+            assertEquals(jar.getPath(), cEntry.getJarName());
+            assertEquals(expected.getEntryName(), cEntry.getEntryName());
+            assertEquals(expected.getCrc(), cEntry.getCrc());
+            assertEquals(expected.getSize(), cEntry.getSize());
+            assertArrayEquals(expected.getDigest(), cEntry.getDigest());
+        }
+    }
+
+    @Test
+    public void rejectStaleClassTables() throws IOException {
+        File jar = jar("a.jar", 1, "one");
+        ScanCache cache = new ScanCache(folder.newFolder("cache"), false);
+
+        //Stored by a scan in CRC mode,the digests are missing
+        cache.store(jar, Collections.singletonList(entry(jar, 0, 42, null)),
+                DigestAlgorithm.MD5);
+        assertNull(cache.load(jar, FingerprintMode.DIGEST, DigestAlgorithm.MD5));
+        assertNotNull(cache.load(jar, FingerprintMode.CRC, DigestAlgorithm.MD5));
+        assertNotNull(cache.load(jar, FingerprintMode.LAZY, DigestAlgorithm.MD5));
+
+        //Stored by a lazy scan,nothing is fingerprinted
+        cache.store(jar, Collections.singletonList(entry(jar, 0, -1, null)),
+                DigestAlgorithm.MD5);
+        assertNull(cache.load(jar, FingerprintMode.DIGEST, DigestAlgorithm.MD5));
+        assertNull(cache.load(jar, FingerprintMode.CRC, DigestAlgorithm.MD5));
+        assertNotNull(cache.load(jar, FingerprintMode.LAZY, DigestAlgorithm.MD5));
+
+        cache.store(jar, Collections.singletonList(entry(jar, 0, -1, new byte[16])),
+                DigestAlgorithm.MD5);
+        assertNotNull(cache.load(jar, FingerprintMode.DIGEST, DigestAlgorithm.MD5));
+        assertNotNull(cache.load(jar, FingerprintMode.CRC, DigestAlgorithm.MD5));
+        //Digests of another hash function are dropped
+        assertNull(cache.load(jar, FingerprintMode.DIGEST, DigestAlgorithm.SHA256));
+        assertNull(cache.load(jar, FingerprintMode.CRC, DigestAlgorithm.SHA256));
+
+        //The jar changed since
+        jar.delete();
+        jar("a.jar", 2, "two");
+        assertNull(cache.load(jar, FingerprintMode.LAZY, DigestAlgorithm.MD5));
+    }
+
+    @Test
+    public void rescanClassTablesOfOtherModes() throws IOException {
+        File jar = jar("a.jar", 10, "one");
+        ScanCache cache = new ScanCache(folder.newFolder("cache"), false);
+        ScanSettings lazy = ScanSettings.DEFAULT.withFingerprintMode(FingerprintMode.LAZY)
+                .withScanCache(cache).withMetrics(new ScanMetrics());
+        assertEquals(10, DependencyMediator.readClassTable(jar, lazy).size());
+        assertEquals(1, lazy.getMetrics().getCacheMisses());
+
+        ScanSettings digest = ScanSettings.DEFAULT.withScanCache(cache).withMetrics(
+                new ScanMetrics());
+        List<ComponentEntry> entries = DependencyMediator.readClassTable(jar, digest);
+        assertEquals(0, digest.getMetrics().getCacheHits());
+        for (ComponentEntry cEntry : entries) {
+            assertTrue(cEntry.isDigested());
+        }
+
+        //The digested class table serves every mode
+        for (FingerprintMode mode : FingerprintMode.values()) {
+            ScanSettings settings = digest.withFingerprintMode(mode).withMetrics(
+                    new ScanMetrics());
+            entries = DependencyMediator.readClassTable(jar, settings);
+            assertEquals(1, settings.getMetrics().getCacheHits());
+            assertEquals(10, entries.size());
+            assertTrue(entries.get(0).isDigested());
+        }
+    }
+
+    @Test
+    public void skipClassTablesWithFailedEntries() throws IOException {
+        File root = folder.newFolder("lib");
+        File jar = storedJar(new File(root, "a.jar"), 4);
+        //Same size,so only the CRC-32 check fails on reading the entry
+        RandomAccessFile raf = new RandomAccessFile(jar, "rw");
+        try {
+            raf.seek(indexOf(jar, "class 2".getBytes("UTF-8")));
+            raf.write("CLASS 2".getBytes("UTF-8"));
+        } finally {
+            raf.close();
+        }
+        ScanCache cache = new ScanCache(folder.newFolder("cache"), false);
+        ScanSettings settings = ScanSettings.DEFAULT.withScanCache(cache).withMetrics(
+                new ScanMetrics());
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            DependencyMediator.process(root, new ComponentContainer(), settings);
+            DependencyMediator.process(root, pool, new ComponentContainer(), settings);
+            DependencyMediator.process(root, new ScanPipeline(1, 2, 2, 2),
+                    new ComponentContainer(), settings);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(3, settings.getMetrics().getFailures());
+        assertEquals(0, settings.getMetrics().getCacheHits());
+        assertNull(cache.load(jar, FingerprintMode.LAZY, DigestAlgorithm.MD5));
+    }
+
+    private static ComponentEntry entry(File jar, int i, long crc, byte[] digest) {
+        ComponentEntry cEntry = new ComponentEntry("com.test.C" + i, jar.getPath(), "com/test/C"
+                + i + DependencyMediator.CLASS_SUFFIX);
+        if (crc != -1) {
+            cEntry.setCrc(crc);
+            cEntry.setSize(crc % 1000);
+        }
+        cEntry.setDigest(digest);
+        return cEntry;
+    }
+
+    private static File storedJar(File file, int classes) throws IOException {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            for (int i = 0; i < classes; i++) {
+                byte[] content = ("class " + i).getBytes("UTF-8");
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                ZipEntry entry = new ZipEntry("com/test/C" + i + ".class");
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(content.length);
+                entry.setCrc(crc.getValue());
+                out.putNextEntry(entry);
+                out.write(content);
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static int indexOf(File file, byte[] target) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            raf.readFully(bytes);
+        } finally {
+            raf.close();
+        }
+        for (int i = 0; i + target.length <= bytes.length; i++) {
+            int j = 0;
+            while (j < target.length && bytes[i + j] == target[j]) {
+                j++;
+            }
+            if (j == target.length) {
+                return i;
+            }
+        }
+        throw new AssertionError("Not found");
+    }
+
+    private File jar(String name, int classes, String content) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            for (int i = 0; i < classes; i++) {
+                out.putNextEntry(new ZipEntry("com/test/C" + i + ".class"));
+                out.write(("class " + i + content).getBytes("UTF-8"));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,116 @@
+package com.creative.studio.component.dependency.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+import com.creative.studio.component.dependency.FingerprintMode;
+import com.creative.studio.component.dependency.ScanMetrics;
+import com.creative.studio.component.dependency.ScanSettings;
+
+public class SessionIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void scanEachJarOncePerSession() throws Exception {
+        final File jar = jar("a.jar", 20);
+        final SessionIndex index = SessionIndex.forSession("build@1");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            //Modules built in parallel ask for the same jar
+            List<Future<List<ComponentEntry>>> futures = new ArrayList<Future<List<ComponentEntry>>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<List<ComponentEntry>>() {
+                    public List<ComponentEntry> call() throws IOException {
+                        return index.get(jar, ScanSettings.DEFAULT);
+                    }
+                }));
+            }
+            List<ComponentEntry> first = futures.get(0).get();
+            assertEquals(20, first.size());
+            for (Future<List<ComponentEntry>> future : futures) {
+                assertSame(first, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, index.getMisses());
+        assertEquals(7, index.getHits());
+        assertSame(index, SessionIndex.forSession("build@1"));
+        assertNotSame(index, SessionIndex.forSession("build@2"));
+    }
+
+    @Test
+    public void separateTablesPerFingerprintMode() throws IOException {
+        File a = jar("a.jar", 20);
+        //Half the classes of b differ from the ones of a
+        File b = jar("b.jar", 10, 2);
+        List<File> classpath = Arrays.asList(a, b);
+        SessionIndex index = SessionIndex.forSession("build@3");
+        ScanSettings lazy = ScanSettings.DEFAULT.withFingerprintMode(FingerprintMode.LAZY);
+
+        //A lazy module first,its class tables are not digested
+        Map<String, List<ComponentEntry>> conflicts = index.getConflicts(classpath, lazy);
+        assertEquals(5, conflicts.size());
+        assertEquals(2, index.getMisses());
+        List<ComponentEntry> digested = index.get(a, ScanSettings.DEFAULT);
+        assertEquals(3, index.getMisses());
+        assertNotSame(index.get(a, lazy), digested);
+        for (ComponentEntry cEntry : digested) {
+            assertTrue(cEntry.isDigested());
+        }
+        for (FingerprintMode mode : FingerprintMode.values()) {
+            assertEquals(mode.getValue(), conflicts.keySet(),
+                    index.getConflicts(classpath, lazy.withFingerprintMode(mode)).keySet());
+        }
+        assertEquals(6, index.getMisses());
+        //Same fingerprint options,so the tables are shared
+        assertSame(index.get(a, lazy), index.get(a, lazy.withMetrics(new ScanMetrics())));
+        assertEquals(6, index.size());
+    }
+
+    private File jar(String name, int classes) throws IOException {
+        return jar(name, classes, 1);
+    }
+
+    /**
+     * @param step the classes whose index is not a multiple of it have other
+     *            content than the ones of jars with step 1
+     */
+    private File jar(String name, int classes, int step) throws IOException {
+        File file = folder.newFile(name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            for (int i = 0; i < classes; i++) {
+                out.putNextEntry(new ZipEntry("com/test/C" + i + ".class"));
+                out.write(new byte[] { (byte) 0xca, (byte) 0xfe, (byte) i, (byte) (i % step) });
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
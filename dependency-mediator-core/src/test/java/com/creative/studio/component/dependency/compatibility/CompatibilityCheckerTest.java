@@ -0,0 +1,105 @@
+package com.creative.studio.component.dependency.compatibility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import com.creative.studio.component.dependency.compatibility.Incompatibility.Kind;
+
+public class CompatibilityCheckerTest {
+
+    @Test
+    public void detectBinaryIncompatibleChanges() throws IOException {
+        ClassWriter v1 = newClass(Opcodes.ACC_PUBLIC, "java/lang/Runnable");
+        v1.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "MAX", "I",
+                null, 10).visitEnd();
+        v1.visitField(Opcodes.ACC_PUBLIC, "count", "I", null, null).visitEnd();
+        v1.visitField(Opcodes.ACC_PRIVATE, "hidden", "I", null, null).visitEnd();
+        v1.visitMethod(Opcodes.ACC_PUBLIC, "run", "()V", null, null).visitEnd();
+        v1.visitMethod(Opcodes.ACC_PUBLIC, "size", "()I", null, null).visitEnd();
+        v1.visitMethod(Opcodes.ACC_PUBLIC, "get", "(I)Ljava/lang/Object;", null, null).visitEnd();
+
+        //Loaded at runtime
+        ClassWriter v2 = newClass(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+        v2.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "MAX", "I",
+                null, 20).visitEnd();
+        v2.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "count", "I", null, null)
+                .visitEnd();
+        v2.visitMethod(Opcodes.ACC_PUBLIC, "run", "()V", null, null).visitEnd();
+        v2.visitMethod(Opcodes.ACC_PUBLIC, "size", "()J", null, null).visitEnd();
+        v2.visitMethod(Opcodes.ACC_PROTECTED | Opcodes.ACC_FINAL, "get",
+                "(I)Ljava/lang/Object;", null, null).visitEnd();
+        v2.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "clear", "()V", null, null)
+                .visitEnd();
+
+        ClassCompatibleContainer container = new ClassCompatibleContainer();
+        container.add("v2.jar:com/test/A.class", v2.toByteArray());
+        container.add("v1.jar:com/test/A.class", v1.toByteArray());
+        Map<String, List<Incompatibility>> result = new CompatibilityChecker().check(container);
+
+        List<String> found = new ArrayList<String>();
+        for (Incompatibility incompatibility : result.get("com.test.A")) {
+            assertEquals("v1.jar:com/test/A.class", incompatibility.getCompiledAgainst()
+                    .getPathName());
+            found.add(incompatibility.getKind() + " " + incompatibility.getMember());
+        }
+        assertEquals("[CLASS_NOW_ABSTRACT null, INTERFACE_REMOVED java/lang/Runnable, "
+                + "CONSTANT_CHANGED MAX:I, FIELD_STATIC_CHANGED count:I, "
+                + "METHOD_REMOVED size()I, METHOD_LESS_ACCESSIBLE get(I)Ljava/lang/Object;, "
+                + "ABSTRACT_METHOD_ADDED clear()V]", found.toString());
+        assertFalse(Kind.CONSTANT_CHANGED.isBinaryIncompatible());
+        assertTrue(Kind.METHOD_REMOVED.isBinaryIncompatible());
+    }
+
+    @Test
+    public void sameApiIsCompatible() throws IOException {
+        ClassCompatibleContainer container = new ClassCompatibleContainer();
+        for (String jar : new String[] { "a.jar", "b.jar" }) {
+            ClassWriter cw = newClass(Opcodes.ACC_PUBLIC);
+            cw.visitMethod(Opcodes.ACC_PUBLIC, "run", "()V", null, null).visitEnd();
+            //Private members may change freely
+            cw.visitMethod(Opcodes.ACC_PRIVATE, jar.substring(0, 1), "()V", null, null)
+                    .visitEnd();
+            container.add(jar, cw.toByteArray());
+        }
+        assertEquals(2, container.get("com.test.A").size());
+        assertTrue(new CompatibilityChecker().check(container).isEmpty());
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void keepTheLegacyContainerAccessors() throws IOException {
+        ClassCompatibleContainer container = new ClassCompatibleContainer();
+        container.add("a.jar", newClass(Opcodes.ACC_PUBLIC).toByteArray());
+        container.add("b.jar", newClass(Opcodes.ACC_PUBLIC, "java/lang/Runnable",
+                "java/io/Serializable").toByteArray());
+        Map<String, List<Map<String, String>>> legacy = container.getContainer();
+        assertEquals("[{name=com/test/A, pathName=a.jar, superName=java/lang/Object, "
+                + "interfaces=}, {name=com/test/A, pathName=b.jar, "
+                + "superName=java/lang/Object, interfaces=java/lang/Runnable,"
+                + "java/io/Serializable}]", legacy.get("com.test.A").toString());
+
+        ClassCompatibleContainer copy = new ClassCompatibleContainer();
+        copy.setContainer(legacy);
+        ClassSignature signature = copy.getSignatures().get("com.test.A").get(1);
+        assertEquals("b.jar", signature.getPathName());
+        assertEquals("[java/lang/Runnable, java/io/Serializable]", signature.getInterfaces()
+                .toString());
+        assertEquals(legacy, copy.getContainer());
+    }
+
+    private static ClassWriter newClass(int access, String... interfaces) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_7, access, "com/test/A", null, "java/lang/Object", interfaces);
+        return cw;
+    }
+}
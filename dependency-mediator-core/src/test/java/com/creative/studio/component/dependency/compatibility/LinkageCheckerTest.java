@@ -0,0 +1,222 @@
+package com.creative.studio.component.dependency.compatibility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import com.creative.studio.component.dependency.SymbolTable;
+
+public class LinkageCheckerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reportUnresolvedReferences() throws IOException {
+        File app = jar("app.jar", "com/test/App", app());
+        File lib = jar("lib.jar", "com/test/Lib", lib(true));
+        //Shadows lib.jar when it comes first on the classpath
+        File oldLib = jar("old-lib.jar", "com/test/Lib", lib(false));
+
+        assertEquals(Arrays.asList(
+                "com.test.Lib#gone()V (NoSuchMethodError) referenced by com.test.App",
+                "com.test.Lib#g:I (NoSuchFieldError) referenced by com.test.App",
+                "com.test.Missing (NoClassDefFoundError) referenced by com.test.App"),
+                check(app, lib, oldLib));
+        assertEquals(Arrays.asList(
+                "com.test.App#run()V (NoSuchMethodError) referenced by com.test.App",
+                "com.test.Lib#gone()V (NoSuchMethodError) referenced by com.test.App",
+                "com.test.Lib#g:I (NoSuchFieldError) referenced by com.test.App",
+                "com.test.Missing (NoClassDefFoundError) referenced by com.test.App"),
+                check(app, oldLib, lib));
+    }
+
+    @Test
+    public void reportUnknownReferences() throws IOException {
+        //Lib can not be parsed,so whether App finds run in it is not known
+        File app = jar("app.jar", "com/test/App", app());
+        File lib = jar("lib.jar", "com/test/Lib", new byte[] { 1, 2, 3 });
+        List<String> result = check(app, lib);
+        assertTrue(result.contains("com.test.Lib#gone()V (unknown,possible NoSuchMethodError)"
+                + " referenced by com.test.App"));
+        assertTrue(result.contains("com.test.Missing (NoClassDefFoundError) referenced by"
+                + " com.test.App"));
+        //Platform members are still checked
+        assertFalse(result.toString().contains("java.lang.String"));
+    }
+
+    @Test
+    public void parseRecentClassFiles() throws IOException {
+        File app = jar("app.jar", "com/test/App", app());
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_RECORD,
+                "com/test/Lib", null, "java/lang/Object", null);
+        cw.visitNestMember("com/test/Lib$Part");
+        cw.visitRecordComponent("f", "I", null).visitEnd();
+        cw.visitField(Opcodes.ACC_PUBLIC, "f", "I", null, null).visitEnd();
+        cw.visitMethod(Opcodes.ACC_PUBLIC, "run", "()V", null, null).visitEnd();
+        cw.visitEnd();
+        File lib = jar("lib.jar", "com/test/Lib", cw.toByteArray());
+
+        //Members of Lib are checked,not unknown
+        assertEquals(Arrays.asList(
+                "com.test.Lib#gone()V (NoSuchMethodError) referenced by com.test.App",
+                "com.test.Lib#g:I (NoSuchFieldError) referenced by com.test.App",
+                "com.test.Missing (NoClassDefFoundError) referenced by com.test.App"),
+                check(app, lib));
+    }
+
+    @Test
+    public void resolvePlatformClassesOfTheBootClasspath() throws IOException {
+        File app = jar("app.jar", "com/test/App", app());
+        File lib = jar("lib.jar", "com/test/Lib", lib(true));
+        //A platform release whose String has no length()
+        File rt = folder.newFile("rt.jar");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(rt));
+        try {
+            out.putNextEntry(new ZipEntry("java/lang/Object.class"));
+            out.write(platformClass("java/lang/Object", null, "hashCode"));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("java/lang/String.class"));
+            out.write(platformClass("java/lang/String", "java/lang/Object", "isEmpty"));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            List<String> result = new ArrayList<String>();
+            for (LinkageReference reference : new LinkageChecker(pool, Arrays.asList(rt))
+                    .check(Arrays.asList(app, lib))) {
+                result.add(reference.toString().substring(0,
+                        reference.toString().indexOf(" in ")));
+            }
+            assertEquals(Arrays.asList(
+                    "com.test.Lib#gone()V (NoSuchMethodError) referenced by com.test.App",
+                    "com.test.Lib#g:I (NoSuchFieldError) referenced by com.test.App",
+                    "java.lang.String#length()I (NoSuchMethodError) referenced by com.test.App",
+                    "com.test.Missing (NoClassDefFoundError) referenced by com.test.App"),
+                    result);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void reflectPlatformClasses() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            LinkageChecker checker = new LinkageChecker(pool);
+            SymbolTable symbols = checker.getSymbols();
+            ClassLinkage linkage = checker.reflect(symbols.intern("java/lang/String"));
+            assertFalse(linkage.opaque);
+            assertEquals(symbols.intern("java/lang/Object"), linkage.superName);
+            assertTrue(linkage.declares(symbols.intern(ClassSignature.methodKey("length", "()I"))));
+            assertTrue(linkage.declares(symbols.intern(ClassSignature.methodKey("<init>",
+                    "([C)V"))));
+            assertTrue(checker.reflect(symbols.intern("com/test/Missing")).opaque);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private List<String> check(File... classpath) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            List<String> result = new ArrayList<String>();
+            for (LinkageReference reference : new LinkageChecker(pool).check(Arrays
+                    .asList(classpath))) {
+                assertEquals(classpath[0].getPath(), reference.getPathName());
+                result.add(reference.toString().substring(0,
+                        reference.toString().indexOf(" in ")));
+            }
+            return result;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A class extending Lib,whose code refers to members of Lib, of its
+     * supertypes, of platform classes and to a missing class
+     */
+    private static byte[] app() {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, "com/test/App", null, "com/test/Lib", null);
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "test", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "com/test/App", "run", "()V", false);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "com/test/Lib", "gone", "()V", false);
+        //Inherited from Object
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "com/test/App", "hashCode", "()I", false);
+        mv.visitInsn(Opcodes.POP);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, "com/test/Lib", "f", "I");
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, "com/test/Lib", "g", "I");
+        mv.visitInsn(Opcodes.POP2);
+        mv.visitLdcInsn("text");
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "length", "()I", false);
+        mv.visitInsn(Opcodes.POP);
+        mv.visitTypeInsn(Opcodes.NEW, "com/test/Missing");
+        mv.visitInsn(Opcodes.POP);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static byte[] lib(boolean withRun) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, "com/test/Lib", null, "java/lang/Object", null);
+        cw.visitField(Opcodes.ACC_PUBLIC, "f", "I", null, null).visitEnd();
+        if (withRun) {
+            cw.visitMethod(Opcodes.ACC_PUBLIC, "run", "()V", null, null).visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static byte[] platformClass(String name, String superName, String method) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, name, null, superName, null);
+        cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null).visitEnd();
+        cw.visitMethod(Opcodes.ACC_PUBLIC, method, "()I", null, null).visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private File jar(String name, String className, byte[] bytes) throws IOException {
+        File file = folder.newFile(name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            out.putNextEntry(new ZipEntry(className + ".class"));
+            out.write(bytes);
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
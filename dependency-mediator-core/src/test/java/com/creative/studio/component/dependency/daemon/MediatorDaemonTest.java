@@ -0,0 +1,111 @@
+package com.creative.studio.component.dependency.daemon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+import com.creative.studio.component.dependency.ScanSettings;
+
+public class MediatorDaemonTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void checksClasspathsWithWarmIndex() throws Exception {
+        List<File> classpath = Arrays.asList(jar("a.jar", "one"), jar("b.jar", "two"),
+                jar("c.jar", "one"));
+        File daemonFile = new File(folder.getRoot(), "daemon/daemon");
+        final MediatorDaemon daemon = new MediatorDaemon(0, daemonFile, 2, 1000,
+                ScanSettings.DEFAULT);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                daemon.run();
+            }
+        });
+        thread.start();
+        try {
+            MediatorClient client = new MediatorClient(daemonFile, 10000);
+            assertTrue(client.isRunning());
+            for (int i = 0; i < 2; i++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                assertEquals(1, client.check(classpath, false, out));
+                String record = out.toString("UTF-8");
+                assertTrue(record, record.startsWith("{\"type\":\"conflict\",\"class\":\"a.B\""));
+                assertTrue(record, record.contains("b.jar:a/B.class"));
+            }
+            //The second check reused the class tables of the first
+            assertTrue(client.stats(), client.stats().startsWith("3 jars, 3 scanned, 3 reused"));
+            client.stop();
+        } finally {
+            thread.join(10000);
+            daemon.close();
+        }
+        assertFalse(thread.isAlive());
+        assertFalse(daemonFile.exists());
+        assertFalse(new MediatorClient(daemonFile, 1000).isRunning());
+    }
+
+    @Test
+    public void checksWithOptionsOfRequest() throws Exception {
+        List<File> classpath = Arrays.asList(jar("a.jar", "one"), jar("b.jar", "two"));
+        File daemonFile = new File(folder.getRoot(), "daemon");
+        //Class tables of two jars at most
+        final MediatorDaemon daemon = new MediatorDaemon(0, daemonFile, 2, 2,
+                ScanSettings.DEFAULT.withFingerprintMode(FingerprintMode.LAZY));
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                daemon.run();
+            }
+        });
+        thread.start();
+        try {
+            MediatorClient client = new MediatorClient(daemonFile, 10000);
+            ByteArrayOutputStream lazy = new ByteArrayOutputStream();
+            assertEquals(1, client.check(classpath, false, lazy));
+            assertEquals(1, client.check(classpath, false, new ByteArrayOutputStream()));
+            assertTrue(client.stats(), client.stats().startsWith("2 jars, 2 scanned, 2 reused"));
+            //Digested class tables of their own,which are too many
+            assertEquals(1, client.check(classpath, false, FingerprintMode.DIGEST, null,
+                    new ByteArrayOutputStream()));
+            assertTrue(client.stats(), client.stats().startsWith("0 jars, 0 scanned, 0 reused"));
+            for (FingerprintMode mode : FingerprintMode.values()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                assertEquals(1, client.check(classpath, false, mode, DigestAlgorithm.SHA256, out));
+                assertEquals(mode.getValue(), lazy.toString("UTF-8"), out.toString("UTF-8"));
+            }
+            client.stop();
+        } finally {
+            thread.join(10000);
+            daemon.close();
+        }
+    }
+
+    private File jar(String name, String content) throws IOException {
+        File jar = folder.newFile(name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            out.putNextEntry(new ZipEntry("a/B.class"));
+            out.write(content.getBytes("UTF-8"));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        return jar;
+    }
+}
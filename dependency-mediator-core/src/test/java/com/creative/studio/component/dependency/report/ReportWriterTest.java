@@ -0,0 +1,88 @@
+package com.creative.studio.component.dependency.report;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.creative.studio.component.dependency.ComponentEntry;
+
+public class ReportWriterTest {
+
+    private static final List<ComponentEntry> ENTRIES = Arrays.asList(new ComponentEntry(
+                                                              "a.B", "x.jar", "a/B.class"),
+                                                              new ComponentEntry("a.B",
+                                                                      "y\"1\".jar", "a/B.class"));
+
+    @Test
+    public void writesJson() throws IOException {
+        assertEquals("{\"type\":\"conflict\",\"class\":\"a.B\",\"paths\":[\"x.jar:a/B.class\","
+                + "\"y\\\"1\\\".jar:a/B.class\"]}\n", write(ReportFormat.NDJSON, 1));
+        String record = write(ReportFormat.NDJSON, 1).trim();
+        assertEquals("[\n" + record + ",\n" + record + "\n]\n", write(ReportFormat.JSON, 2));
+        assertEquals("[]\n", write(ReportFormat.JSON, 0));
+    }
+
+    @Test
+    public void writesBinary() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReportWriter writer = ReportFormat.BINARY.open(bytes);
+        writer.writeConflict("a.B", ENTRIES);
+        writer.writeConflict("a.B", ENTRIES);
+        writer.close();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(BinaryReportWriter.MAGIC, in.readInt());
+        assertEquals(BinaryReportWriter.VERSION, in.readInt());
+        List<String> strings = new ArrayList<String>();
+        for (int record = 0; record < 2; record++) {
+            assertEquals(BinaryReportWriter.CONFLICT, in.readByte());
+            assertEquals("a.B", readString(in, strings));
+            assertEquals(2, readVarint(in));
+            assertEquals("x.jar:a/B.class", readString(in, strings));
+            assertEquals("y\"1\".jar:a/B.class", readString(in, strings));
+        }
+        //Each string is written once
+        assertEquals(3, strings.size());
+        assertEquals(BinaryReportWriter.END, in.readByte());
+        assertEquals(-1, in.read());
+    }
+
+    private static String write(ReportFormat format, int records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReportWriter writer = format.open(bytes);
+        for (int i = 0; i < records; i++) {
+            writer.writeConflict("a.B", ENTRIES);
+        }
+        writer.close();
+        return bytes.toString("UTF-8");
+    }
+
+    private static String readString(DataInputStream in, List<String> strings)
+            throws IOException {
+        int id = readVarint(in);
+        if (id == -1) {
+            strings.add(in.readUTF());
+            return strings.get(strings.size() - 1);
+        }
+        return id == 0 ? null : strings.get(id - 1);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.creative.studio.component.dependency.plugins;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+
+/**
+ * The version strategies which come with the plugin
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public enum BuiltinVersionStrategy implements VersionStrategy {
+    /**
+     * A newer major or minor version was omitted,the default
+     */
+    MINOR("minor") {
+        @Override
+        public boolean isIncompatible(ArtifactVersion omitted, ArtifactVersion resolved) {
+            return omitted.getMajorVersion() > resolved.getMajorVersion()
+                    || (omitted.getMajorVersion() == resolved.getMajorVersion() && omitted
+                            .getMinorVersion() > resolved.getMinorVersion());
+        }
+    },
+    /**
+     * Semantic versioning,a newer major version was omitted,or a newer minor
+     * version of a 0.y.z release,which may change anything
+     */
+    SEMVER("semver") {
+        @Override
+        public boolean isIncompatible(ArtifactVersion omitted, ArtifactVersion resolved) {
+            if (omitted.getMajorVersion() != resolved.getMajorVersion()) {
+                return omitted.getMajorVersion() > resolved.getMajorVersion();
+            }
+            return omitted.getMajorVersion() == 0
+                    && omitted.getMinorVersion() > resolved.getMinorVersion();
+        }
+    },
+    /**
+     * Calendar versioning such as 2015.04.1,a release of a later year was
+     * omitted
+     */
+    CALENDAR("calendar") {
+        @Override
+        public boolean isIncompatible(ArtifactVersion omitted, ArtifactVersion resolved) {
+            return omitted.getMajorVersion() > resolved.getMajorVersion();
+        }
+    },
+    /**
+     * Same as {@link #MINOR},and also a build of another vendor,such as
+     * 1.2.0-redhat-1 for 1.2.0,whatever its version
+     */
+    VENDOR("vendor") {
+        @Override
+        public boolean isIncompatible(ArtifactVersion omitted, ArtifactVersion resolved) {
+            return MINOR.isIncompatible(omitted, resolved)
+                    || !getVendor(omitted).equals(getVendor(resolved));
+        }
+    },
+    /**
+     * Conflicts are never reported
+     */
+    NONE("none") {
+        @Override
+        public boolean isIncompatible(ArtifactVersion omitted, ArtifactVersion resolved) {
+            return false;
+        }
+    };
+
+    private String value;
+
+    BuiltinVersionStrategy(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+
+    public String getName() {
+        return this.value;
+    }
+
+    private static Map<String, BuiltinVersionStrategy> stringToEnum = new HashMap<String, BuiltinVersionStrategy>();
+
+    static {
+        for (BuiltinVersionStrategy strategy : values()) {
+            stringToEnum.put(strategy.getValue(), strategy);
+        }
+    }
+
+    public static BuiltinVersionStrategy fromString(String value) {
+        return stringToEnum.get(value.toLowerCase());
+    }
+
+    /**
+     * @return the builtin strategy of the name,or else the first strategy of
+     *         that name provided through the service loader,null if none
+     */
+    public static VersionStrategy forName(String name) {
+        VersionStrategy strategy = fromString(name);
+        if (strategy != null) {
+            return strategy;
+        }
+        for (VersionStrategy provided : ServiceLoader.load(VersionStrategy.class,
+                BuiltinVersionStrategy.class.getClassLoader())) {
+            if (provided.getName().equalsIgnoreCase(name)) {
+                return provided;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the vendor of the qualifier without its build number,empty for
+     *         plain releases and snapshots
+     */
+    static String getVendor(ArtifactVersion version) {
+        String qualifier = version.getQualifier();
+        if (qualifier == null) {
+            return "";
+        }
+        int end = qualifier.length();
+        while (end > 0 && (Character.isDigit(qualifier.charAt(end - 1))
+                || "-._".indexOf(qualifier.charAt(end - 1)) != -1)) {
+            end--;
+        }
+        String vendor = qualifier.substring(0, end).toLowerCase();
+        if ("snapshot".equals(vendor) || "release".equals(vendor) || "final".equals(vendor)
+                || "ga".equals(vendor)) {
+            return "";
+        }
+        return vendor;
+    }
+}
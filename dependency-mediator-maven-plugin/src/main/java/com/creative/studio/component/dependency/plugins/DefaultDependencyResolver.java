@@ -11,16 +11,26 @@ import org.apache.maven.shared.dependency.tree.DependencyNode;
  */
 public class DefaultDependencyResolver implements DependencyResolver {
 
+    private final VersionPolicy versionPolicy;
+
     /**
      * Construct a <code>DefaultDependencyConflictsResolver<code>.
      */
     public DefaultDependencyResolver() {
+        this(new VersionPolicy(BuiltinVersionStrategy.MINOR));
+    }
+
+    /**
+     * @param versionPolicy the strategy of each dependency
+     */
+    public DefaultDependencyResolver(VersionPolicy versionPolicy) {
         super();
+        this.versionPolicy = versionPolicy;
     }
 
     @Override
     public DependencyResolutionResult resolve(final DependencyNode rootNode) {
-        DependencyResolverVisitor nodeVisitor = new DependencyResolverVisitor();
+        DependencyResolverVisitor nodeVisitor = new DependencyResolverVisitor(versionPolicy);
         rootNode.accept(nodeVisitor);
         return new DefaultDependencyResolutionResult(nodeVisitor.getResolvedDependenciesByName(),
                 nodeVisitor.getConflictDependencyArtifacts());
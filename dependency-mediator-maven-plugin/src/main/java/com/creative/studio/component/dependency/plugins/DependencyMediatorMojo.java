@@ -1,18 +1,27 @@
 package com.creative.studio.component.dependency.plugins;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TreeSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.management.JMException;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
 import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Model;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -31,6 +40,24 @@ import com.creative.studio.component.dependency.ComponentContainer;
 import com.creative.studio.component.dependency.ComponentEntry;
 import com.creative.studio.component.dependency.ComponentFormat;
 import com.creative.studio.component.dependency.DependencyMediator;
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.FingerprintMode;
+import com.creative.studio.component.dependency.NestedArchiveScanner;
+import com.creative.studio.component.dependency.ScanMetrics;
+import com.creative.studio.component.dependency.ScanPipeline;
+import com.creative.studio.component.dependency.ScanSettings;
+import com.creative.studio.component.dependency.cache.ArtifactIndex;
+import com.creative.studio.component.dependency.cache.ClassTableCache;
+import com.creative.studio.component.dependency.cache.ScanCache;
+import com.creative.studio.component.dependency.cache.SessionIndex;
+import com.creative.studio.component.dependency.cache.TieredCache;
+import com.creative.studio.component.dependency.compatibility.Incompatibility;
+import com.creative.studio.component.dependency.compatibility.LinkageChecker;
+import com.creative.studio.component.dependency.compatibility.LinkageReference;
+import com.creative.studio.component.dependency.report.ReportFormat;
+import com.creative.studio.component.dependency.report.ReportWriter;
+import com.creative.studio.component.dependency.plugins.IncrementalState.Fingerprint;
+import com.creative.studio.component.dependency.plugins.IncrementalState.Result;
 
 /**
  * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
@@ -54,13 +81,19 @@ public class DependencyMediatorMojo extends AbstractMojo {
      */
     @Parameter(defaultValue = "${localRepository}", readonly = true, required = true)
     private ArtifactRepository    localRepository;
+    /**
+     * The build session,whose modules share the session index.
+     */
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession          session;
     /**
      * Skip plugin execution completely.
      */
     @Parameter(property = "skip", defaultValue = "false")
     private boolean               skip;
     /**
-     * Whether report class incompatible details
+     * Whether to report the binary incompatible changes between the versions
+     * of each conflicting class
      */
     @Parameter(property = "printIncompatibleDetails", defaultValue = "true")
     private boolean               printIncompatibleDetails;
@@ -127,6 +160,126 @@ public class DependencyMediatorMojo extends AbstractMojo {
      */
     @Parameter(defaultValue = "true")
     private boolean               failOnError;
+    /**
+     * How to fingerprint classes of the jars, <code>digest</code> inflates and
+     * digests every class, <code>crc</code> compares CRC-32 and size from the
+     * zip central directory first and only digests classes when they match,
+     * <code>lazy</code> indexes class names first and only digests classes
+     * whose names occur in more than one jar. The classes of the archives
+     * nested in a war or ear package are always digested.
+     */
+    @Parameter(property = "fingerprint", defaultValue = "digest")
+    private String                fingerprint;
+    /**
+     * Hash function of the class digests, one of <code>md5</code>,
+     * <code>sha-256</code>, <code>xxhash64</code> and <code>crc32c</code>.
+     */
+    @Parameter(property = "digestAlgorithm", defaultValue = "md5")
+    private String                digestAlgorithm;
+    /**
+     * Whether to cache the classes and fingerprints of every jar, so unchanged
+     * jars are not read again by the next build. Always on for incremental
+     * checks. The archives nested in a war or ear package are not cached,
+     * they are read again with the package.
+     */
+    @Parameter(property = "useCache", defaultValue = "true")
+    private boolean               useCache;
+    /**
+     * Where the per-jar scan cache is stored.
+     */
+    @Parameter(property = "cacheDirectory", defaultValue = "${project.build.directory}/dependency-mediator-cache")
+    private File                  cacheDirectory;
+    /**
+     * Whether the scan cache is also keyed by the digest of the whole jar,
+     * besides its path, length and last modified time.
+     */
+    @Parameter(property = "verifyCache", defaultValue = "false")
+    private boolean               verifyCache;
+    /**
+     * Whether to share jar class tables with every build using the same local
+     * repository, through a content-addressed index stored in it.
+     */
+    @Parameter(property = "useArtifactIndex", defaultValue = "false")
+    private boolean               useArtifactIndex;
+    /**
+     * Threads which inflate and digest the dependency jars in a scan
+     * pipeline,zero to scan them one by one on the build thread.
+     */
+    @Parameter(property = "scanWorkers", defaultValue = "0")
+    private int                   scanWorkers;
+    /**
+     * Whether to report the references of the runtime classpath which would
+     * throw NoClassDefFoundError, NoSuchFieldError or NoSuchMethodError.
+     * References to platform classes are resolved against
+     * <code>linkageBootClasspath</code>.
+     */
+    @Parameter(property = "checkLinkage", defaultValue = "false")
+    private boolean               checkLinkage;
+    /**
+     * Jars of the platform classes of the release the project targets, such
+     * as the rt.jar of its JDK. By default references to platform classes are
+     * resolved against the JDK running Maven, which may differ from the
+     * release the project runs on.
+     */
+    @Parameter(property = "linkageBootClasspath")
+    private File[]                linkageBootClasspath;
+    /**
+     * Whether to keep the artifacts and results of the check in
+     * <code>stateFile</code>, so the next build reports the previous results
+     * when no dependency changed. Otherwise the dependencies are scanned
+     * again, the unchanged jars from the scan cache, which incremental checks
+     * always use, and only the compatibility of the classes which changed
+     * dependencies touch is checked again. A war or ear package is read again
+     * as a whole, its nested archives do not go through the scan cache.
+     */
+    @Parameter(property = "incremental", defaultValue = "false")
+    private boolean               incremental;
+    /**
+     * Where the state of the incremental check is stored.
+     */
+    @Parameter(property = "stateFile", defaultValue = "${project.build.directory}/dependency-mediator-state")
+    private File                  stateFile;
+    /**
+     * Whether war and ear projects check their runtime classpath instead of
+     * their package, against class tables shared by every module of the build
+     * session, so each dependency jar is only scanned once per build, even in
+     * parallel builds.
+     */
+    @Parameter(property = "sharedIndex", defaultValue = "false")
+    private boolean               sharedIndex;
+    /**
+     * Format of a machine readable report of the conflicts and
+     * incompatibilities of war and ear projects, json, ndjson or binary. No
+     * report is written by default.
+     */
+    @Parameter(property = "reportFormat")
+    private String                reportFormat;
+    /**
+     * Whether to log the scan metrics of war and ear projects, per stage and
+     * for the slowest jars, and to expose them through JMX. Each module
+     * records its own metrics, also in parallel builds.
+     */
+    @Parameter(property = "printMetrics", defaultValue = "false")
+    private boolean               printMetrics;
+    /**
+     * How a dependency version omitted for a conflict is found incompatible
+     * with the resolved one, minor, semver, calendar, vendor, none, or the
+     * name of a {@link VersionStrategy} provided through the service loader.
+     */
+    @Parameter(property = "versionStrategy", defaultValue = "minor")
+    private String                versionStrategy;
+    /**
+     * File of rules choosing the version strategy by group id and artifact
+     * id, see {@link VersionPolicy}. Dependencies no rule matches use
+     * <code>versionStrategy</code>.
+     */
+    @Parameter(property = "versionPolicy")
+    private File                  versionPolicy;
+    /**
+     * Where the report is written,each record as soon as it is found.
+     */
+    @Parameter(property = "reportFile", defaultValue = "${project.build.directory}/dependency-mediator-report")
+    private File                  reportFile;
 
     public boolean isSkip() {
         return skip;
@@ -161,11 +314,29 @@ public class DependencyMediatorMojo extends AbstractMojo {
     }
 
     private void processPackage() throws MojoExecutionException {
+        IncrementalState state = new IncrementalState(getSettings("tree"));
+        if (incremental) {
+            IncrementalState previous = IncrementalState.load(stateFile);
+            fingerprintArtifacts(state, previous);
+            if (isUnchanged(state, previous)) {
+                printLines(previous.getResults());
+                return;
+            }
+        }
+        List<Result> results = resolveConflicts();
+        printLines(results);
+        if (incremental) {
+            storeState(state, results);
+        }
+    }
+
+    private List<Result> resolveConflicts() throws MojoExecutionException {
+        List<Result> results = new ArrayList<Result>();
         try {
             //Limit the transitivity of a dependency, and also to affect the classpath used for various build tasks.
             ArtifactFilter artifactFilter = createResolvingArtifactFilter();
 
-            DependencyResolver dependencyResolver = new DefaultDependencyResolver();
+            DependencyResolver dependencyResolver = new FastDependencyResolver(loadVersionPolicy());
             DependencyNode rootNode = dependencyTreeBuilder.buildDependencyTree(project,
                     localRepository, artifactFilter);
 
@@ -173,7 +344,7 @@ public class DependencyMediatorMojo extends AbstractMojo {
 
             Map<String, List<Artifact>> conflictDependencyArtifact = drr
                     .getConflictDependencyArtifact();
-            Map<String, Artifact> results = drr.getResolvedDependenciesByName();
+            Map<String, Artifact> resolved = drr.getResolvedDependenciesByName();
             if (!conflictDependencyArtifact.isEmpty()) {
                 Iterator<Entry<String, List<Artifact>>> iter = conflictDependencyArtifact
                         .entrySet().iterator();
@@ -183,32 +354,243 @@ public class DependencyMediatorMojo extends AbstractMojo {
                     List<Artifact> conflictArtifacts = conflictEntries.getValue();
                     sb.append(conflictEntries.getKey())
                             .append("\n Resolved version is "
-                                    + results.get(conflictEntries.getKey()))
+                                    + resolved.get(conflictEntries.getKey()))
                             .append("\n But found conflicting artifact ");
                     for (Artifact at : conflictArtifacts) {
                         sb.append(String.format("%s:%s:%s,", at.getGroupId(), at.getArtifactId(),
                                 at.getVersion()));
                     }
-                    getLog().warn(sb.subSequence(0, sb.length() - 1));
+                    results.add(new Result(conflictEntries.getKey(), Collections
+                            .<String> emptyList(), Collections.singletonList(sb.substring(0,
+                            sb.length() - 1)), Collections.<String> emptyList()));
                 }
             }
         } catch (DependencyTreeBuilderException e) {
             throw new MojoExecutionException("Cannot build project dependency ", e);
         }
+        return results;
+    }
+
+    private VersionPolicy loadVersionPolicy() throws MojoExecutionException {
+        VersionStrategy strategy = versionStrategy == null ? BuiltinVersionStrategy.MINOR
+                : BuiltinVersionStrategy.forName(versionStrategy);
+        if (strategy == null) {
+            throw new MojoExecutionException("Unknown version strategy " + versionStrategy);
+        }
+        if (versionPolicy == null) {
+            return new VersionPolicy(strategy);
+        }
+        try {
+            VersionPolicy policy = VersionPolicy.load(versionPolicy, strategy);
+            getLog().debug(String.format("Version policy: %d rules", policy.size()));
+            return policy;
+        } catch (IOException e) {
+            String message = "Failed to load version policy " + versionPolicy;
+            getLog().error(message, e);
+            throw new MojoExecutionException(message, e);
+        }
     }
 
     private void doExecute() throws MojoExecutionException {
         Model model = project.getModel();
         String packagingType = model.getPackaging();
-        if (ComponentFormat.WAR.getValue().equalsIgnoreCase(packagingType)) {
-            processWarPackage();
-            printResult();
+        if (ComponentFormat.WAR.getValue().equalsIgnoreCase(packagingType)
+                || ComponentFormat.EAR.getValue().equalsIgnoreCase(packagingType)) {
+            ScanSettings settings = createScanSettings();
+            if (printMetrics) {
+                registerMetrics(settings.getMetrics());
+            }
+            try {
+                processWarPackage(settings);
+            } finally {
+                if (printMetrics) {
+                    unregisterMetrics(settings.getMetrics());
+                }
+            }
+            if (printMetrics) {
+                getLog().info("Scan metrics......");
+                for (String line : settings.getMetrics().toString().split("\n")) {
+                    getLog().info(line);
+                }
+            }
         } else {
             processPackage();
         }
+        if (checkLinkage) {
+            processLinkage();
+        }
+    }
+
+    /**
+     * @return the existing classes directories and jars of the runtime
+     *         classpath,in classpath order
+     */
+    private File[] getRuntimeClasspath() throws MojoExecutionException {
+        List<File> classpath = new ArrayList<File>();
+        try {
+            for (Object element : project.getRuntimeClasspathElements()) {
+                File file = new File((String) element);
+                if (file.exists()) {
+                    classpath.add(file);
+                }
+            }
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Cannot resolve runtime classpath ", e);
+        }
+        return classpath.toArray(new File[classpath.size()]);
+    }
+
+    private void processLinkage() throws MojoExecutionException {
+        File[] classpath = getRuntimeClasspath();
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            List<File> bootClasspath = linkageBootClasspath == null ? Collections
+                    .<File> emptyList() : Arrays.asList(linkageBootClasspath);
+            List<LinkageReference> unresolved = new LinkageChecker(pool, bootClasspath)
+                    .check(Arrays.asList(classpath));
+            int unknown = 0;
+            for (LinkageReference reference : unresolved) {
+                if (reference.isUnknown()) {
+                    unknown++;
+                    //Counted below,there may be many of a class which can not be parsed
+                    getLog().debug("Unknown reference " + reference);
+                } else {
+                    getLog().warn("Unresolved reference " + reference);
+                }
+            }
+            if (unresolved.isEmpty()) {
+                getLog().info("Congratulations,all references are resolved!");
+            } else if (unresolved.size() == unknown) {
+                getLog().info("No unresolved reference," + unknown + " could not be checked");
+            } else if (unknown > 0) {
+                getLog().info(unknown + " references could not be checked");
+            }
+        } catch (IOException e) {
+            String message = "Failed to check linkage of " + project.getArtifactId();
+            getLog().error(message, e);
+            throw new MojoExecutionException(message, e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Settings of this execution only,so modules built in parallel never
+     * scan with the options of another one
+     */
+    private ScanSettings createScanSettings() throws MojoExecutionException {
+        FingerprintMode mode = FingerprintMode.fromString(fingerprint);
+        if (mode == null) {
+            throw new MojoExecutionException("Unknown fingerprint mode " + fingerprint);
+        }
+        DigestAlgorithm algorithm = DigestAlgorithm.fromString(digestAlgorithm);
+        if (algorithm == null) {
+            throw new MojoExecutionException("Unknown digest algorithm " + digestAlgorithm);
+        }
+        return ScanSettings.DEFAULT.withFingerprintMode(mode).withDigestAlgorithm(algorithm)
+                .withScanCache(createScanCache()).withMetrics(new ScanMetrics());
     }
 
-    private void processWarPackage() throws MojoExecutionException {
+    /**
+     * Expose the metrics of this check,under the id of the module so the
+     * modules of a parallel build do not replace each other's
+     */
+    private void registerMetrics(ScanMetrics metrics) {
+        try {
+            metrics.register(project.getId());
+        } catch (JMException e) {
+            getLog().warn("Failed to register " + ScanMetrics.OBJECT_NAME, e);
+        }
+    }
+
+    private void unregisterMetrics(ScanMetrics metrics) {
+        try {
+            metrics.unregister();
+        } catch (JMException e) {
+            getLog().warn("Failed to unregister " + ScanMetrics.OBJECT_NAME, e);
+        }
+    }
+
+    private ClassTableCache createScanCache() {
+        ClassTableCache cache = useCache || incremental ? new ScanCache(cacheDirectory,
+                verifyCache) : null;
+        if (useArtifactIndex) {
+            ArtifactIndex index = new ArtifactIndex(new File(localRepository.getBasedir()));
+            cache = cache == null ? index : new TieredCache(cache, index);
+        }
+        return cache;
+    }
+
+    private void processWarPackage(ScanSettings settings) throws MojoExecutionException {
+        File packageFile = sharedIndex ? null : getPackageFile();
+        File[] jarFiles = packageFile == null ? (sharedIndex ? getRuntimeClasspath()
+                : getDependencyJarFiles()) : null;
+        IncrementalState state = new IncrementalState(getSettings(project.getPackaging()));
+        IncrementalState previous = null;
+        Set<String> changed = null;
+        if (incremental) {
+            previous = IncrementalState.load(stateFile);
+            try {
+                if (packageFile != null) {
+                    state.fingerprintPackage(previous, packageFile);
+                } else {
+                    for (File file : jarFiles) {
+                        state.putArtifact(file.getPath(), IncrementalState.fingerprint(file,
+                                previous == null ? null : previous.getArtifact(file.getPath())));
+                    }
+                }
+            } catch (IOException e) {
+                String message = "Failed to fingerprint  " + project.getArtifactId();
+                getLog().error(message, e);
+                throw new MojoExecutionException(message, e);
+            }
+            //The report of the previous check is still the one of this check
+            if (isUnchanged(state, previous) && (reportFormat == null || reportFile.isFile())) {
+                printResult(previous.getResults());
+                return;
+            }
+            //Reused results only keep their logged lines,so a report checks everything
+            changed = reportFormat == null ? state.diff(previous) : null;
+        }
+        Map<String, List<ComponentEntry>> conflicts;
+        try {
+            if (sharedIndex) {
+                conflicts = processClasspath(jarFiles, settings);
+            } else {
+                //Each execution owns its container,so parallel module builds never share it
+                ComponentContainer container = new ComponentContainer();
+                if (packageFile != null) {
+                    //Nested jars are scanned in place,no exploded directory is needed
+                    DependencyMediator.process(packageFile, container, settings);
+                } else {
+                    processJarFiles(jarFiles, container, settings);
+                }
+                conflicts = container.getConflicts();
+            }
+        } catch (IOException e) {
+            String message = "Failed to process  "
+                    + (packageFile != null ? packageFile : project.getArtifactId());
+            getLog().error(message, e);
+            throw new MojoExecutionException(message, e);
+        }
+        ReportWriter writer = openReport();
+        List<Result> results;
+        try {
+            results = analyze(conflicts, state, previous, changed, writer, settings);
+        } catch (IOException e) {
+            String message = "Failed to write  " + reportFile;
+            getLog().error(message, e);
+            throw new MojoExecutionException(message, e);
+        } finally {
+            closeReport(writer);
+        }
+        printResult(results);
+        if (incremental) {
+            storeState(state, results);
+        }
+    }
+
+    private File[] getDependencyJarFiles() throws MojoExecutionException {
         File dependencyFolder = new File(new File(new File(project.getBuild().getDirectory()),
                 project.getBuild().getFinalName()), "WEB-INF/lib");
         if (!dependencyFolder.exists()) {
@@ -220,38 +602,273 @@ public class DependencyMediatorMojo extends AbstractMojo {
             getLog().info("No dependencies for " + project.getArtifactId());
             System.exit(0);
         }
+        return jarFiles;
+    }
+
+    /**
+     * @return the packaged war or ear of the project, or null if it is not
+     *         built yet
+     */
+    private File getPackageFile() {
+        File file = project.getArtifact() == null ? null : project.getArtifact().getFile();
+        if (file == null || !file.isFile()) {
+            file = new File(project.getBuild().getDirectory(), project.getBuild().getFinalName()
+                    + "." + project.getPackaging());
+        }
+        return file.isFile() ? file : null;
+    }
+
+    private void processJarFiles(File[] jarFiles, ComponentContainer container,
+                                 ScanSettings settings) throws IOException {
+        if (scanWorkers > 0) {
+            ScanPipeline pipeline = new ScanPipeline(1, scanWorkers,
+                    ScanPipeline.DEFAULT_QUEUE_DEPTH, ScanPipeline.DEFAULT_QUEUE_DEPTH);
+            pipeline.scan(Arrays.asList(jarFiles), container, settings);
+            getLog().debug("Scan pipeline stats:\n" + pipeline.getStats());
+        } else {
+            for (File file : jarFiles) {
+                DependencyMediator.processJarFile(file, true, container, settings);
+            }
+        }
+        if (settings.getFingerprintMode().isDeferred()) {
+            DependencyMediator.resolveDuplicates(container, settings);
+        }
+    }
+
+    /**
+     * Report the conflicting classes and their
+     * incompatibilities. Only the compatibility of the classes which changed
+     * artifacts touch is checked again,the one of the others is taken from
+     * the previous state.
+     *
+     * @param changed the keys of the changed artifacts,or null to check all
+     * @param writer where the results are reported too,or null
+     */
+    private List<Result> analyze(Map<String, List<ComponentEntry>> conflicts,
+                                 IncrementalState state, IncrementalState previous,
+                                 Set<String> changed, ReportWriter writer, ScanSettings settings)
+            throws IOException {
+        List<Result> results = new ArrayList<Result>();
+        ComponentContainer touched = new ComponentContainer();
+        for (Entry<String, List<ComponentEntry>> entry : conflicts.entrySet()) {
+            List<String> lines = new ArrayList<String>();
+            List<String> artifacts = new ArrayList<String>();
+            lines.add(String.format("Conflicting component  [%s] was founded in the  path : \n",
+                    entry.getKey()));
+            for (ComponentEntry jar : entry.getValue()) {
+                lines.add(String.format(" \t%s\n", jar.getPathName()));
+                artifacts.add(getArtifactKey(jar));
+            }
+            if (writer != null) {
+                writer.writeConflict(entry.getKey(), entry.getValue());
+            }
+            Result old = changed == null ? null : previous.getResult(entry.getKey());
+            if (old != null && old.artifacts.equals(artifacts) && isUnchanged(artifacts, state,
+                    changed)) {
+                results.add(new Result(entry.getKey(), artifacts, lines, old.details));
+            } else {
+                results.add(new Result(entry.getKey(), artifacts, lines, new ArrayList<String>()));
+                for (ComponentEntry jar : entry.getValue()) {
+                    touched.put(entry.getKey(), jar);
+                }
+            }
+        }
+        if (printIncompatibleDetails && touched.size() > 0) {
+            Map<String, List<Incompatibility>> incompatibilities = DependencyMediator
+                    .processCompatible(touched, settings);
+            for (Result result : results) {
+                List<Incompatibility> list = incompatibilities.get(result.key);
+                if (list != null && writer != null) {
+                    for (Incompatibility incompatibility : list) {
+                        writer.writeIncompatibility(result.key, incompatibility);
+                    }
+                }
+                if (list != null) {
+                    result.details.add(String.format("Incompatible component  [%s] :", result.key));
+                    for (Incompatibility incompatibility : list) {
+                        result.details.add(String.format(" \t%s", incompatibility));
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Classes outside of jars,such as the ones of classes directories, are
+     * not fingerprinted by themselves,so they always count as changed
+     */
+    private static boolean isUnchanged(List<String> artifacts, IncrementalState state,
+                                       Set<String> changed) {
+        for (String artifact : artifacts) {
+            if (state.getArtifact(artifact) == null || changed.contains(artifact)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the jar of the entry,or the outermost nested archive in the
+     *         package holding it
+     */
+    private static String getArtifactKey(ComponentEntry cEntry) {
+        String jarName = cEntry.getJarName();
+        if (jarName == null) {
+            return cEntry.getPathName();
+        }
+        int nested = jarName.indexOf(NestedArchiveScanner.NESTED_SEPARATOR);
+        if (nested != -1) {
+            nested = jarName.indexOf(NestedArchiveScanner.NESTED_SEPARATOR, nested
+                    + NestedArchiveScanner.NESTED_SEPARATOR.length());
+        }
+        return nested == -1 ? jarName : jarName.substring(0, nested);
+    }
+
+    /**
+     * Find the conflicting classes of the classpath,from the class tables and
+     * bitmaps of its jars in the session index. Classes directories are the
+     * module's own, so they are scanned and indexed every time.
+     */
+    private Map<String, List<ComponentEntry>> processClasspath(File[] classpath,
+                                                               ScanSettings settings)
+            throws IOException {
+        SessionIndex index = SessionIndex.forSession(getSessionId());
+        Map<String, List<ComponentEntry>> conflicts = index.getConflicts(Arrays.asList(classpath),
+                settings);
+        String stats = String.format("Session index: %d jars, %d scanned, %d reused",
+                index.size(), index.getMisses(), index.getHits());
+        if (printMetrics) {
+            getLog().info(stats);
+        } else {
+            getLog().debug(stats);
+        }
+        return conflicts;
+    }
+
+    /**
+     * @return the writer of the report,or null if no report is asked for
+     */
+    private ReportWriter openReport() throws MojoExecutionException {
+        if (reportFormat == null) {
+            return null;
+        }
+        ReportFormat format = ReportFormat.fromString(reportFormat);
+        if (format == null) {
+            throw new MojoExecutionException("Unknown report format " + reportFormat
+                    + ",expected one of json, ndjson or binary");
+        }
+        File directory = reportFile.getAbsoluteFile().getParentFile();
         try {
-            processJarFiles(jarFiles);
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("Cannot create " + directory);
+            }
+            return format.open(new FileOutputStream(reportFile));
         } catch (IOException e) {
-            String message = "Failed to process  " + project.getArtifactId();
+            String message = "Failed to write  " + reportFile;
             getLog().error(message, e);
             throw new MojoExecutionException(message, e);
         }
+    }
 
+    private void closeReport(ReportWriter writer) {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                getLog().warn("Failed to close " + reportFile, e);
+            }
+        }
     }
 
-    private void processJarFiles(File[] jarFiles) throws IOException {
-        for (File file : jarFiles) {
-            DependencyMediator.processJarFile(file, true);
+    /**
+     * Modules built in parallel may see copies of the session,so it is told
+     * by where and when the build started
+     */
+    private String getSessionId() {
+        if (session == null || session.getStartTime() == null) {
+            return "";
         }
+        return session.getExecutionRootDirectory() + "@" + session.getStartTime().getTime();
     }
 
-    private void printResult() {
+    private void printResult(List<Result> results) {
         getLog().info("Output component reactor info......");
-        int count = 0;
-        for (Entry<String, TreeSet<ComponentEntry>> entry : ComponentContainer.compMaps.entrySet()) {
-            if (entry.getValue().size() > 1) {
-                count++;
-                getLog().warn(
-                        String.format("Conflicting component  [%s] was founded in the  path : \n",
-                                entry.getKey()));
-                for (ComponentEntry jar : entry.getValue()) {
-                    getLog().warn(String.format(" \t%s\n", jar.getPathName()));
+        printLines(results);
+        if (results.isEmpty()) {
+            getLog().info("Congratulations,no conflicting component  exist!");
+        } else if (printIncompatibleDetails) {
+            for (Result result : results) {
+                for (String line : result.details) {
+                    getLog().warn(line);
                 }
             }
         }
-        if (count == 0) {
-            getLog().info("Congratulations,no conflicting component  exist!");
+    }
+
+    private void printLines(List<Result> results) {
+        for (Result result : results) {
+            for (String line : result.lines) {
+                getLog().warn(line);
+            }
+        }
+    }
+
+    /**
+     * Fingerprint the resolved artifacts by their coordinates and files,and
+     * the project model,whose changes may change the dependency tree
+     */
+    private void fingerprintArtifacts(IncrementalState state, IncrementalState previous)
+            throws MojoExecutionException {
+        try {
+            for (Object element : project.getArtifacts()) {
+                Artifact artifact = (Artifact) element;
+                String key = artifact.getId();
+                File file = artifact.getFile();
+                state.putArtifact(key, file != null && file.isFile() ? IncrementalState
+                        .fingerprint(file, previous == null ? null : previous.getArtifact(key))
+                        : new Fingerprint(0, 0, key));
+            }
+            File pom = project.getFile();
+            if (pom != null && pom.isFile()) {
+                state.putArtifact(pom.getPath(), IncrementalState.fingerprint(pom,
+                        previous == null ? null : previous.getArtifact(pom.getPath())));
+            }
+        } catch (IOException e) {
+            String message = "Failed to fingerprint dependencies of " + project.getArtifactId();
+            getLog().error(message, e);
+            throw new MojoExecutionException(message, e);
+        }
+    }
+
+    private boolean isUnchanged(IncrementalState state, IncrementalState previous) {
+        Set<String> changed = state.diff(previous);
+        if (changed == null || !changed.isEmpty()) {
+            getLog().debug("Changed artifacts since the last check: " + changed);
+            return false;
+        }
+        getLog().info("No dependency changed since the last check,reporting its results");
+        return true;
+    }
+
+    /**
+     * Options the reported results depend on
+     */
+    private String getSettings(String kind) {
+        return kind + "|" + fingerprint + "|" + digestAlgorithm + "|" + printIncompatibleDetails
+                + "|" + scope + "|" + includes + "|" + excludes + "|" + versionStrategy + "|"
+                + (versionPolicy == null ? "" : versionPolicy + "@" + versionPolicy.lastModified());
+    }
+
+    private void storeState(IncrementalState state, List<Result> results) {
+        for (Result result : results) {
+            state.putResult(result);
+        }
+        try {
+            state.store(stateFile);
+        } catch (IOException e) {
+            //The next build then checks everything again
+            getLog().warn("Failed to store " + stateFile, e);
         }
     }
 
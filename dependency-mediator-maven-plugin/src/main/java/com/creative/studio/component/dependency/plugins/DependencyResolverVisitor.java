@@ -20,11 +20,20 @@ public class DependencyResolverVisitor implements DependencyNodeVisitor {
     /** Qualified artifact name to artifact. */
     protected final Map<String, Artifact>       resolvedDependenciesByName;
     protected final Map<String, List<Artifact>> conflictDependencyArtifacts;
+    protected final VersionPolicy               versionPolicy;
 
     public DependencyResolverVisitor() {
+        this(new VersionPolicy(BuiltinVersionStrategy.MINOR));
+    }
+
+    /**
+     * @param versionPolicy the strategy of each dependency
+     */
+    public DependencyResolverVisitor(VersionPolicy versionPolicy) {
         super();
         this.resolvedDependenciesByName = new TreeMap<String, Artifact>();
         this.conflictDependencyArtifacts = new TreeMap<String, List<Artifact>>();
+        this.versionPolicy = versionPolicy;
     }
 
     @Override
@@ -53,7 +62,8 @@ public class DependencyResolverVisitor implements DependencyNodeVisitor {
                         .getVersion());
                 DefaultArtifactVersion dav2 = new DefaultArtifactVersion(node.getRelatedArtifact()
                         .getVersion());
-                if (isIncompatible(dav1, dav2)) {
+                if (versionPolicy.getStrategy(at.getGroupId(), at.getArtifactId())
+                        .isIncompatible(dav1, dav2)) {
                     if (conflictDependencyArtifacts.containsKey(key)) {
                         conflictDependencyArtifacts.get(key).add(at);
                         conflictDependencyArtifacts.get(key).add(node.getRelatedArtifact());
@@ -74,15 +84,6 @@ public class DependencyResolverVisitor implements DependencyNodeVisitor {
         return true;
     }
 
-    private boolean isIncompatible(DefaultArtifactVersion dav1, DefaultArtifactVersion dav2) {
-        if (dav1.getMajorVersion() > dav2.getMajorVersion()
-                || (dav1.getMajorVersion() == dav2.getMajorVersion() && dav1.getMinorVersion() > dav2
-                        .getMinorVersion())) {
-            return true;
-        }
-        return false;
-    }
-
     /**
      * @return the resolvedDependenciesByName
      */
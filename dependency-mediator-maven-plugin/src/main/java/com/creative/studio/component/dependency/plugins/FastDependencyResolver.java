@@ -0,0 +1,169 @@
+package com.creative.studio.component.dependency.plugins;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+
+/**
+ * A {@link DependencyResolver} which resolves the same conflicts as the
+ * {@link DefaultDependencyResolver}, for large dependency trees.
+ * <p>
+ * Nodes are looked up by a hashed group, artifact and type key, whose name is
+ * only built once per distinct artifact. Versions are parsed once per version
+ * string. The results are kept in hash maps while the tree is walked, and
+ * sorted by name once at the end. The tree is walked in the same preorder
+ * without recursion, so deep trees do not grow the stack.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class FastDependencyResolver implements DependencyResolver {
+
+    /**
+     * Group id,artifact id and type of an artifact
+     */
+    private static final class ArtifactKey {
+        private String groupId;
+        private String artifactId;
+        private String type;
+        private int    hash;
+        private String name;
+
+        /**
+         * Missing ids are "null",as in the names of the default resolver
+         */
+        ArtifactKey set(Artifact artifact) {
+            this.groupId = String.valueOf(artifact.getGroupId());
+            this.artifactId = String.valueOf(artifact.getArtifactId());
+            this.type = String.valueOf(artifact.getType());
+            this.hash = (groupId.hashCode() * 31 + artifactId.hashCode()) * 31 + type.hashCode();
+            return this;
+        }
+
+        ArtifactKey copy() {
+            ArtifactKey key = new ArtifactKey();
+            key.groupId = groupId;
+            key.artifactId = artifactId;
+            key.type = type;
+            key.hash = hash;
+            key.name = groupId + ":" + artifactId + ":" + type;
+            return key;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ArtifactKey)) {
+                return false;
+            }
+            ArtifactKey other = (ArtifactKey) obj;
+            return hash == other.hash && groupId.equals(other.groupId)
+                    && artifactId.equals(other.artifactId) && type.equals(other.type);
+        }
+    }
+
+    private final VersionPolicy versionPolicy;
+
+    public FastDependencyResolver() {
+        this(new VersionPolicy(BuiltinVersionStrategy.MINOR));
+    }
+
+    /**
+     * @param versionPolicy the strategy of each dependency
+     */
+    public FastDependencyResolver(VersionPolicy versionPolicy) {
+        super();
+        this.versionPolicy = versionPolicy;
+    }
+
+    @Override
+    public DependencyResolutionResult resolve(final DependencyNode rootNode) {
+        Map<ArtifactKey, ArtifactKey> keys = new HashMap<ArtifactKey, ArtifactKey>();
+        Map<String, DefaultArtifactVersion> versions = new HashMap<String, DefaultArtifactVersion>();
+        Map<ArtifactKey, Artifact> resolved = new HashMap<ArtifactKey, Artifact>();
+        Map<ArtifactKey, List<Artifact>> conflicts = new HashMap<ArtifactKey, List<Artifact>>();
+        ArtifactKey probe = new ArtifactKey();
+        ArtifactKey relatedProbe = new ArtifactKey();
+
+        Deque<DependencyNode> pending = new ArrayDeque<DependencyNode>();
+        pending.push(rootNode);
+        while (!pending.isEmpty()) {
+            DependencyNode node = pending.pop();
+            List<DependencyNode> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+            }
+            Artifact at = node.getArtifact();
+            switch (node.getState()) {
+                case DependencyNode.INCLUDED:
+                    resolved.put(intern(keys, probe.set(at)), at);
+                    break;
+                case DependencyNode.OMITTED_FOR_CONFLICT:
+                    Artifact related = node.getRelatedArtifact();
+                    if (!versionPolicy.getStrategy(at.getGroupId(), at.getArtifactId())
+                            .isIncompatible(parse(versions, at.getVersion()),
+                                    parse(versions, related.getVersion()))) {
+                        break;
+                    }
+                    ArtifactKey key = intern(keys, probe.set(at));
+                    List<Artifact> ats = conflicts.get(key);
+                    if (ats != null) {
+                        ats.add(at);
+                        ats.add(related);
+                    } else {
+                        ats = new ArrayList<Artifact>();
+                        ats.add(at);
+                        if (!key.equals(relatedProbe.set(related))) {
+                            ats.add(related);
+                        }
+                        conflicts.put(key, ats);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new DefaultDependencyResolutionResult(sortByName(resolved), sortByName(conflicts));
+    }
+
+    /**
+     * @return the key equal to the probe,which is copied the first time
+     */
+    private static ArtifactKey intern(Map<ArtifactKey, ArtifactKey> keys, ArtifactKey probe) {
+        ArtifactKey key = keys.get(probe);
+        if (key == null) {
+            key = probe.copy();
+            keys.put(key, key);
+        }
+        return key;
+    }
+
+    private static DefaultArtifactVersion parse(Map<String, DefaultArtifactVersion> versions,
+                                                String version) {
+        DefaultArtifactVersion parsed = versions.get(version);
+        if (parsed == null) {
+            parsed = new DefaultArtifactVersion(version);
+            versions.put(version, parsed);
+        }
+        return parsed;
+    }
+
+    private static <V> Map<String, V> sortByName(Map<ArtifactKey, V> values) {
+        Map<String, V> sorted = new TreeMap<String, V>();
+        for (Map.Entry<ArtifactKey, V> entry : values.entrySet()) {
+            sorted.put(entry.getKey().name, entry.getValue());
+        }
+        return sorted;
+    }
+}
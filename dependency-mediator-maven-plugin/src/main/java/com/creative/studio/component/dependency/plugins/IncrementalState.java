@@ -0,0 +1,387 @@
+package com.creative.studio.component.dependency.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import com.creative.studio.component.dependency.CentralDirectory;
+import com.creative.studio.component.dependency.ComponentFormat;
+import com.creative.studio.component.dependency.DependencyMediator;
+import com.creative.studio.component.dependency.DigestAlgorithm;
+import com.creative.studio.component.dependency.DigestEngine;
+import com.creative.studio.component.dependency.NestedArchiveScanner;
+
+/**
+ * The artifacts a check ran on, with their content hashes, and the results it
+ * reported, persisted under <code>target/</code> so the next build can tell
+ * which artifacts changed and only analyze again the results they touch.
+ * <p>
+ * The state is written to a temporary file first and moved into place, so an
+ * interrupted build never leaves a partial state behind.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+final class IncrementalState {
+
+    private static final int MAGIC   = 0x444d4953;
+    private static final int VERSION = 1;
+
+    /**
+     * Content hash of an artifact,with the length and last modified time of
+     * its file when it has one, so an untouched file is not hashed again
+     */
+    static final class Fingerprint {
+        final long   length;
+        final long   lastModified;
+        final String hash;
+
+        Fingerprint(long length, long lastModified, String hash) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * A reported result, such as a conflicting class, with the artifacts it
+     * involves and the lines logged for it
+     */
+    static final class Result {
+        final String       key;
+        final List<String> artifacts;
+        final List<String> lines;
+        /**
+         * Logged after the lines of every result,such as incompatibilities
+         */
+        final List<String> details;
+
+        Result(String key, List<String> artifacts, List<String> lines, List<String> details) {
+            this.key = key;
+            this.artifacts = artifacts;
+            this.lines = lines;
+            this.details = details;
+        }
+    }
+
+    /**
+     * Options the results depend on,a state of other options is not reused
+     */
+    private final String                   settings;
+    private final Map<String, Fingerprint> artifacts = new TreeMap<String, Fingerprint>();
+    private final Map<String, Result>      results   = new LinkedHashMap<String, Result>();
+
+    IncrementalState(String settings) {
+        this.settings = settings;
+    }
+
+    void putArtifact(String key, Fingerprint fingerprint) {
+        artifacts.put(key, fingerprint);
+    }
+
+    Fingerprint getArtifact(String key) {
+        return artifacts.get(key);
+    }
+
+    /**
+     * Copy the fingerprints of the archive and of the archives nested in it
+     * from the previous state
+     */
+    void copyArtifacts(IncrementalState previous, String archiveKey) {
+        String nestedPrefix = archiveKey + NestedArchiveScanner.NESTED_SEPARATOR;
+        for (Map.Entry<String, Fingerprint> entry : previous.artifacts.entrySet()) {
+            if (entry.getKey().equals(archiveKey) || entry.getKey().startsWith(nestedPrefix)) {
+                artifacts.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    void putResult(Result result) {
+        results.put(result.key, result);
+    }
+
+    Result getResult(String key) {
+        return results.get(key);
+    }
+
+    /**
+     * @return the results,in the order they were reported
+     */
+    List<Result> getResults() {
+        return new ArrayList<Result>(results.values());
+    }
+
+    /**
+     * Fingerprint a file,reusing the hash of the previous state when its
+     * length and last modified time did not change
+     */
+    static Fingerprint fingerprint(File file, Fingerprint previous) throws IOException {
+        if (file.isDirectory()) {
+            return fingerprintDirectory(file);
+        }
+        long length = file.length();
+        long lastModified = file.lastModified();
+        if (previous != null && previous.length == length
+                && previous.lastModified == lastModified) {
+            return previous;
+        }
+        InputStream in = new FileInputStream(file);
+        try {
+            return new Fingerprint(length, lastModified, toHex(DigestEngine.get().digest(
+                    DigestAlgorithm.MD5, in)));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Fingerprint the archives nested in the package by the CRC-32 and size
+     * of their zip entries,and its own classes together,without inflating
+     * anything. An untouched package is not opened at all. Packages the
+     * central directory reader does not support,such as ZIP64 ones,are listed
+     * with {@link ZipFile}.
+     */
+    void fingerprintPackage(IncrementalState previous, File packageFile) throws IOException {
+        String packageKey = packageFile.getPath();
+        Fingerprint packageFingerprint = previous == null ? null : previous
+                .getArtifact(packageKey);
+        if (packageFingerprint != null && packageFingerprint.length == packageFile.length()
+                && packageFingerprint.lastModified == packageFile.lastModified()) {
+            copyArtifacts(previous, packageKey);
+            return;
+        }
+        MessageDigest classes = newDigest();
+        CentralDirectory directory = null;
+        try {
+            directory = CentralDirectory.open(packageFile);
+        } catch (ZipException e) {
+            //Listed with ZipFile below
+        }
+        if (directory != null) {
+            try {
+                for (int i = 0; i < directory.size(); i++) {
+                    putPackageEntry(packageKey, directory.getEntryName(i), directory.getCrc(i),
+                            directory.getSize(i), classes);
+                }
+            } finally {
+                directory.close();
+            }
+        } else {
+            ZipFile zipFile = new ZipFile(packageFile);
+            try {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    putPackageEntry(packageKey, entry.getName(), entry.getCrc(), entry.getSize(),
+                            classes);
+                }
+            } finally {
+                zipFile.close();
+            }
+        }
+        putArtifact(packageKey, new Fingerprint(packageFile.length(), packageFile.lastModified(),
+                toHex(classes.digest())));
+    }
+
+    private void putPackageEntry(String packageKey, String entryName, long crc, long size,
+                                 MessageDigest classes) throws IOException {
+        String fingerprint = Long.toHexString(crc) + ":" + size;
+        if (isArchive(entryName)) {
+            putArtifact(packageKey + NestedArchiveScanner.NESTED_SEPARATOR + entryName,
+                    new Fingerprint(size, crc, fingerprint));
+        } else if (entryName.endsWith(DependencyMediator.CLASS_SUFFIX)) {
+            classes.update((entryName + "=" + fingerprint + "\n").getBytes("UTF-8"));
+        }
+    }
+
+    private static boolean isArchive(String entryName) {
+        int dotIndex = entryName.lastIndexOf('.');
+        if (dotIndex == -1 || dotIndex < entryName.lastIndexOf('/')) {
+            return false;
+        }
+        ComponentFormat compFormat = ComponentFormat.fromString(entryName.substring(dotIndex + 1));
+        return compFormat != null && ComponentFormat.CLASS != compFormat;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Fingerprint a classes directory by the names, lengths and last modified
+     * times of its files,without reading them
+     */
+    private static Fingerprint fingerprintDirectory(File directory) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        List<File> pending = new ArrayList<File>();
+        pending.add(directory);
+        while (!pending.isEmpty()) {
+            File[] files = pending.remove(pending.size() - 1).listFiles();
+            if (files == null) {
+                continue;
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    pending.add(file);
+                } else {
+                    sb.append(file.getPath()).append('|').append(file.length()).append('|')
+                            .append(file.lastModified()).append('\n');
+                }
+            }
+        }
+        byte[] bytes = sb.toString().getBytes("UTF-8");
+        return new Fingerprint(0, 0, toHex(DigestEngine.get().digest(DigestAlgorithm.MD5, bytes,
+                0, bytes.length)));
+    }
+
+    /**
+     * @return the keys of the artifacts added, removed or changed since the
+     *         previous state,or null if there is no usable previous state
+     */
+    Set<String> diff(IncrementalState previous) {
+        if (previous == null || !settings.equals(previous.settings)) {
+            return null;
+        }
+        Set<String> changed = new TreeSet<String>();
+        for (Map.Entry<String, Fingerprint> entry : artifacts.entrySet()) {
+            Fingerprint old = previous.artifacts.get(entry.getKey());
+            if (old == null || !old.hash.equals(entry.getValue().hash)) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String key : previous.artifacts.keySet()) {
+            if (!artifacts.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the state stored in the file,or null if it is absent or
+     *         unreadable
+     */
+    static IncrementalState load(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(
+                    file)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    return null;
+                }
+                IncrementalState state = new IncrementalState(in.readUTF());
+                int artifactCount = in.readInt();
+                for (int i = 0; i < artifactCount; i++) {
+                    String key = in.readUTF();
+                    state.artifacts.put(key,
+                            new Fingerprint(in.readLong(), in.readLong(), in.readUTF()));
+                }
+                int resultCount = in.readInt();
+                for (int i = 0; i < resultCount; i++) {
+                    state.putResult(new Result(in.readUTF(), readList(in), readList(in),
+                            readList(in)));
+                }
+                return state;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            //Unreadable state is the same as absent
+            return null;
+        }
+    }
+
+    void store(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File tempFile = File.createTempFile("state", ".tmp", directory);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(tempFile)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(settings);
+                out.writeInt(artifacts.size());
+                for (Map.Entry<String, Fingerprint> entry : artifacts.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().length);
+                    out.writeLong(entry.getValue().lastModified);
+                    out.writeUTF(entry.getValue().hash);
+                }
+                out.writeInt(results.size());
+                for (Result result : results.values()) {
+                    out.writeUTF(result.key);
+                    writeList(out, result.artifacts);
+                    writeList(out, result.lines);
+                    writeList(out, result.details);
+                }
+            } finally {
+                out.close();
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    private static List<String> readList(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        List<String> list = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(in.readUTF());
+        }
+        return list;
+    }
+
+    private static void writeList(DataOutputStream out, List<String> list) throws IOException {
+        out.writeInt(list.size());
+        for (String s : list) {
+            out.writeUTF(s);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
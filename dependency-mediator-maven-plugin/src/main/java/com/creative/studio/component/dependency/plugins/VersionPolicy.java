@@ -0,0 +1,175 @@
+package com.creative.studio.component.dependency.plugins;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+
+/**
+ * The {@link VersionStrategy} of each dependency, by rules on its group id
+ * and artifact id. A policy file has one rule per line:
+ *
+ * <pre>
+ * # comment
+ * *                  = minor
+ * com.acme           = semver
+ * com.acme.legacy.*  = none
+ * com.acme:calendar  = calendar
+ * com.acme:vendor-*  = vendor
+ * </pre>
+ *
+ * A pattern is <code>groupId:artifactId</code>,a group id alone stands for
+ * all of its artifacts, and a trailing <code>*</code> matches any rest. The
+ * longest matching pattern wins, and dependencies no rule matches use the
+ * default strategy.
+ * <p>
+ * Rules are compiled into a character trie of their patterns, so finding the
+ * strategy of a dependency costs the length of its coordinates,whatever the
+ * number of rules.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public class VersionPolicy {
+
+    /**
+     * Node of the trie,with its children sorted by character
+     */
+    private static final class Node {
+        private char[]          labels   = new char[0];
+        private Node[]          children = new Node[0];
+        /**
+         * Strategy of the pattern ending here,and of the patterns ending here
+         * with a <code>*</code>
+         */
+        private VersionStrategy exact;
+        private VersionStrategy prefix;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index < 0 ? null : children[index];
+        }
+
+        Node addChild(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newLabels[index] = c;
+            newChildren[index] = new Node();
+            System.arraycopy(labels, index, newLabels, index + 1, labels.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[index];
+        }
+    }
+
+    private final Node            root = new Node();
+    private final VersionStrategy defaultStrategy;
+    private int                   size;
+
+    public VersionPolicy(VersionStrategy defaultStrategy) {
+        this.defaultStrategy = defaultStrategy;
+    }
+
+    /**
+     * @param pattern <code>groupId[:artifactId]</code>,optionally ending
+     *            with <code>*</code>
+     */
+    public void addRule(String pattern, VersionStrategy strategy) {
+        boolean isPrefix = pattern.endsWith("*");
+        String key = isPrefix ? pattern.substring(0, pattern.length() - 1) : pattern;
+        if (!isPrefix && key.indexOf(':') == -1) {
+            //All the artifacts of the group
+            key = key + ":";
+            isPrefix = true;
+        }
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.addChild(key.charAt(i));
+        }
+        if (isPrefix) {
+            node.prefix = strategy;
+        } else {
+            node.exact = strategy;
+        }
+        size++;
+    }
+
+    /**
+     * @return the strategy of the longest pattern matching the coordinates
+     */
+    public VersionStrategy getStrategy(String groupId, String artifactId) {
+        VersionStrategy strategy = root.prefix != null ? root.prefix : defaultStrategy;
+        Node node = root;
+        int length = groupId.length() + 1 + artifactId.length();
+        for (int i = 0; i < length; i++) {
+            char c = i < groupId.length() ? groupId.charAt(i) : (i == groupId.length() ? ':'
+                    : artifactId.charAt(i - groupId.length() - 1));
+            node = node.child(c);
+            if (node == null) {
+                return strategy;
+            }
+            if (node.prefix != null) {
+                strategy = node.prefix;
+            }
+        }
+        return node.exact != null ? node.exact : strategy;
+    }
+
+    public VersionStrategy getDefaultStrategy() {
+        return defaultStrategy;
+    }
+
+    /**
+     * @return number of rules
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Compile the rules of a policy file
+     *
+     * @throws IOException if the file cannot be read,or a rule names an
+     *             unknown strategy
+     */
+    public static VersionPolicy load(File file, VersionStrategy defaultStrategy)
+            throws IOException {
+        VersionPolicy policy = new VersionPolicy(defaultStrategy);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int separator = line.indexOf('=');
+                if (separator <= 0) {
+                    throw new IOException(file + ":" + lineNumber + ": expected pattern = strategy");
+                }
+                String pattern = line.substring(0, separator).trim();
+                String name = line.substring(separator + 1).trim();
+                VersionStrategy strategy = BuiltinVersionStrategy.forName(name);
+                if (strategy == null) {
+                    throw new IOException(file + ":" + lineNumber + ": unknown strategy " + name);
+                }
+                policy.addRule(pattern, strategy);
+            }
+        } finally {
+            reader.close();
+        }
+        return policy;
+    }
+}
@@ -0,0 +1,27 @@
+package com.creative.studio.component.dependency.plugins;
+
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+
+/**
+ * Decides whether omitting a version of a dependency for the resolved one
+ * breaks its users. Strategies other than the {@link BuiltinVersionStrategy}
+ * ones are found by name through the {@link java.util.ServiceLoader} of this
+ * interface.
+ *
+ * @author <a href="mailto:fengjia10@gmail.com">Von Gosling</a>
+ */
+public interface VersionStrategy {
+
+    /**
+     * @return the name of the strategy in version policies
+     */
+    String getName();
+
+    /**
+     * @param omitted the version omitted for the conflict
+     * @param resolved the version which was resolved instead
+     * @return whether code built against the omitted version may fail with
+     *         the resolved one
+     */
+    boolean isIncompatible(ArtifactVersion omitted, ArtifactVersion resolved);
+}
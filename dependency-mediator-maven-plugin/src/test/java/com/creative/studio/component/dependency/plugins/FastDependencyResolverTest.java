@@ -0,0 +1,66 @@
+package com.creative.studio.component.dependency.plugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.junit.Test;
+
+public class FastDependencyResolverTest {
+
+    private static final String[] VERSIONS = { "1.0", "1.2", "2.0", "2.0.1", "3.1-SNAPSHOT",
+            "10.0", "1.0.0.RELEASE" };
+
+    @Test
+    public void sameResultAsDefaultResolver() {
+        Random random = new Random(11);
+        DependencyNode root = new DependencyNode(artifact("com.test", "root", "1.0"));
+        List<DependencyNode> nodes = new ArrayList<DependencyNode>();
+        nodes.add(root);
+        for (int i = 0; i < 5000; i++) {
+            DependencyNode parent = nodes.get(random.nextInt(nodes.size()));
+            Artifact at = artifact("com.test" + random.nextInt(5), "lib" + random.nextInt(60),
+                    VERSIONS[random.nextInt(VERSIONS.length)]);
+            DependencyNode node;
+            switch (random.nextInt(4)) {
+                case 0:
+                    node = new DependencyNode(at, DependencyNode.OMITTED_FOR_CONFLICT, artifact(
+                            at.getGroupId(), at.getArtifactId(),
+                            VERSIONS[random.nextInt(VERSIONS.length)]));
+                    break;
+                case 1:
+                    node = new DependencyNode(at, DependencyNode.OMITTED_FOR_DUPLICATE, at);
+                    break;
+                default:
+                    node = new DependencyNode(at);
+                    nodes.add(node);
+                    break;
+            }
+            parent.addChild(node);
+        }
+
+        DependencyResolutionResult expected = new DefaultDependencyResolver().resolve(root);
+        DependencyResolutionResult actual = new FastDependencyResolver().resolve(root);
+        assertFalse(expected.getConflictDependencyArtifact().isEmpty());
+        assertEquals(expected.getResolvedDependenciesByName(),
+                actual.getResolvedDependenciesByName());
+        assertEquals(expected.getConflictDependencyArtifact(),
+                actual.getConflictDependencyArtifact());
+        //Sorted by name as well
+        assertEquals(new ArrayList<String>(expected.getConflictDependencyArtifact().keySet()),
+                new ArrayList<String>(actual.getConflictDependencyArtifact().keySet()));
+    }
+
+    private static Artifact artifact(String groupId, String artifactId, String version) {
+        return new DefaultArtifact(groupId, artifactId, VersionRange.createFromVersion(version),
+                Artifact.SCOPE_COMPILE, "jar", null, new DefaultArtifactHandler("jar"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.creative.studio.component.dependency.plugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.creative.studio.component.dependency.plugins.IncrementalState.Fingerprint;
+import com.creative.studio.component.dependency.plugins.IncrementalState.Result;
+
+public class IncrementalStateTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void diffAgainstStoredState() throws IOException {
+        File a = file("a.jar", "a");
+        File b = file("b.jar", "b");
+        IncrementalState state = new IncrementalState("war");
+        state.putArtifact("a", IncrementalState.fingerprint(a, null));
+        state.putArtifact("b", IncrementalState.fingerprint(b, null));
+        state.putResult(new Result("com.test.A", Arrays.asList("a", "b"), Arrays
+                .asList("conflict"), Arrays.asList("incompatible")));
+        File stateFile = new File(folder.getRoot(), "target/state");
+        state.store(stateFile);
+
+        IncrementalState previous = IncrementalState.load(stateFile);
+        assertEquals(Arrays.asList("incompatible"), previous.getResult("com.test.A").details);
+        IncrementalState current = new IncrementalState("war");
+        //Untouched files are not hashed again
+        Fingerprint fingerprint = IncrementalState.fingerprint(a, previous.getArtifact("a"));
+        assertSame(previous.getArtifact("a"), fingerprint);
+        current.putArtifact("a", fingerprint);
+        current.putArtifact("b", IncrementalState.fingerprint(b, null));
+        assertEquals(Collections.emptySet(), current.diff(previous));
+
+        current.putArtifact("b", IncrementalState.fingerprint(file("b.jar", "b2"), null));
+        current.putArtifact("c", IncrementalState.fingerprint(file("c.jar", "c"), null));
+        assertEquals(new TreeSet<String>(Arrays.asList("b", "c")), current.diff(previous));
+        assertNull(new IncrementalState("tree").diff(previous));
+    }
+
+    @Test
+    public void fingerprintZip64Packages() throws IOException {
+        File war = new File(folder.getRoot(), "app.war");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(war));
+        try {
+            out.putNextEntry(new ZipEntry("WEB-INF/lib/a.jar"));
+            out.write("a".getBytes("UTF-8"));
+            out.closeEntry();
+            //More entries than a zip without ZIP64 records holds
+            for (int i = 0; i < 0x10000; i++) {
+                out.putNextEntry(new ZipEntry("WEB-INF/classes/C" + i + ".class"));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        IncrementalState state = new IncrementalState("war");
+        state.fingerprintPackage(null, war);
+        assertNotNull(state.getArtifact(war.getPath()));
+        assertEquals("e8b7be43:1", state.getArtifact(war.getPath() + "!/WEB-INF/lib/a.jar").hash);
+
+        //Untouched package is not opened again
+        IncrementalState current = new IncrementalState("war");
+        current.fingerprintPackage(state, war);
+        assertEquals(Collections.emptySet(), current.diff(state));
+    }
+
+    private File file(String name, String content) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,67 @@
+package com.creative.studio.component.dependency.plugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VersionPolicyTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void longestPatternWins() throws IOException {
+        File file = folder.newFile("policy");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(("# Rules\n" + "com.acme = semver\n" + "com.acme.legacy.* = none\n"
+                    + "com.acme:calendar = calendar\n" + "com.acme:vendor-* = vendor\n")
+                    .getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        VersionPolicy policy = VersionPolicy.load(file, BuiltinVersionStrategy.MINOR);
+        assertEquals(4, policy.size());
+        assertEquals(BuiltinVersionStrategy.SEMVER, policy.getStrategy("com.acme", "core"));
+        assertEquals(BuiltinVersionStrategy.CALENDAR, policy.getStrategy("com.acme", "calendar"));
+        assertEquals(BuiltinVersionStrategy.SEMVER, policy.getStrategy("com.acme", "calendar2"));
+        assertEquals(BuiltinVersionStrategy.VENDOR, policy.getStrategy("com.acme", "vendor-x"));
+        assertEquals(BuiltinVersionStrategy.NONE, policy.getStrategy("com.acme.legacy.db", "db"));
+        //A group id alone does not match longer group ids
+        assertEquals(BuiltinVersionStrategy.MINOR, policy.getStrategy("com.acmex", "core"));
+        assertEquals(BuiltinVersionStrategy.MINOR, policy.getStrategy("org.other", "core"));
+
+        policy.addRule("*", BuiltinVersionStrategy.NONE);
+        assertEquals(BuiltinVersionStrategy.NONE, policy.getStrategy("org.other", "core"));
+    }
+
+    @Test
+    public void builtinStrategies() {
+        assertTrue(BuiltinVersionStrategy.MINOR.isIncompatible(v("1.3.0"), v("1.2.9")));
+        assertFalse(BuiltinVersionStrategy.MINOR.isIncompatible(v("1.2.9"), v("1.2.0")));
+        assertFalse(BuiltinVersionStrategy.SEMVER.isIncompatible(v("1.3.0"), v("1.2.0")));
+        assertTrue(BuiltinVersionStrategy.SEMVER.isIncompatible(v("2.0.0"), v("1.2.0")));
+        assertTrue(BuiltinVersionStrategy.SEMVER.isIncompatible(v("0.3.0"), v("0.2.0")));
+        assertTrue(BuiltinVersionStrategy.CALENDAR.isIncompatible(v("2015.1.0"), v("2014.12.1")));
+        assertFalse(BuiltinVersionStrategy.CALENDAR.isIncompatible(v("2015.4.0"), v("2015.1.0")));
+        assertTrue(BuiltinVersionStrategy.VENDOR.isIncompatible(v("1.2.0-redhat-1"), v("1.2.0")));
+        assertFalse(BuiltinVersionStrategy.VENDOR.isIncompatible(v("1.2.1-redhat-2"),
+                v("1.2.0-redhat-1")));
+        assertFalse(BuiltinVersionStrategy.VENDOR.isIncompatible(v("1.2.0-SNAPSHOT"), v("1.2.0")));
+        assertFalse(BuiltinVersionStrategy.NONE.isIncompatible(v("9.0"), v("1.0")));
+        assertEquals(BuiltinVersionStrategy.SEMVER, BuiltinVersionStrategy.forName("SemVer"));
+    }
+
+    private static DefaultArtifactVersion v(String version) {
+        return new DefaultArtifactVersion(version);
+    }
+}